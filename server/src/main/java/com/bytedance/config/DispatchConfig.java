@@ -0,0 +1,23 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 消息推送（事务提交后分发）配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.dispatch")
+@Data
+public class DispatchConfig {
+    /**
+     * 推送线程数，每个线程负责一部分会话（按 conversationId 分片），保证同一会话按提交顺序推送
+     */
+    private int threads = 8;
+
+    /**
+     * 每个推送线程的待推送队列容量，队列满时丢弃推送（消息已落库，客户端可通过同步接口拉取）
+     */
+    private int queueCapacity = 2000;
+}
@@ -0,0 +1,43 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 消息批量提交（group commit）配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.group-commit")
+@Data
+public class GroupCommitConfig {
+    /**
+     * 是否开启批量提交；关闭时每条消息单独一个事务
+     */
+    private boolean enabled = false;
+
+    /**
+     * 写入线程数，会话按 ID 固定到某个线程，保证同一会话内的顺序
+     */
+    private int writers = 2;
+
+    /**
+     * 单批最多条数
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * 收到第一条后最多等待多久凑批（微秒）
+     */
+    private long maxWaitMicros = 1000;
+
+    /**
+     * 每个写入线程的待写队列容量，满时拒绝发送
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 调用方等待写入结果的超时时间（毫秒）
+     */
+    private long timeoutMs = 5000;
+}
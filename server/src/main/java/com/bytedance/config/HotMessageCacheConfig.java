@@ -0,0 +1,34 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 热点会话最近消息缓存配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.hot-messages")
+@Data
+public class HotMessageCacheConfig {
+    /**
+     * 是否启用；关闭时同步接口全部查库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个会话缓存的最近消息条数
+     */
+    private int capacity = 128;
+
+    /**
+     * 缓存占用内存上限（字节，按消息内容估算），超过后按最近最少使用淘汰整个会话
+     */
+    private long maxBytes = 128L * 1024 * 1024;
+
+    /**
+     * 会话缓存超过该时间（毫秒）没有本地写入或校验时，读取前先查库比对已提交的最大序列号，
+     * 限制丢失其他实例写入通知后返回过期结果的时长；0 表示每次读取都校验
+     */
+    private long revalidateMs = 2000;
+}
@@ -0,0 +1,72 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 会话车道（单写者）配置类
+ * 同一会话的发送固定由一个实例上的一个线程串行执行，不依赖数据库行锁保证顺序；
+ * 多实例部署时会话按一致性哈希归属到实例，非归属实例收到的发送会转发给归属实例
+ * 配合 im.seq.allocator=segment 使用时，号段分配不再需要跨实例协调
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.lanes")
+@Data
+public class LaneConfig {
+    /**
+     * 是否开启；与 im.group-commit 二选一，同时开启时优先使用车道
+     */
+    private boolean enabled = false;
+
+    /**
+     * 车道数（单线程执行器个数），0 表示取 CPU 核数
+     */
+    private int lanes = 0;
+
+    /**
+     * 每条车道的待执行队列容量，满时拒绝发送
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 调用方等待发送结果的超时时间（毫秒）
+     */
+    private long timeoutMs = 5000;
+
+    /**
+     * 一致性哈希环上每个实例的虚拟节点数
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * 实例心跳间隔（秒），同时也是刷新实例列表的间隔
+     */
+    private long heartbeatSeconds = 5;
+
+    /**
+     * 超过该时间（秒）没有心跳的实例从环上移除
+     */
+    private long instanceTtlSeconds = 15;
+
+    /**
+     * 其他实例转发发送请求时访问本实例的地址，如 http://10.0.0.1:8081；为空时按本机IP和端口生成
+     */
+    private String advertiseAddress = "";
+
+    /**
+     * 实例间转发接口的校验令牌，开启车道时必须配置（为空时拒绝启动）
+     */
+    private String internalToken = "";
+
+    /**
+     * 转发请求的连接超时（毫秒），连不上归属实例时返回可重试的错误，不在本实例执行
+     */
+    private long forwardConnectTimeoutMs = 1000;
+
+    /**
+     * 转发请求的读取超时（毫秒），必须大于 timeoutMs：归属实例在车道上最多等待 timeoutMs，
+     * 转发方先超时会在对方仍可能写入时报错
+     */
+    private long forwardTimeoutMs = 6000;
+}
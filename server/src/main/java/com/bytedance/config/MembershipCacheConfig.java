@@ -0,0 +1,23 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 会话成员本地缓存配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.membership-cache")
+@Data
+public class MembershipCacheConfig {
+    /**
+     * 缓存占用内存上限（字节，按成员数估算），超过后按最近最少使用淘汰
+     */
+    private long maxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 缓存过期时间（秒），跨实例失效通知丢失时兜底
+     */
+    private long ttlSeconds = 600;
+}
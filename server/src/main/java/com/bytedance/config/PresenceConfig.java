@@ -0,0 +1,28 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 在线状态批量查询配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.presence")
+@Data
+public class PresenceConfig {
+    /**
+     * 单次批量查询最多的用户数
+     */
+    private int maxBatchSize = 5000;
+
+    /**
+     * 本地缓存有效期（毫秒），会话列表、成员面板频繁刷新时不必每次都查 Redis；0 表示不缓存
+     */
+    private long cacheTtlMs = 2000;
+
+    /**
+     * 本地缓存最多条目数，超过后清理过期条目，仍超过则整体清空
+     */
+    private int cacheMaxEntries = 200_000;
+}
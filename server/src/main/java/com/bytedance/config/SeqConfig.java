@@ -0,0 +1,44 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 消息序列号分配配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.seq")
+@Data
+public class SeqConfig {
+    /**
+     * 序列号分配方式
+     * db: SELECT ... FOR UPDATE 锁会话行（原有实现）
+     * redis: Redis INCR，不持有数据库锁
+     * segment: 从 Redis 批量租用号段，在本地内存中分配
+     *          号段只保证单实例内单调，多实例部署时同一会话的发送需要落在同一个实例上
+     */
+    private String allocator = "db";
+
+    /**
+     * segment 模式下每次租用的号段长度
+     */
+    private long segmentStep = 100;
+
+    /**
+     * segment 模式下本地最多缓存的会话号段数
+     */
+    private int maxSegments = 100000;
+
+    /**
+     * uk_conv_seq 冲突后的最大重试次数
+     */
+    private int maxRetries = 3;
+
+    /**
+     * redis / segment 模式下 seq 在事务外分配，提交顺序可能与 seq 顺序不同：
+     * 同步结果中出现空洞、且空洞之后的消息写入不到该时间（毫秒）时，只返回空洞之前的部分，
+     * 避免客户端游标越过还未提交的消息；超过该时间的空洞视为回滚留下的永久空洞
+     */
+    private long gapGraceMs = 5000;
+}
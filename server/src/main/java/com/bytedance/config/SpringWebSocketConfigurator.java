@@ -1,5 +1,6 @@
 package com.bytedance.config;
 
+import com.bytedance.utils.JwtUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
@@ -7,7 +8,12 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Component;
 
+import javax.websocket.Extension;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpointConfig;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * WebSocket 配置器，用于支持 Spring 依赖注入
@@ -19,6 +25,11 @@ import javax.websocket.server.ServerEndpointConfig;
 @Slf4j
 public class SpringWebSocketConfigurator extends ServerEndpointConfig.Configurator implements ApplicationContextAware {
 
+    /**
+     * 会话属性：握手时通过 JWT 校验的 userId，未携带或校验失败时不存在
+     */
+    public static final String AUTH_USER_ID = "im.ws.authUserId";
+
     private static volatile BeanFactory context;
 
     @Override
@@ -27,6 +38,43 @@ public class SpringWebSocketConfigurator extends ServerEndpointConfig.Configurat
         log.info("SpringWebSocketConfigurator 初始化完成");
     }
 
+    /**
+     * 只有开启 im.ws.deflate-enabled 时才协商扩展（permessage-deflate）
+     */
+    @Override
+    public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+        if (context == null || !context.getBean(WsSessionConfig.class).isDeflateEnabled()) {
+            return Collections.emptyList();
+        }
+        return super.getNegotiatedExtensions(installed, requested);
+    }
+
+    /**
+     * 握手时校验 JWT：请求头 Authorization: Bearer xxx，或参数 token（浏览器无法自定义握手请求头）
+     * 通过后把 Token 中的 userId 记到会话属性，连接建立时与路径中的 userId 比对
+     */
+    @Override
+    public void modifyHandshake(ServerEndpointConfig sec, HandshakeRequest request, HandshakeResponse response) {
+        super.modifyHandshake(sec, request, response);
+        String token = token(request);
+        Long userId = token == null || context == null ? null : context.getBean(JwtUtils.class).getUserIdFromToken(token);
+        if (userId != null) {
+            sec.getUserProperties().put(AUTH_USER_ID, userId);
+        } else {
+            sec.getUserProperties().remove(AUTH_USER_ID);
+        }
+    }
+
+    private static String token(HandshakeRequest request) {
+        List<String> headers = request.getHeaders().get("Authorization");
+        if (headers != null && !headers.isEmpty() && headers.get(0).startsWith("Bearer ")) {
+            String token = headers.get(0).substring(7).trim();
+            return token.isEmpty() ? null : token;
+        }
+        List<String> params = request.getParameterMap().get("token");
+        return params == null || params.isEmpty() || params.get(0).isEmpty() ? null : params.get(0);
+    }
+
     @Override
     public <T> T getEndpointInstance(Class<T> clazz) throws InstantiationException {
         try {
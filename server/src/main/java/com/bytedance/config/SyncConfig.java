@@ -0,0 +1,38 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 多会话增量同步（/api/messages/sync-all）配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.sync")
+@Data
+public class SyncConfig {
+    /**
+     * 单次请求最多同步的会话数，超出部分放入续传令牌
+     */
+    private int maxConversations = 500;
+
+    /**
+     * 每个会话单次最多返回的消息数
+     */
+    private int perConversationLimit = 100;
+
+    /**
+     * 单次响应的消息体积预算（字节，按消息内容估算），用完后其余会话放入续传令牌
+     */
+    private long maxBytes = 1024 * 1024;
+
+    /**
+     * 并行查库的线程数（全实例共享，限制对数据库的并发压力）
+     */
+    private int parallelism = 8;
+
+    /**
+     * 等待单批查库结果的最长时间（毫秒）
+     */
+    private long timeoutMs = 5000;
+}
@@ -0,0 +1,28 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户搜索索引配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.user-search")
+@Data
+public class UserSearchConfig {
+    /**
+     * 按用户目录版本拉取变更的间隔（毫秒），其他实例注册的用户在该时间内可搜到
+     */
+    private long refreshMs = 1000;
+
+    /**
+     * 未指定 limit 时返回的条数
+     */
+    private int defaultLimit = 20;
+
+    /**
+     * 单次最多返回的条数
+     */
+    private int maxLimit = 50;
+}
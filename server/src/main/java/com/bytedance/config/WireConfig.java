@@ -0,0 +1,21 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 消息下发格式配置类（WebSocket 推送、重连补发、同步接口）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.wire")
+@Data
+public class WireConfig {
+    /**
+     * content / mentions 是否作为 JSON 对象内嵌下发
+     * false: 作为字符串下发（转义后的 JSON），兼容把 content 当字符串解析的旧客户端
+     * true: 原样内嵌，不再二次转义，下发体积更小、两端都少一次编解码
+     * 同步接口可通过 rawContent 参数按请求覆盖
+     */
+    private boolean rawContent = false;
+}
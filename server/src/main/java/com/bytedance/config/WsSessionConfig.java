@@ -0,0 +1,99 @@
+package com.bytedance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebSocket 连接发送队列配置类
+ */
+@Configuration
+@ConfigurationProperties(prefix = "im.ws")
+@Data
+public class WsSessionConfig {
+    /**
+     * 单个连接发送队列的高水位
+     * 队列达到高水位后，新的推送直接丢弃（消息已落库，客户端重连后按序列号补拉）
+     */
+    private int outboundHighWaterMark = 1000;
+
+    /**
+     * 队列持续处于高水位超过该时间（毫秒）即判定为慢连接并断开，客户端重连后补拉未确认消息
+     */
+    private long slowConsumerTimeoutMs = 10000;
+
+    /**
+     * 重连补发：补完一个会话后发送队列超过该条数时，等消化后再补下一个会话
+     */
+    private int replayBatchSize = 100;
+
+    /**
+     * 重连补发：单次连接最多补发的条数，超出部分由客户端通过同步接口拉取
+     */
+    private int replayMaxMessages = 2000;
+
+    /**
+     * 重连补发：每个会话最多补发最新的条数，更早的由客户端按 seq 缺口通过同步接口拉取
+     */
+    private int replayPerConversation = 50;
+
+    /**
+     * 重连补发：最多补发的会话数（按最新消息时间倒序）
+     */
+    private int replayMaxConversations = 200;
+
+    /**
+     * 送达游标批量写回间隔（毫秒）
+     */
+    private long deliveredFlushMs = 1000;
+
+    /**
+     * 重连补发线程数
+     */
+    private int replayThreads = 2;
+
+    /**
+     * 推送合帧：单帧最多合并的消息数，小于 2 表示不合帧
+     * 只对握手时带 batch=1 的连接生效，合帧后文本帧为 JSON 数组、二进制帧类型为 FRAME_BATCH
+     */
+    private int coalesceMaxMessages = 32;
+
+    /**
+     * 推送合帧：空闲连接收到首条推送后最多等待多久（毫秒）凑批，即合帧带来的额外延迟上限
+     * 0 表示不等待，只合并上一帧发送期间积压的推送
+     */
+    private long coalesceWindowMs = 10;
+
+    /**
+     * 单个用户在本实例上最多保持的设备连接数，超出时挤掉最早的连接；0 表示不限制
+     * 握手参数 deviceId 标识设备，同一设备重连替换旧连接；未携带时每个连接视为独立设备
+     */
+    private int maxDevicesPerUser = 5;
+
+    /**
+     * 心跳续期在线状态的批量刷新间隔（毫秒）
+     * 收到 ping 只在本地记录，按该间隔把期间有心跳的用户一次 Pipeline 写回 Redis
+     */
+    private long presenceFlushMs = 5000;
+
+    /**
+     * 上行发送（WebSocket send 帧）处理线程数，同一用户的发送固定在一个线程上按序执行
+     */
+    private int upstreamThreads = 8;
+
+    /**
+     * 上行发送每个处理线程的排队上限，超过后回执“服务繁忙”
+     */
+    private int upstreamQueueCapacity = 1000;
+
+    /**
+     * 上行发送按 clientMsgId 去重的保留时间（秒）
+     */
+    private long clientMsgIdTtlSeconds = 86400;
+
+    /**
+     * 是否与客户端协商 permessage-deflate 压缩（客户端在握手时请求才生效），由 Tomcat 压缩每一条下发消息
+     * 短消息压缩收益小，建议配合推送合帧（batch=1）使用；压缩会增加 CPU，按部署评估后开启
+     */
+    private boolean deflateEnabled = false;
+}
@@ -0,0 +1,171 @@
+package com.bytedance.consumer;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.bytedance.config.LaneConfig;
+import com.bytedance.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群成员与会话归属
+ * 每个实例定时把心跳写入 Redis，并根据存活实例列表构建一致性哈希环，决定会话由哪个实例串行处理
+ */
+@Slf4j
+@Component
+public class ClusterMembership {
+
+    // 存活实例：member = instanceId，score = 最近一次心跳时间（毫秒）
+    private static final String INSTANCES_KEY = "im:instances";
+    // 实例地址：field = instanceId，value = 转发地址
+    private static final String ADDRESS_KEY = "im:instance:addr";
+
+    private final LaneConfig laneConfig;
+    private final RedisUtils redisUtils;
+    private final ClusterPushRouter clusterPushRouter;
+
+    @Value("${server.port:8081}")
+    private String serverPort;
+
+    private String instanceId;
+    private String address;
+    private ScheduledExecutorService heartbeatExecutor;
+
+    private volatile ConsistentHashRing ring;
+    private volatile Map<String, String> addresses = Collections.emptyMap();
+
+    // 哈希环重建后回调，用于清理归属已迁走的会话的本地状态
+    private final List<Runnable> ringChangeListeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public ClusterMembership(LaneConfig laneConfig,
+                             RedisUtils redisUtils,
+                             ClusterPushRouter clusterPushRouter) {
+        this.laneConfig = laneConfig;
+        this.redisUtils = redisUtils;
+        this.clusterPushRouter = clusterPushRouter;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!laneConfig.isEnabled()) {
+            return;
+        }
+        instanceId = clusterPushRouter.getInstanceId();
+        address = StrUtil.isNotBlank(laneConfig.getAdvertiseAddress())
+                ? laneConfig.getAdvertiseAddress() : defaultAddress();
+        ring = ConsistentHashRing.of(Collections.singleton(instanceId), laneConfig.getVirtualNodes());
+
+        refresh();
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("im-cluster-heartbeat-").build());
+        heartbeatExecutor.scheduleAtFixedRate(this::refresh,
+                laneConfig.getHeartbeatSeconds(), laneConfig.getHeartbeatSeconds(), TimeUnit.SECONDS);
+        log.info("已加入会话归属环: instanceId={}, address={}", instanceId, address);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (heartbeatExecutor == null) {
+            return;
+        }
+        heartbeatExecutor.shutdownNow();
+        // 主动退出，其他实例下次刷新即可接管本实例的会话，不必等心跳过期
+        try {
+            redisUtils.zRemove(INSTANCES_KEY, instanceId);
+            redisUtils.hDelete(ADDRESS_KEY, instanceId);
+        } catch (Exception e) {
+            log.warn("退出会话归属环失败: instanceId={}", instanceId, e);
+        }
+    }
+
+    /**
+     * 会话的归属实例
+     * @return 实例ID，未开启时返回 null
+     */
+    public String ownerOf(Long conversationId) {
+        ConsistentHashRing current = ring;
+        return current != null ? current.locate(conversationId) : null;
+    }
+
+    public boolean isLocal(String targetInstanceId) {
+        return instanceId != null && instanceId.equals(targetInstanceId);
+    }
+
+    /**
+     * 实例的转发地址，未知时返回 null
+     */
+    public String addressOf(String targetInstanceId) {
+        return addresses.get(targetInstanceId);
+    }
+
+    /**
+     * 注册哈希环变化回调，在刷新线程上执行
+     */
+    public void addRingChangeListener(Runnable listener) {
+        ringChangeListeners.add(listener);
+    }
+
+    /**
+     * 写入心跳，清理过期实例，并在实例列表变化时重建哈希环
+     * 访问 Redis 失败时沿用当前视图
+     */
+    void refresh() {
+        try {
+            long now = System.currentTimeMillis();
+            long expireBefore = now - TimeUnit.SECONDS.toMillis(laneConfig.getInstanceTtlSeconds());
+            redisUtils.zAdd(INSTANCES_KEY, instanceId, now);
+            redisUtils.hSet(ADDRESS_KEY, instanceId, address);
+            redisUtils.zRemoveRangeByScore(INSTANCES_KEY, 0, expireBefore);
+
+            Set<String> alive = new HashSet<>(redisUtils.zRangeByScore(INSTANCES_KEY, expireBefore, Double.MAX_VALUE));
+            alive.add(instanceId);
+
+            Map<String, String> latest = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : redisUtils.hGetAll(ADDRESS_KEY).entrySet()) {
+                String id = entry.getKey().toString();
+                if (alive.contains(id)) {
+                    latest.put(id, entry.getValue().toString());
+                } else {
+                    redisUtils.hDelete(ADDRESS_KEY, id);
+                }
+            }
+            addresses = latest;
+
+            if (!alive.equals(ring.getNodes())) {
+                ring = ConsistentHashRing.of(alive, laneConfig.getVirtualNodes());
+                log.info("会话归属环已更新: instances={}", alive);
+                for (Runnable listener : ringChangeListeners) {
+                    listener.run();
+                }
+            }
+        } catch (Exception e) {
+            log.warn("刷新集群实例列表失败，沿用当前视图", e);
+        }
+    }
+
+    private String defaultAddress() {
+        try {
+            return "http://" + InetAddress.getLocalHost().getHostAddress() + ":" + serverPort;
+        } catch (Exception e) {
+            log.warn("无法获取主机IP，转发地址使用 localhost");
+            return "http://localhost:" + serverPort;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.bytedance.consumer;
+
+import cn.hutool.core.util.StrUtil;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 跨实例推送路由
+ * 每个实例订阅自己的频道 ws:push:{instanceId}，
+ * 接收者在其他实例上时，按目标实例合并成一个信封发布到对方频道
+ */
+@Slf4j
+@Component
+public class ClusterPushRouter implements MessageListener {
+
+    // Redis 频道前缀
+    private static final String CHANNEL_PUSH = "ws:push:"; // ws:push:{instanceId}
+
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectProvider<RemotePushHandler> remotePushHandler;
+    private final MessageCodec messageCodec;
+
+    // 可通过 im.instance-id 指定，未指定时自动生成
+    @Value("${im.instance-id:}")
+    private String configuredInstanceId;
+
+    @Value("${server.port:8081}")
+    private String serverPort;
+
+    // 当前实例ID（用于标识不同的服务实例）
+    private String instanceId;
+
+    @Autowired
+    public ClusterPushRouter(RedisUtils redisUtils,
+                             RedisMessageListenerContainer listenerContainer,
+                             ObjectProvider<RemotePushHandler> remotePushHandler,
+                             MessageCodec messageCodec) {
+        this.redisUtils = redisUtils;
+        this.listenerContainer = listenerContainer;
+        this.remotePushHandler = remotePushHandler;
+        this.messageCodec = messageCodec;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (StrUtil.isNotBlank(configuredInstanceId)) {
+            instanceId = configuredInstanceId;
+        } else {
+            // 生成实例ID：IP:PORT:UUID
+            try {
+                String host = InetAddress.getLocalHost().getHostAddress();
+                instanceId = host + ":" + serverPort + ":" + UUID.randomUUID().toString().substring(0, 8);
+            } catch (Exception e) {
+                instanceId = UUID.randomUUID().toString();
+                log.warn("无法获取主机IP，使用UUID作为实例ID: {}", instanceId);
+            }
+        }
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_PUSH + instanceId));
+        log.info("跨实例推送订阅完成, 实例ID: {}", instanceId);
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * 把推送转发给目标实例
+     * @return 是否有实例收到（目标实例已下线时返回 false，调用方应按离线处理）
+     */
+    public boolean publish(String targetInstanceId, List<Long> userIds, String payload) {
+        return publish(targetInstanceId, userIds, payload, null);
+    }
+
+    /**
+     * 把推送转发给目标实例，目标实例投递给发送者时跳过 excludeDeviceId 对应的连接
+     * @return 是否有实例收到（目标实例已下线时返回 false，调用方应按离线处理）
+     */
+    public boolean publish(String targetInstanceId, List<Long> userIds, String payload, String excludeDeviceId) {
+        String body = messageCodec.encode(new PushEnvelope(instanceId, userIds, payload, excludeDeviceId));
+        Long receivers = redisUtils.publish(CHANNEL_PUSH + targetInstanceId, body);
+        log.debug("跨实例推送: target={}, users={}, receivers={}", targetInstanceId, userIds.size(), receivers);
+        return receivers != null && receivers > 0;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            PushEnvelope envelope = messageCodec.decode(body, PushEnvelope.class);
+            if (envelope.getUserIds() == null || envelope.getUserIds().isEmpty()) {
+                return;
+            }
+            RemotePushHandler handler = remotePushHandler.getIfAvailable();
+            if (handler == null) {
+                log.warn("未注册 RemotePushHandler，丢弃来自 {} 的推送", envelope.getFrom());
+                return;
+            }
+            handler.onRemotePush(envelope.getUserIds(), envelope.getPayload(), envelope.getExcludeDeviceId());
+        } catch (Exception e) {
+            log.error("处理跨实例推送失败", e);
+        }
+    }
+}
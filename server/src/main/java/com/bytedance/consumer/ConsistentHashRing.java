@@ -0,0 +1,71 @@
+package com.bytedance.consumer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 一致性哈希环（Ketama：MD5 + 虚拟节点）
+ * 不可变，实例列表变化时整体重建；增减一个实例只会移动约 1/N 的会话
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> nodes;
+
+    private ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        // 每个 MD5 摘要切出 4 个点
+        int digests = Math.max(1, virtualNodes / 4);
+        for (String node : this.nodes) {
+            for (int i = 0; i < digests; i++) {
+                byte[] digest = md5(node + "#" + i);
+                for (int h = 0; h < 4; h++) {
+                    ring.put(point(digest, h), node);
+                }
+            }
+        }
+    }
+
+    public static ConsistentHashRing of(Collection<String> nodes, int virtualNodes) {
+        return new ConsistentHashRing(nodes, virtualNodes);
+    }
+
+    /**
+     * 查找 key 所属的节点
+     * @return 节点，环为空时返回 null
+     */
+    public String locate(long key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(point(md5(Long.toString(key)), 0));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    private static long point(byte[] digest, int index) {
+        int offset = index * 4;
+        return ((long) (digest[offset + 3] & 0xFF) << 24)
+                | ((long) (digest[offset + 2] & 0xFF) << 16)
+                | ((long) (digest[offset + 1] & 0xFF) << 8)
+                | (digest[offset] & 0xFF);
+    }
+
+    private static byte[] md5(String value) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
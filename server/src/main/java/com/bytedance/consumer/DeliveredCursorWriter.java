@@ -0,0 +1,78 @@
+package com.bytedance.consumer;
+
+import com.bytedance.entity.ConversationMember;
+import com.bytedance.repository.IConversationMemberRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 送达游标写入：推送或补发写出成功后（SessionOutbound 的 onSent 回调）在本地记录 (用户, 会话) 的最大序列号，
+ * 由定时任务合并后按批写回 conversation_members.last_delivered_seq。
+ * 游标按用户记录，任一设备写出成功即推进，其他设备缺的消息由客户端按 seq 缺口通过同步接口拉取。
+ *
+ * 游标最多落后一个刷新间隔，期间断开的连接重连时会重复补发这部分消息，客户端按 msgId 去重
+ */
+@Slf4j
+final class DeliveredCursorWriter {
+
+    private final IConversationMemberRepository conversationMemberRepository;
+    private final int batchSize;
+
+    // key: [userId, conversationId]，value: 已送达的最大序列号
+    private final Map<List<Long>, Long> pending = new ConcurrentHashMap<>();
+
+    DeliveredCursorWriter(IConversationMemberRepository conversationMemberRepository, int batchSize) {
+        this.conversationMemberRepository = conversationMemberRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 记录已送达，下次 flush 时写回
+     */
+    void record(Long userId, Long conversationId, Long seq) {
+        if (seq == null) {
+            return;
+        }
+        pending.merge(List.of(userId, conversationId), seq, Math::max);
+    }
+
+    /**
+     * 把上个周期内的送达记录按批写回（只前进不后退），失败的批次留到下个周期重试
+     */
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<ConversationMember> batch = new ArrayList<>();
+        Iterator<Map.Entry<List<Long>, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<List<Long>, Long> entry = iterator.next();
+            // 只移除读到的值，移除前又有新的记录则留到下个周期
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                batch.add(ConversationMember.builder()
+                        .userId(entry.getKey().get(0))
+                        .conversationId(entry.getKey().get(1))
+                        .lastDeliveredSeq(entry.getValue())
+                        .build());
+            }
+            if (batch.size() >= batchSize || (!iterator.hasNext() && !batch.isEmpty())) {
+                try {
+                    conversationMemberRepository.advanceDeliveredSeqs(batch);
+                } catch (Exception e) {
+                    for (ConversationMember cursor : batch) {
+                        record(cursor.getUserId(), cursor.getConversationId(), cursor.getLastDeliveredSeq());
+                    }
+                    log.warn("送达游标写入失败: {} 条", batch.size(), e);
+                    return;
+                }
+                // 每批使用新的列表，已交给数据库的批次不再修改
+                batch = new ArrayList<>();
+            }
+        }
+    }
+}
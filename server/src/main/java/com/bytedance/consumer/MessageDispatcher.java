@@ -0,0 +1,199 @@
+package com.bytedance.consumer;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.bytedance.config.DispatchConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IInboxRepository;
+import com.bytedance.service.MembershipCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息分发器
+ * 在发送事务提交之后，把消息异步推送给会话成员，HTTP 发送接口的耗时只包含落库
+ * 按会话分片到单线程队列，同一会话的推送顺序与提交顺序一致
+ * 收件箱排序随推送在同一个分片线程上更新，提交线程（发送请求、车道线程）不再访问 Redis
+ */
+@Slf4j
+@Component
+public class MessageDispatcher {
+
+    private final MembershipCache membershipCache;
+    private final IInboxRepository inboxRepository;
+    private final DispatchConfig dispatchConfig;
+    private final MeterRegistry meterRegistry;
+
+    private List<ThreadPoolExecutor> executors;
+
+    // 从入队到开始推送的等待时间
+    private Timer dispatchLag;
+    // 单条消息推送给所有成员的耗时
+    private Timer dispatchDuration;
+    // 队列满被丢弃的推送数
+    private Counter rejectedCount;
+
+    @Autowired
+    public MessageDispatcher(MembershipCache membershipCache,
+                             IInboxRepository inboxRepository,
+                             DispatchConfig dispatchConfig,
+                             MeterRegistry meterRegistry) {
+        this.membershipCache = membershipCache;
+        this.inboxRepository = inboxRepository;
+        this.dispatchConfig = dispatchConfig;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, dispatchConfig.getThreads());
+        executors = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            executors.add(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(dispatchConfig.getQueueCapacity()),
+                    ThreadFactoryBuilder.create().setNamePrefix("im-dispatch-" + i + "-").build(),
+                    new ThreadPoolExecutor.AbortPolicy()));
+        }
+
+        Gauge.builder("im.dispatch.queue.depth", this, MessageDispatcher::getQueueDepth)
+                .description("待推送消息队列长度")
+                .register(meterRegistry);
+        Gauge.builder("im.dispatch.active", this, MessageDispatcher::getActiveCount)
+                .description("正在推送的线程数")
+                .register(meterRegistry);
+        dispatchLag = Timer.builder("im.dispatch.lag")
+                .description("消息从提交到开始推送的等待时间")
+                .register(meterRegistry);
+        dispatchDuration = Timer.builder("im.dispatch.duration")
+                .description("单条消息推送给所有成员的耗时")
+                .register(meterRegistry);
+        rejectedCount = Counter.builder("im.dispatch.rejected")
+                .description("队列已满被丢弃的推送数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor executor : executors) {
+                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("推送线程池关闭超时，剩余 {} 条推送未完成", getQueueDepth());
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 分发消息
+     * 当前线程存在事务时，等事务提交后再入队；事务回滚则不推送
+     * @param originDeviceId 发起发送的设备，发送者的其他设备也会收到推送；为 null 时推送给发送者的所有设备
+     */
+    public void dispatch(Message message, String originDeviceId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(message, originDeviceId);
+                }
+            });
+        } else {
+            submit(message, originDeviceId);
+        }
+    }
+
+    /**
+     * 更新所有成员（包括发送者）收件箱中该会话的排序
+     * 在推送之后执行，不拖慢实时推送；队列满时与推送一起丢弃，收件箱在该会话下一条消息或过期重建时恢复
+     */
+    private void touchInbox(Message message) {
+        try {
+            long[] members = membershipCache.getMemberIds(message.getConversationId());
+            List<Long> memberIds = new ArrayList<>(members.length);
+            for (long userId : members) {
+                memberIds.add(userId);
+            }
+            inboxRepository.touch(memberIds, message.getConversationId(), message.getCreatedTime());
+        } catch (Exception e) {
+            // 收件箱过期后读取时会从数据库重建
+            log.error("更新收件箱失败: conversationId={}, seq={}",
+                    message.getConversationId(), message.getSeq(), e);
+        }
+    }
+
+    private void submit(Message message, String originDeviceId) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor(message.getConversationId()).execute(() -> {
+                dispatchLag.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                dispatchDuration.record(() -> pushToMembers(message, originDeviceId));
+                touchInbox(message);
+            });
+        } catch (RejectedExecutionException e) {
+            // 消息已落库，在线用户可以通过同步接口补齐
+            rejectedCount.increment();
+            log.warn("推送队列已满，丢弃推送: conversationId={}, seq={}",
+                    message.getConversationId(), message.getSeq());
+        }
+    }
+
+    private void pushToMembers(Message message, String originDeviceId) {
+        try {
+            long[] members = membershipCache.getMemberIds(message.getConversationId());
+
+            // 包括发送者：多端登录时其他设备也要收到，只跳过发起发送的那个连接（它已收到回执）
+            List<Long> receiverIds = new ArrayList<>(members.length);
+            for (long userId : members) {
+                receiverIds.add(userId);
+            }
+
+            WebSocketServer.pushToUsers(receiverIds, message, originDeviceId);
+        } catch (Exception e) {
+            log.error("消息推送异常: conversationId={}, seq={}",
+                    message.getConversationId(), message.getSeq(), e);
+        }
+    }
+
+    private ThreadPoolExecutor executor(Long conversationId) {
+        return executors.get((int) Math.floorMod(conversationId, (long) executors.size()));
+    }
+
+    /**
+     * 当前待推送队列长度（所有分片之和）
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor executor : executors) {
+            depth += executor.getQueue().size();
+        }
+        return depth;
+    }
+
+    private int getActiveCount() {
+        int active = 0;
+        for (ThreadPoolExecutor executor : executors) {
+            active += executor.getActiveCount();
+        }
+        return active;
+    }
+}
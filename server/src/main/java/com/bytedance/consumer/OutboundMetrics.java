@@ -0,0 +1,101 @@
+package com.bytedance.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * WebSocket 连接发送队列指标
+ * 单个连接的明细见 SessionOutbound#getStats，这里只做全实例汇总
+ */
+@Component
+public class OutboundMetrics {
+
+    // 入队时的队列深度分布
+    private final DistributionSummary queueDepth;
+    // 发送成功的帧数
+    private final Counter sentCount;
+    // 发送成功的消息推送数（合帧时一帧包含多条）
+    private final Counter sentMessageCount;
+    // 每个推送帧包含的消息数
+    private final DistributionSummary frameMessages;
+    // 超过高水位被丢弃的推送数（重连后补发）
+    private final Counter overflowCount;
+    // 因慢连接被断开的次数
+    private final Counter slowConsumerCount;
+    // 异步发送失败次数
+    private final Counter sendFailureCount;
+    // 协商出 permessage-deflate 的连接数
+    private final Counter deflateSessionCount;
+
+    @Autowired
+    public OutboundMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("im.ws.outbound.queued", WebSocketServer::getLocalOutboundDepth)
+                .description("当前实例所有连接发送队列的积压总数")
+                .register(meterRegistry);
+        Gauge.builder("im.ws.sessions", WebSocketServer::getLocalOnlineCount)
+                .description("当前实例的连接数")
+                .register(meterRegistry);
+        Gauge.builder("im.ws.users", WebSocketServer::getLocalUserCount)
+                .description("当前实例的在线用户数")
+                .register(meterRegistry);
+        this.queueDepth = DistributionSummary.builder("im.ws.outbound.depth")
+                .description("推送入队时连接发送队列的深度")
+                .register(meterRegistry);
+        this.sentCount = Counter.builder("im.ws.outbound.sent")
+                .description("发送成功的帧数")
+                .register(meterRegistry);
+        this.sentMessageCount = Counter.builder("im.ws.outbound.messages")
+                .description("发送成功的消息推送数")
+                .register(meterRegistry);
+        this.frameMessages = DistributionSummary.builder("im.ws.outbound.frame.messages")
+                .description("每个推送帧包含的消息数")
+                .register(meterRegistry);
+        this.overflowCount = Counter.builder("im.ws.outbound.overflow")
+                .description("超过高水位被丢弃的推送数")
+                .register(meterRegistry);
+        this.slowConsumerCount = Counter.builder("im.ws.outbound.slow_consumer")
+                .description("因慢连接被断开的次数")
+                .register(meterRegistry);
+        this.sendFailureCount = Counter.builder("im.ws.outbound.failure")
+                .description("异步发送失败次数")
+                .register(meterRegistry);
+        this.deflateSessionCount = Counter.builder("im.ws.deflate.sessions")
+                .description("协商出 permessage-deflate 的连接数")
+                .register(meterRegistry);
+    }
+
+    void recordEnqueue(int depth) {
+        queueDepth.record(depth);
+    }
+
+    /**
+     * @param messages 该帧包含的消息推送数，控制帧为 0
+     */
+    void recordSent(int messages) {
+        sentCount.increment();
+        if (messages > 0) {
+            sentMessageCount.increment(messages);
+            frameMessages.record(messages);
+        }
+    }
+
+    void recordDeflateSession() {
+        deflateSessionCount.increment();
+    }
+
+    void recordOverflow() {
+        overflowCount.increment();
+    }
+
+    void recordSlowConsumer() {
+        slowConsumerCount.increment();
+    }
+
+    void recordSendFailure() {
+        sendFailureCount.increment();
+    }
+}
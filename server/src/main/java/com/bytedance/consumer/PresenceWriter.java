@@ -0,0 +1,111 @@
+package com.bytedance.consumer;
+
+import com.bytedance.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在线状态写入：把本实例上用户的设备数写到 ws:presence:{userId} 中本实例的字段
+ * 连接/断开时立即写入；心跳先在本地记录，由定时任务按批 Pipeline 续期。
+ *
+ * 设备数在写入前读取，写入期间可能有并发的连接/断开（比如断开的 HDEL 先于批量续期的 HSET 到达 Redis），
+ * 所以每次写入后都重新读取本地设备数，与写入值不同时以最新值重写，保证最后落到 Redis 的是当前值
+ */
+@Slf4j
+final class PresenceWriter {
+
+    private final SessionRegistry sessions;
+    private final RedisUtils redisUtils;
+    private final String instanceId;
+    private final long ttlSeconds;
+    private final int batchSize;
+
+    // 上个周期内有心跳的用户
+    private final Set<Long> heartbeats = ConcurrentHashMap.newKeySet();
+
+    PresenceWriter(SessionRegistry sessions, RedisUtils redisUtils, String instanceId, long ttlSeconds, int batchSize) {
+        this.sessions = sessions;
+        this.redisUtils = redisUtils;
+        this.instanceId = instanceId;
+        this.ttlSeconds = ttlSeconds;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 记录心跳，下次 flush 时续期
+     */
+    void heartbeat(Long userId) {
+        heartbeats.add(userId);
+    }
+
+    /**
+     * 立即写入本实例上该用户的设备数并续期，设备数为 0 时移除本实例
+     * @return 本实例上的设备数
+     */
+    int refresh(Long userId) {
+        String key = WebSocketServer.REDIS_KEY_ONLINE + userId;
+        int devices = sessions.deviceCount(userId);
+        while (true) {
+            if (devices == 0) {
+                redisUtils.hDelete(key, instanceId);
+            } else {
+                redisUtils.hSet(key, instanceId, String.valueOf(devices));
+                redisUtils.expire(key, ttlSeconds);
+            }
+            int current = sessions.deviceCount(userId);
+            if (current == devices) {
+                return devices;
+            }
+            devices = current;
+        }
+    }
+
+    /**
+     * 把上个周期内有心跳的用户批量写回 Redis（HSET 本实例设备数 + EXPIRE，按批 Pipeline）
+     * 在线状态的过期时间远大于刷新间隔，续期最多延后一个刷新间隔
+     */
+    void flush() {
+        if (heartbeats.isEmpty()) {
+            return;
+        }
+        Map<String, String> batch = new HashMap<>();
+        Map<Long, Integer> written = new LinkedHashMap<>();
+        Iterator<Long> iterator = heartbeats.iterator();
+        while (iterator.hasNext()) {
+            Long userId = iterator.next();
+            iterator.remove();
+            // 已断开的用户由 onClose 清理
+            int devices = sessions.deviceCount(userId);
+            if (devices > 0) {
+                batch.put(WebSocketServer.REDIS_KEY_ONLINE + userId, String.valueOf(devices));
+                written.put(userId, devices);
+            }
+            if (batch.isEmpty() || (batch.size() < batchSize && iterator.hasNext())) {
+                continue;
+            }
+            try {
+                redisUtils.multiHSetExpire(batch, instanceId, ttlSeconds);
+            } catch (Exception e) {
+                // 下个周期重试
+                heartbeats.addAll(written.keySet());
+                log.warn("心跳续期失败: {} 个用户", written.size(), e);
+                return;
+            }
+            // Pipeline 期间断开（或新连接）的用户，写入的设备数已过时，按当前值重写
+            for (Map.Entry<Long, Integer> entry : written.entrySet()) {
+                if (sessions.deviceCount(entry.getKey()) != entry.getValue()) {
+                    refresh(entry.getKey());
+                }
+            }
+            // 每批使用新的 Map，已交给 Redis 的批次不再修改
+            batch = new HashMap<>();
+            written = new LinkedHashMap<>();
+        }
+    }
+}
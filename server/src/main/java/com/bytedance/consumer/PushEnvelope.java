@@ -0,0 +1,28 @@
+package com.bytedance.consumer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 跨实例推送信封
+ * 一条消息发往同一个实例的所有接收者合并成一个信封
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PushEnvelope {
+    // 发送方实例ID
+    private String from;
+
+    // 目标实例上的接收者
+    private List<Long> userIds;
+
+    // 消息 JSON，目标实例按各连接协商的协议编码
+    private String payload;
+
+    // 发起发送的设备，目标实例投递给发送者时跳过该设备的连接；为 null 时不跳过
+    private String excludeDeviceId;
+}
@@ -0,0 +1,44 @@
+package com.bytedance.consumer;
+
+import com.bytedance.entity.Message;
+import com.bytedance.service.BinaryMessageCodec;
+import com.bytedance.service.MessageCodec;
+
+/**
+ * 一条待推送的消息
+ * 同一条消息推给多个连接时，每种协议只编码一次
+ */
+public final class PushFrame {
+
+    private final Message message;
+
+    // 各协议的编码结果，首次使用时生成（并发时可能重复编码，结果相同）
+    private volatile String json;
+    private volatile byte[] binary;
+
+    public PushFrame(Message message) {
+        this.message = message;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public String json(MessageCodec codec) {
+        String encoded = json;
+        if (encoded == null) {
+            encoded = codec.encodeMessage(message);
+            json = encoded;
+        }
+        return encoded;
+    }
+
+    public byte[] binary(BinaryMessageCodec codec) {
+        byte[] encoded = binary;
+        if (encoded == null) {
+            encoded = codec.encodePush(message);
+            binary = encoded;
+        }
+        return encoded;
+    }
+}
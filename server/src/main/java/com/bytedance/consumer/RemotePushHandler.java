@@ -0,0 +1,17 @@
+package com.bytedance.consumer;
+
+import java.util.List;
+
+/**
+ * 处理其他实例转发过来的推送
+ */
+public interface RemotePushHandler {
+
+    /**
+     * 投递给本实例上的连接
+     * @param userIds 接收者
+     * @param payload 消息 JSON（MessageCodec.encode），由本实例按各连接协议重新编码
+     * @param excludeDeviceId 发起发送的设备，投递给发送者时跳过；为 null 时不跳过
+     */
+    void onRemotePush(List<Long> userIds, String payload, String excludeDeviceId);
+}
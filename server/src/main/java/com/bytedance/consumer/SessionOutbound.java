@@ -0,0 +1,497 @@
+package com.bytedance.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 单个 WebSocket 连接的发送队列
+ * 推送只入队不阻塞调用线程，由 getAsyncRemote() 逐条异步发送，同一时刻只有一帧在途
+ * 帧为 String 时按文本帧发送，为 byte[] 时按二进制帧发送
+ *
+ * 合帧（可选）：发送期间积压的消息推送，以及首条推送之后 windowMs 内到达的推送，合并成一帧发送，
+ * 控制帧（如 pong）不参与合并，帧之间保持入队顺序
+ *
+ * 背压策略：
+ * 1. 队列达到高水位后，新的推送交给 overflowHandler（消息已落库，重连后按序列号补发）
+ * 2. 队列持续处于高水位超过 slowConsumerTimeoutMs，判定为慢连接并断开
+ *
+ * 推送可附带 onSent 回调，只在该帧写出成功后执行（用于推进送达游标）；
+ * 连接上丢弃过推送后不再执行任何回调，避免游标越过被丢弃的消息
+ */
+@Slf4j
+public class SessionOutbound {
+
+    private final Long userId;
+    // 设备标识，同一用户的多个设备各自一个连接
+    private final String deviceId;
+    private final Session session;
+    private final WireProtocol protocol;
+    private final int highWaterMark;
+    private final long slowConsumerTimeoutMs;
+    private final BiConsumer<Long, Object> overflowHandler;
+    private final OutboundMetrics metrics;
+    // 合帧策略，null 表示逐条发送
+    private final Coalescing coalescing;
+
+    // 以下字段由 this 保护
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closed;
+    // 队列首次达到高水位的时间，0 表示当前未达到
+    private long highWaterSince;
+    // 合帧等待窗口是否打开，以及窗口编号（过期的定时任务据此忽略）
+    private boolean windowOpen;
+    private long windowGeneration;
+    // 在途帧包含的消息数，以及写出成功后要执行的回调
+    private int inflightMessages;
+    private List<Runnable> inflightCallbacks;
+    // 是否因高水位丢弃过推送
+    private boolean pushDropped;
+    // 是否开始记录送达（重连补发全部写出后开启）
+    private volatile boolean deliveryTracking;
+
+    // 单连接统计
+    private long enqueuedCount;
+    private long sentCount;
+    private long sentMessageCount;
+    private long overflowCount;
+    private int maxDepth;
+
+    public SessionOutbound(Long userId, Session session, int highWaterMark, long slowConsumerTimeoutMs,
+                           BiConsumer<Long, Object> overflowHandler, OutboundMetrics metrics) {
+        this(userId, session.getId(), session, WireProtocol.JSON, highWaterMark, slowConsumerTimeoutMs,
+                overflowHandler, metrics, null);
+    }
+
+    public SessionOutbound(Long userId, String deviceId, Session session, WireProtocol protocol, int highWaterMark,
+                           long slowConsumerTimeoutMs, BiConsumer<Long, Object> overflowHandler,
+                           OutboundMetrics metrics, Coalescing coalescing) {
+        this.userId = userId;
+        this.deviceId = deviceId;
+        this.session = session;
+        this.protocol = protocol;
+        this.highWaterMark = highWaterMark;
+        this.slowConsumerTimeoutMs = slowConsumerTimeoutMs;
+        this.overflowHandler = overflowHandler;
+        this.metrics = metrics;
+        this.coalescing = coalescing;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * 握手时协商的下发协议
+     */
+    public WireProtocol getProtocol() {
+        return protocol;
+    }
+
+    public boolean isCoalescing() {
+        return coalescing != null;
+    }
+
+    /**
+     * 补发已全部写出，之后的推送可以推进送达游标
+     */
+    public void startDeliveryTracking() {
+        deliveryTracking = true;
+    }
+
+    public boolean isDeliveryTracking() {
+        return deliveryTracking;
+    }
+
+    /**
+     * 发送一个文本控制帧（不参与合帧）
+     * @return true 表示已入队或已交给 overflowHandler；false 表示连接已关闭，调用方需自行处理
+     */
+    public boolean offer(String payload) {
+        return enqueue(payload);
+    }
+
+    /**
+     * 发送一个二进制控制帧（不参与合帧）
+     * @return 同 {@link #offer(String)}
+     */
+    public boolean offer(byte[] payload) {
+        return enqueue(payload);
+    }
+
+    /**
+     * 推送一条消息（已按连接协议编码，String 或 byte[]），开启合帧时可能与相邻推送合并成一帧
+     * @return 同 {@link #offer(String)}
+     */
+    public boolean offerPush(Object payload) {
+        return offerPush(payload, null);
+    }
+
+    /**
+     * 推送一条消息，该帧写出成功后执行 onSent；写出失败、连接关闭或丢弃时不执行
+     * @return 同 {@link #offer(String)}
+     */
+    public boolean offerPush(Object payload, Runnable onSent) {
+        return enqueue(new PushItem(payload, onSent));
+    }
+
+    private boolean enqueue(Object item) {
+        Object first = null;
+        boolean overflow = false;
+        boolean slowConsumer = false;
+        long openedWindow = -1;
+
+        synchronized (this) {
+            if (closed || !session.isOpen()) {
+                return false;
+            }
+
+            if (queue.size() >= highWaterMark) {
+                overflow = true;
+                overflowCount++;
+                if (item instanceof PushItem) {
+                    pushDropped = true;
+                }
+                long now = System.currentTimeMillis();
+                if (highWaterSince == 0) {
+                    highWaterSince = now;
+                } else if (now - highWaterSince >= slowConsumerTimeoutMs) {
+                    slowConsumer = true;
+                    closed = true;
+                }
+            } else {
+                queue.add(item);
+                enqueuedCount++;
+                maxDepth = Math.max(maxDepth, queue.size());
+                metrics.recordEnqueue(queue.size());
+                if (!sending) {
+                    sending = true;
+                    if (item instanceof PushItem && coalescing != null && coalescing.windowMs > 0) {
+                        // 空闲时的第一条推送先等一个窗口，凑齐后续推送再发
+                        windowOpen = true;
+                        openedWindow = ++windowGeneration;
+                    } else {
+                        first = nextFrame();
+                    }
+                } else if (windowOpen && queue.size() >= coalescing.maxMessages) {
+                    // 已凑满一帧，不再等待窗口结束
+                    windowOpen = false;
+                    first = nextFrame();
+                }
+            }
+        }
+
+        if (overflow) {
+            metrics.recordOverflow();
+            overflowHandler.accept(userId, item instanceof PushItem ? ((PushItem) item).payload : item);
+            if (slowConsumer) {
+                disconnectSlowConsumer();
+            }
+            return true;
+        }
+
+        if (openedWindow >= 0) {
+            long generation = openedWindow;
+            coalescing.scheduler.schedule(() -> closeWindow(generation), coalescing.windowMs, TimeUnit.MILLISECONDS);
+        }
+
+        if (first != null) {
+            drain(first);
+        }
+        return true;
+    }
+
+    /**
+     * 连接关闭时调用，丢弃尚未发送的帧（未确认的消息会在重连时补发）
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queue.clear();
+            notifyAll();
+        }
+    }
+
+    /**
+     * 主动断开连接（同一设备重连、设备数超限被挤下线）
+     */
+    public void close(CloseReason reason) {
+        close();
+        closeQuietly(reason);
+    }
+
+    /**
+     * 等待队列积压降到 depth 以下（用于补发时控制节奏，避免一次性灌满队列）
+     * @return false 表示连接已关闭或等待超时
+     */
+    public synchronized boolean awaitDepthBelow(int depth, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!closed && queue.size() >= depth) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return !closed;
+    }
+
+    /**
+     * 单连接统计（用于排查具体连接的积压情况）
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userId", userId);
+        stats.put("deviceId", deviceId);
+        stats.put("sessionId", session.getId());
+        stats.put("depth", queue.size());
+        stats.put("maxDepth", maxDepth);
+        stats.put("enqueued", enqueuedCount);
+        stats.put("sent", sentCount);
+        stats.put("sentMessages", sentMessageCount);
+        stats.put("overflow", overflowCount);
+        return stats;
+    }
+
+    public synchronized int getDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 合帧窗口结束，发送窗口内积攒的推送
+     */
+    private void closeWindow(long generation) {
+        Object first;
+        synchronized (this) {
+            if (!windowOpen || generation != windowGeneration) {
+                return;
+            }
+            windowOpen = false;
+            first = closed ? null : nextFrame();
+            if (first == null) {
+                sending = false;
+            }
+            notifyAll();
+        }
+        if (first != null) {
+            drain(first);
+        }
+    }
+
+    /**
+     * 取出下一帧（调用方持有 this 锁）
+     * 队首是消息推送且开启了合帧时，连同其后连续的推送合并为一帧
+     */
+    private Object nextFrame() {
+        Object head = queue.poll();
+        inflightCallbacks = null;
+        if (!(head instanceof PushItem)) {
+            inflightMessages = 0;
+            return head;
+        }
+        PushItem first = (PushItem) head;
+        addInflightCallback(first);
+        if (coalescing == null || !(queue.peek() instanceof PushItem)) {
+            inflightMessages = 1;
+            return first.payload;
+        }
+        List<Object> batch = new ArrayList<>();
+        batch.add(first.payload);
+        while (batch.size() < coalescing.maxMessages && queue.peek() instanceof PushItem) {
+            PushItem item = (PushItem) queue.poll();
+            addInflightCallback(item);
+            batch.add(item.payload);
+        }
+        inflightMessages = batch.size();
+        return coalescing.merger.apply(batch);
+    }
+
+    private void addInflightCallback(PushItem item) {
+        if (item.onSent == null) {
+            return;
+        }
+        if (inflightCallbacks == null) {
+            inflightCallbacks = new ArrayList<>();
+        }
+        inflightCallbacks.add(item.onSent);
+    }
+
+    /**
+     * 循环发送队列中的帧
+     * 发送同步完成时在本循环内继续发送下一帧，异步完成时由回调线程接力，避免递归过深
+     */
+    private void drain(Object payload) {
+        while (payload != null) {
+            Completion completion = new Completion();
+            try {
+                if (payload instanceof byte[]) {
+                    session.getAsyncRemote().sendBinary(ByteBuffer.wrap((byte[]) payload), completion);
+                } else {
+                    session.getAsyncRemote().sendText((String) payload, completion);
+                }
+            } catch (RuntimeException e) {
+                completion.onResult(new SendResult(e));
+            }
+            payload = completion.continueInline();
+        }
+    }
+
+    /**
+     * 一帧发送完成后的处理
+     * @return 下一帧，没有时返回 null 并结束发送状态
+     */
+    private Object afterSent(SendResult result) {
+        if (!result.isOK()) {
+            metrics.recordSendFailure();
+            log.warn("消息推送失败: userId={}, sessionId={}", userId, session.getId(), result.getException());
+            synchronized (this) {
+                closed = true;
+                sending = false;
+                queue.clear();
+                notifyAll();
+            }
+            closeQuietly(new CloseReason(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "send failed"));
+            return null;
+        }
+
+        int messages;
+        List<Runnable> callbacks;
+        Object next;
+        synchronized (this) {
+            messages = inflightMessages;
+            callbacks = pushDropped ? null : inflightCallbacks;
+            sentCount++;
+            sentMessageCount += messages;
+            if (queue.size() < highWaterMark) {
+                highWaterSince = 0;
+            }
+            next = closed ? null : nextFrame();
+            if (next == null) {
+                sending = false;
+            }
+            notifyAll();
+        }
+        metrics.recordSent(messages);
+        if (callbacks != null) {
+            for (Runnable callback : callbacks) {
+                try {
+                    callback.run();
+                } catch (RuntimeException e) {
+                    log.warn("推送写出回调失败: userId={}", userId, e);
+                }
+            }
+        }
+        return next;
+    }
+
+    private void disconnectSlowConsumer() {
+        metrics.recordSlowConsumer();
+        log.warn("慢连接，断开: {}", getStats());
+        synchronized (this) {
+            queue.clear();
+            notifyAll();
+        }
+        closeQuietly(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "slow consumer"));
+    }
+
+    private void closeQuietly(CloseReason reason) {
+        // 关闭握手可能阻塞，放到其他线程执行，不占用推送线程
+        CompletableFuture.runAsync(() -> {
+            try {
+                session.close(reason);
+            } catch (Exception e) {
+                log.debug("关闭连接失败: userId={}", userId, e);
+            }
+        });
+    }
+
+    /**
+     * 单帧发送回调
+     */
+    private class Completion implements SendHandler {
+        private SendResult result;
+        // drain 循环已经返回，由回调线程继续发送
+        private boolean detached;
+
+        @Override
+        public void onResult(SendResult result) {
+            boolean continueHere;
+            synchronized (this) {
+                this.result = result;
+                continueHere = detached;
+            }
+            if (continueHere) {
+                drain(afterSent(result));
+            }
+        }
+
+        /**
+         * 发送已同步完成则返回下一帧，否则交给回调线程
+         */
+        Object continueInline() {
+            SendResult completed;
+            synchronized (this) {
+                if (result == null) {
+                    detached = true;
+                    return null;
+                }
+                completed = result;
+            }
+            return afterSent(completed);
+        }
+    }
+
+    /**
+     * 队列中的消息推送（区别于控制帧，可参与合帧）
+     */
+    private static final class PushItem {
+        private final Object payload;
+        private final Runnable onSent;
+
+        PushItem(Object payload, Runnable onSent) {
+            this.payload = payload;
+            this.onSent = onSent;
+        }
+    }
+
+    /**
+     * 合帧策略
+     */
+    public static final class Coalescing {
+        // 单帧最多合并的消息数
+        private final int maxMessages;
+        // 空闲时首条推送最多等待的时间（毫秒），即合帧带来的额外延迟上限
+        private final long windowMs;
+        // 窗口定时器（所有连接共用）
+        private final ScheduledExecutorService scheduler;
+        // 把多条已编码的推送合并为一帧
+        private final Function<List<Object>, Object> merger;
+
+        public Coalescing(int maxMessages, long windowMs, ScheduledExecutorService scheduler,
+                          Function<List<Object>, Object> merger) {
+            this.maxMessages = maxMessages;
+            this.windowMs = windowMs;
+            this.scheduler = scheduler;
+            this.merger = merger;
+        }
+    }
+}
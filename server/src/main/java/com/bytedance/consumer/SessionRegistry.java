@@ -0,0 +1,279 @@
+package com.bytedance.consumer;
+
+import javax.websocket.Session;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 本地连接注册表：userId -> 该用户在本实例上的全部设备连接
+ *
+ * 按 userId 分段加锁，每段是以 long 为键的开放寻址表（线性探测，删除时回移，不留墓碑），
+ * 键不装箱，也不为每个条目分配节点对象；10 万连接时额外开销约为每个用户一个小数组。
+ * 每个用户的设备连接存为不可变数组（按连接先后排列），修改时整体替换，读取方拿到的数组不会再变化
+ */
+final class SessionRegistry {
+
+    private static final int SEGMENTS = 64;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final SessionOutbound[] NONE = new SessionOutbound[0];
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    SessionRegistry() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * 登记连接
+     * 同一设备重连时替换旧连接；设备数超过 maxDevices（大于 0 时生效）时挤掉最早的连接
+     * @return 被替换或挤掉的连接，调用方负责关闭；没有时返回 null
+     */
+    SessionOutbound put(long userId, SessionOutbound outbound, int maxDevices) {
+        long hash = mix(userId);
+        return segmentFor(hash).put(userId, hash, outbound, maxDevices);
+    }
+
+    /**
+     * 移除连接，连接已被替换时不做处理
+     * @return 是否移除
+     */
+    boolean remove(long userId, SessionOutbound outbound) {
+        long hash = mix(userId);
+        return segmentFor(hash).remove(userId, hash, outbound);
+    }
+
+    /**
+     * 用户在本实例上的全部连接（不可修改），不在线时返回空数组
+     */
+    SessionOutbound[] get(long userId) {
+        long hash = mix(userId);
+        return segmentFor(hash).get(userId, hash);
+    }
+
+    /**
+     * 按 WebSocket 会话查找连接
+     */
+    SessionOutbound find(long userId, Session session) {
+        for (SessionOutbound outbound : get(userId)) {
+            if (outbound.getSession() == session) {
+                return outbound;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 用户在本实例上的设备数
+     */
+    int deviceCount(long userId) {
+        return get(userId).length;
+    }
+
+    /**
+     * 本实例的在线用户数
+     */
+    int userCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.users();
+        }
+        return count;
+    }
+
+    /**
+     * 本实例的连接数
+     */
+    int sessionCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.sessions();
+        }
+        return count;
+    }
+
+    /**
+     * 遍历本实例的全部连接（逐段快照，遍历期间的增删可能不可见）
+     */
+    void forEach(Consumer<SessionOutbound> action) {
+        for (Segment segment : segments) {
+            for (SessionOutbound[] devices : segment.snapshot()) {
+                for (SessionOutbound outbound : devices) {
+                    action.accept(outbound);
+                }
+            }
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) hash & (SEGMENTS - 1)];
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Segment {
+
+        // values[i] == null 表示空槽
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private SessionOutbound[][] values = new SessionOutbound[INITIAL_CAPACITY][];
+        private int users;
+        private int sessions;
+
+        synchronized SessionOutbound[] get(long key, long hash) {
+            int i = indexOf(key, hash);
+            return i < 0 ? NONE : values[i];
+        }
+
+        synchronized SessionOutbound put(long key, long hash, SessionOutbound outbound, int maxDevices) {
+            int i = indexOf(key, hash);
+            if (i < 0) {
+                insert(key, hash, new SessionOutbound[]{outbound});
+                users++;
+                sessions++;
+                return null;
+            }
+            SessionOutbound[] devices = values[i];
+            for (int k = 0; k < devices.length; k++) {
+                if (Objects.equals(devices[k].getDeviceId(), outbound.getDeviceId())) {
+                    SessionOutbound[] replaced = devices.clone();
+                    replaced[k] = outbound;
+                    values[i] = replaced;
+                    return devices[k];
+                }
+            }
+            if (maxDevices > 0 && devices.length >= maxDevices) {
+                SessionOutbound[] shifted = Arrays.copyOfRange(devices, 1, devices.length + 1);
+                shifted[shifted.length - 1] = outbound;
+                values[i] = shifted;
+                return devices[0];
+            }
+            SessionOutbound[] appended = Arrays.copyOf(devices, devices.length + 1);
+            appended[devices.length] = outbound;
+            values[i] = appended;
+            sessions++;
+            return null;
+        }
+
+        synchronized boolean remove(long key, long hash, SessionOutbound outbound) {
+            int i = indexOf(key, hash);
+            if (i < 0) {
+                return false;
+            }
+            SessionOutbound[] devices = values[i];
+            int k = 0;
+            while (k < devices.length && devices[k] != outbound) {
+                k++;
+            }
+            if (k == devices.length) {
+                return false;
+            }
+            sessions--;
+            if (devices.length == 1) {
+                removeAt(i);
+                users--;
+                return true;
+            }
+            SessionOutbound[] remaining = new SessionOutbound[devices.length - 1];
+            System.arraycopy(devices, 0, remaining, 0, k);
+            System.arraycopy(devices, k + 1, remaining, k, devices.length - k - 1);
+            values[i] = remaining;
+            return true;
+        }
+
+        synchronized int users() {
+            return users;
+        }
+
+        synchronized int sessions() {
+            return sessions;
+        }
+
+        synchronized SessionOutbound[][] snapshot() {
+            SessionOutbound[][] result = new SessionOutbound[users][];
+            int n = 0;
+            for (SessionOutbound[] devices : values) {
+                if (devices != null) {
+                    result[n++] = devices;
+                }
+            }
+            return result;
+        }
+
+        private int indexOf(long key, long hash) {
+            int mask = keys.length - 1;
+            for (int i = slot(hash, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long key, long hash, SessionOutbound[] devices) {
+            // 负载因子不超过 0.5，探测链保持很短
+            if ((users + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = slot(hash, mask);
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = devices;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            SessionOutbound[][] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new SessionOutbound[oldKeys.length * 2][];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] == null) {
+                    continue;
+                }
+                int i = slot(mix(oldKeys[j]), mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        /**
+         * 删除槽位 i，并把其后同一探测链上的条目回移，保证查找不被空槽截断
+         */
+        private void removeAt(int i) {
+            int mask = keys.length - 1;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (values[j] == null) {
+                    break;
+                }
+                int home = slot(mix(keys[j]), mask);
+                // home 不在 (i, j] 区间内（环形）时，条目可以回移到 i
+                boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if (movable) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            values[i] = null;
+        }
+
+        private static int slot(long hash, int mask) {
+            // 低位已用于选段，槽位取高位
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+}
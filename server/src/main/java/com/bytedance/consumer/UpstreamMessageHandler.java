@@ -0,0 +1,273 @@
+package com.bytedance.consumer;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.bytedance.config.WsSessionConfig;
+import com.bytedance.dto.WsSendFrame;
+import com.bytedance.entity.Message;
+import com.bytedance.service.IMessageService;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.utils.RedisUtils;
+import com.bytedance.vo.WsAckFrame;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket 上行消息处理
+ * 客户端在已建立的连接上发送 send 帧，走与 HTTP 发送接口相同的发送流程，完成后回 ack 帧
+ *
+ * 解析和发送都不在容器 I/O 线程上执行：按 userId 固定到一组单线程执行器，同一用户的发送保持先后顺序；
+ * 带 clientMsgId 的发送先在 Redis 原子占位（SET NX），成功后用回执覆盖并保留一段时间，
+ * 客户端重连后（可能连到其他实例）重发同一条消息时直接回原来的回执，不会重复发送
+ */
+@Slf4j
+@Component
+public class UpstreamMessageHandler {
+
+    public static final String TYPE_SEND = "send";
+
+    private static final String REDIS_KEY_CLIENT_MSG = "ws:client-msg:"; // ws:client-msg:{userId}:{clientMsgId} -> 回执
+
+    // 发送中的占位值；进程在发送中途退出时占位很快过期，客户端可以重发
+    private static final String CLAIM_PENDING = "pending";
+    private static final long CLAIM_PENDING_TTL_SECONDS = 30;
+
+    // 占位成功返回 nil，已存在时返回已有的值（占位或回执）
+    private static final DefaultRedisScript<String> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'EX', ARGV[2]) then return false end " +
+            "return redis.call('get', KEYS[1])",
+            String.class);
+
+    private final IMessageService messageService;
+    private final MessageCodec messageCodec;
+    private final RedisUtils redisUtils;
+    private final WsSessionConfig config;
+
+    private List<ThreadPoolExecutor> executors;
+
+    private final Counter sentCount;
+    private final Counter failedCount;
+    private final Counter duplicateCount;
+    private final Counter rejectedCount;
+    private final Timer sendTimer;
+
+    @Autowired
+    public UpstreamMessageHandler(IMessageService messageService,
+                                  MessageCodec messageCodec,
+                                  RedisUtils redisUtils,
+                                  WsSessionConfig config,
+                                  MeterRegistry meterRegistry) {
+        this.messageService = messageService;
+        this.messageCodec = messageCodec;
+        this.redisUtils = redisUtils;
+        this.config = config;
+        this.sentCount = Counter.builder("im.ws.upstream.sent")
+                .description("通过 WebSocket 发送成功的消息数")
+                .register(meterRegistry);
+        this.failedCount = Counter.builder("im.ws.upstream.failed")
+                .description("通过 WebSocket 发送失败的消息数")
+                .register(meterRegistry);
+        this.duplicateCount = Counter.builder("im.ws.upstream.duplicate")
+                .description("按 clientMsgId 去重的重发消息数")
+                .register(meterRegistry);
+        this.rejectedCount = Counter.builder("im.ws.upstream.rejected")
+                .description("处理队列已满被拒绝的上行帧数")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("im.ws.upstream.latency")
+                .description("上行发送从收到帧到回执入队的耗时")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, config.getUpstreamThreads());
+        executors = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            executors.add(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(config.getUpstreamQueueCapacity()),
+                    ThreadFactoryBuilder.create().setNamePrefix("ws-upstream-" + i + "-").build(),
+                    new ThreadPoolExecutor.AbortPolicy()));
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        for (ThreadPoolExecutor executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 在容器 I/O 线程上调用，只做入队
+     * @param authenticated 握手时是否通过了 Token 校验，未通过的连接不能发送消息
+     */
+    public void submit(Long userId, SessionOutbound outbound, String frame, boolean authenticated) {
+        long start = System.nanoTime();
+        ThreadPoolExecutor executor = executors.get(Math.floorMod(Long.hashCode(userId), executors.size()));
+        try {
+            executor.execute(() -> {
+                handle(userId, outbound, frame, authenticated);
+                sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            log.warn("上行处理队列已满: userId={}", userId);
+            // 只在拒绝时解析，带上 clientMsgId 让客户端知道是哪条失败
+            WsSendFrame request = decode(frame);
+            outbound.offer(messageCodec.encode(WsAckFrame.builder()
+                    .type(WsAckFrame.TYPE)
+                    .clientMsgId(request == null ? null : request.getClientMsgId())
+                    .conversationId(request == null ? null : request.getConversationId())
+                    .error("服务繁忙，请稍后重试")
+                    .build()));
+        }
+    }
+
+    private void handle(Long userId, SessionOutbound outbound, String frame, boolean authenticated) {
+        WsSendFrame request = decode(frame);
+        if (request == null) {
+            log.warn("无法解析的上行帧: userId={}", userId);
+            return;
+        }
+        if (!TYPE_SEND.equals(request.getType())) {
+            log.info("收到业务消息: {}", frame);
+            return;
+        }
+
+        String clientMsgId = request.getClientMsgId();
+        if (!authenticated) {
+            // 关闭登录时路径中的 userId 可以随意填写，不能据此以该用户身份发送
+            failedCount.increment();
+            outbound.offer(messageCodec.encode(WsAckFrame.builder()
+                    .type(WsAckFrame.TYPE)
+                    .clientMsgId(clientMsgId)
+                    .conversationId(request.getConversationId())
+                    .error("连接未认证，请携带 Token 重新连接后发送")
+                    .build()));
+            return;
+        }
+        String dedupKey = StringUtils.hasLength(clientMsgId) ? REDIS_KEY_CLIENT_MSG + userId + ":" + clientMsgId : null;
+        if (dedupKey != null) {
+            String previous = claim(dedupKey);
+            if (previous != null) {
+                duplicateCount.increment();
+                if (CLAIM_PENDING.equals(previous)) {
+                    // 同一条消息正在其他连接（或其他实例）上发送，客户端稍后重发取回执
+                    outbound.offer(messageCodec.encode(WsAckFrame.builder()
+                            .type(WsAckFrame.TYPE)
+                            .clientMsgId(clientMsgId)
+                            .conversationId(request.getConversationId())
+                            .error("消息正在发送，请稍后重试")
+                            .build()));
+                } else {
+                    outbound.offer(previous);
+                }
+                return;
+            }
+        }
+
+        String ack;
+        try {
+            Message message = messageService.sendMessage(request.getConversationId(), userId,
+                    request.getMsgType() == null ? 1 : request.getMsgType(), contentJson(request),
+                    outbound.getDeviceId());
+            ack = messageCodec.encode(WsAckFrame.builder()
+                    .type(WsAckFrame.TYPE)
+                    .clientMsgId(clientMsgId)
+                    .conversationId(message.getConversationId())
+                    .messageId(message.getMessageId())
+                    .seq(message.getSeq())
+                    .createdTime(message.getCreatedTime())
+                    .build());
+            sentCount.increment();
+            if (dedupKey != null) {
+                rememberAck(dedupKey, ack);
+            }
+        } catch (RuntimeException e) {
+            failedCount.increment();
+            log.warn("WebSocket 发送失败: userId={}, clientMsgId={}, 原因: {}", userId, clientMsgId, e.getMessage());
+            if (dedupKey != null) {
+                // 没有发出去，释放占位，允许客户端重发
+                releaseClaim(dedupKey);
+            }
+            ack = messageCodec.encode(WsAckFrame.builder()
+                    .type(WsAckFrame.TYPE)
+                    .clientMsgId(clientMsgId)
+                    .conversationId(request.getConversationId())
+                    .error(e.getMessage())
+                    .build());
+        }
+        if (!outbound.offer(ack)) {
+            // 连接已断开，客户端重连后重发同一 clientMsgId 取回执
+            log.debug("回执未送达，连接已关闭: userId={}, clientMsgId={}", userId, clientMsgId);
+        }
+    }
+
+    /**
+     * 解析上行帧，无法解析或为 JSON null 时返回 null
+     */
+    private WsSendFrame decode(String frame) {
+        try {
+            return messageCodec.decode(frame, WsSendFrame.class);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 原子占位，返回 null 表示占位成功，否则返回已有的占位或回执
+     * 去重记录读写失败不影响发送，只是失去重发去重
+     */
+    private String claim(String dedupKey) {
+        try {
+            return redisUtils.execute(CLAIM_SCRIPT, dedupKey, CLAIM_PENDING, String.valueOf(CLAIM_PENDING_TTL_SECONDS));
+        } catch (RuntimeException e) {
+            log.warn("写入 clientMsgId 去重占位失败: {}", dedupKey, e);
+            return null;
+        }
+    }
+
+    private void releaseClaim(String dedupKey) {
+        try {
+            redisUtils.delete(dedupKey);
+        } catch (RuntimeException e) {
+            log.warn("释放 clientMsgId 去重占位失败: {}", dedupKey, e);
+        }
+    }
+
+    private void rememberAck(String dedupKey, String ack) {
+        try {
+            redisUtils.set(dedupKey, ack, config.getClientMsgIdTtlSeconds());
+        } catch (RuntimeException e) {
+            log.warn("写入 clientMsgId 去重记录失败: {}", dedupKey, e);
+        }
+    }
+
+    /**
+     * 与 HTTP 发送接口一致：优先使用 text，其次 content
+     */
+    private String contentJson(WsSendFrame request) {
+        if (StringUtils.hasLength(request.getText())) {
+            return messageCodec.encode(Collections.singletonMap("text", request.getText()));
+        }
+        if (StringUtils.hasLength(request.getContent())) {
+            return request.getContent();
+        }
+        throw new RuntimeException("消息内容不能为空，请提供 text 或 content 字段");
+    }
+}
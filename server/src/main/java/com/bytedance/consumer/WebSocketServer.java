@@ -1,37 +1,101 @@
 package com.bytedance.consumer;
 
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.bytedance.config.AuthConfig;
 import com.bytedance.config.SpringWebSocketConfigurator;
+import com.bytedance.config.WsSessionConfig;
+import com.bytedance.entity.ConversationMember;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IConversationMemberRepository;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.BinaryMessageCodec;
+import com.bytedance.service.MessageCodec;
 import com.bytedance.utils.RedisUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.websocket.*;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
-import java.io.IOException;
-import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * WebSocket 服务端
- * 使用Redis管理在线状态，支持多实例部署
+ * 使用Redis管理在线状态，支持多实例部署；同一用户可在多个设备（可分布在不同实例）同时在线
+ * 握手时按子协议选择下发格式：json（文本帧，默认）/ msgpack（二进制帧）
+ * 客户端可在连接上发送 send 帧（见 UpstreamMessageHandler），服务端回 ack 帧
+ * 握手参数 batch=1 开启推送合帧；开启 im.ws.deflate-enabled 时协商 permessage-deflate
  */
-@ServerEndpoint(value = "/ws/{userId}", configurator = SpringWebSocketConfigurator.class)
+@ServerEndpoint(value = "/ws/{userId}", subprotocols = {"json", "msgpack"},
+        configurator = SpringWebSocketConfigurator.class)
 @Component
 @Slf4j
-public class WebSocketServer {
+public class WebSocketServer implements RemotePushHandler {
 
-    // 本地Session映射（用于当前实例的WebSocket连接）
-    private static final ConcurrentHashMap<Long, Session> ONLINE_SESSION_MAP = new ConcurrentHashMap<>();
+    // 本地连接注册表（当前实例的WebSocket连接），一个用户可以有多个设备连接，每个连接带独立的发送队列
+    private static final SessionRegistry SESSIONS = new SessionRegistry();
 
     // Redis工具类（通过静态方式获取，因为@ServerEndpoint不能直接注入）
     private static RedisUtils redisUtils;
 
+    // 启用登录时，握手必须携带与路径 userId 一致的 Token
+    private static AuthConfig authConfig;
+
+    // 跨实例推送路由
+    private static ClusterPushRouter clusterPushRouter;
+
+    // 连接发送队列配置与指标
+    private static WsSessionConfig wsSessionConfig;
+    private static OutboundMetrics outboundMetrics;
+
+    // 消息与会话成员数据访问（重连补发、送达游标）
+    private static IMessageRepository messageRepository;
+    private static IConversationMemberRepository conversationMemberRepository;
+
+    // 上行消息（send 帧）处理
+    private static UpstreamMessageHandler upstreamMessageHandler;
+
+    // 推送帧编码
+    private static MessageCodec messageCodec;
+    private static BinaryMessageCodec binaryMessageCodec;
+
+    // 重连补发线程池
+    private static ThreadPoolExecutor replayExecutor;
+
+    // 推送合帧的窗口定时器
+    private static ScheduledExecutorService coalesceScheduler;
+
+    // 心跳续期：收到 ping 的用户先记在本地，定时批量写回 Redis
+    private static final int PRESENCE_FLUSH_BATCH = 1000;
+    private static PresenceWriter presenceWriter;
+    private static ScheduledExecutorService presenceExecutor;
+
+    // 送达游标：推送/补发入队后记在本地，定时批量写回
+    private static final int DELIVERED_FLUSH_BATCH = 500;
+    private static DeliveredCursorWriter deliveredCursorWriter;
+    private static ScheduledExecutorService deliveredExecutor;
+
+    // 补发时等待发送队列消化的最长时间
+    private static final long REPLAY_DRAIN_TIMEOUT_MS = 10_000L;
+    private static final int REPLAY_QUEUE_CAPACITY = 10_000;
+
     // 当前实例ID（用于标识不同的服务实例）
     private static String instanceId;
 
@@ -40,111 +104,234 @@ public class WebSocketServer {
     private static final long MAX_IDLE_TIMEOUT = 60 * 1000L;
 
     // Redis key前缀
-    private static final String REDIS_KEY_ONLINE = "ws:online:"; // ws:online:{userId}
+    // ws:presence:{userId} -> Hash{instanceId: 设备数}
+    // 旧版本的 ws:online:{userId} 是字符串，换用新 key 避免滚动发布期间 WRONGTYPE，旧 key 5 分钟内自然过期
+    public static final String REDIS_KEY_ONLINE = "ws:presence:";
     private static final String REDIS_KEY_INSTANCE = "ws:instance:"; // ws:instance:{instanceId}
     private static final long ONLINE_TIMEOUT = 300; // 在线状态过期时间（秒），5分钟
 
+    @Autowired
+    public void setAuthConfig(AuthConfig authConfig) {
+        WebSocketServer.authConfig = authConfig;
+    }
+
     @Autowired
     public void setRedisUtils(RedisUtils redisUtils) {
         WebSocketServer.redisUtils = redisUtils;
     }
 
+    @Autowired
+    public void setClusterPushRouter(ClusterPushRouter clusterPushRouter) {
+        WebSocketServer.clusterPushRouter = clusterPushRouter;
+    }
+
+    @Autowired
+    public void setWsSessionConfig(WsSessionConfig wsSessionConfig) {
+        WebSocketServer.wsSessionConfig = wsSessionConfig;
+    }
+
+    @Autowired
+    public void setOutboundMetrics(OutboundMetrics outboundMetrics) {
+        WebSocketServer.outboundMetrics = outboundMetrics;
+    }
+
+    @Autowired
+    public void setMessageRepository(IMessageRepository messageRepository) {
+        WebSocketServer.messageRepository = messageRepository;
+    }
+
+    @Autowired
+    public void setConversationMemberRepository(IConversationMemberRepository conversationMemberRepository) {
+        WebSocketServer.conversationMemberRepository = conversationMemberRepository;
+    }
+
+    @Autowired
+    public void setUpstreamMessageHandler(UpstreamMessageHandler upstreamMessageHandler) {
+        WebSocketServer.upstreamMessageHandler = upstreamMessageHandler;
+    }
+
+    @Autowired
+    public void setMessageCodec(MessageCodec messageCodec) {
+        WebSocketServer.messageCodec = messageCodec;
+    }
+
+    @Autowired
+    public void setBinaryMessageCodec(BinaryMessageCodec binaryMessageCodec) {
+        WebSocketServer.binaryMessageCodec = binaryMessageCodec;
+    }
+
     @PostConstruct
     public void init() {
-        // 生成实例ID：IP:PORT:UUID
-        try {
-            String host = InetAddress.getLocalHost().getHostAddress();
-            instanceId = host + ":" + System.getProperty("server.port", "8081") + ":" + UUID.randomUUID().toString().substring(0, 8);
-            log.info("WebSocket Server 实例ID: {}", instanceId);
-        } catch (Exception e) {
-            instanceId = UUID.randomUUID().toString();
-            log.warn("无法获取主机IP，使用UUID作为实例ID: {}", instanceId);
-        }
+        replayExecutor = new ThreadPoolExecutor(
+                wsSessionConfig.getReplayThreads(), wsSessionConfig.getReplayThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REPLAY_QUEUE_CAPACITY),
+                ThreadFactoryBuilder.create().setNamePrefix("ws-replay-").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+                ThreadFactoryBuilder.create().setNamePrefix("ws-coalesce-").build());
+        scheduler.setRemoveOnCancelPolicy(true);
+        coalesceScheduler = scheduler;
+
+        // 实例ID由跨实例推送路由统一生成，保证在线状态和订阅频道一致
+        instanceId = clusterPushRouter.getInstanceId();
+        log.info("WebSocket Server 实例ID: {}", instanceId);
+
+        presenceWriter = new PresenceWriter(SESSIONS, redisUtils, instanceId, ONLINE_TIMEOUT, PRESENCE_FLUSH_BATCH);
+        presenceExecutor = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("ws-presence-").build());
+        presenceExecutor.scheduleWithFixedDelay(presenceWriter::flush,
+                wsSessionConfig.getPresenceFlushMs(), wsSessionConfig.getPresenceFlushMs(), TimeUnit.MILLISECONDS);
+
+        deliveredCursorWriter = new DeliveredCursorWriter(conversationMemberRepository, DELIVERED_FLUSH_BATCH);
+        deliveredExecutor = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("ws-delivered-").build());
+        deliveredExecutor.scheduleWithFixedDelay(deliveredCursorWriter::flush,
+                wsSessionConfig.getDeliveredFlushMs(), wsSessionConfig.getDeliveredFlushMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        replayExecutor.shutdownNow();
+        coalesceScheduler.shutdownNow();
+        presenceExecutor.shutdownNow();
+        deliveredExecutor.shutdownNow();
+        // 停机前写回最后一个周期的送达游标
+        deliveredCursorWriter.flush();
     }
 
     @OnOpen
     public void onOpen(Session session, @PathParam("userId") Long userId) {
         try {
+            // 启用登录时路径中的 userId 必须与握手 Token 一致，否则任何人都能以他人身份连接
+            if (authConfig.isEnabled() && !authenticated(session, userId)) {
+                log.warn("WebSocket 握手认证失败: userId={}", userId);
+                session.close(new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "unauthorized"));
+                return;
+            }
+
             // 设置最大空闲时间
             session.setMaxIdleTimeout(MAX_IDLE_TIMEOUT);
 
-            // 存储到本地Session映射
-            ONLINE_SESSION_MAP.put(userId, session);
+            // permessage-deflate 由 Tomcat 协商和压缩（SpringWebSocketConfigurator 按配置决定是否协商），这里只统计
+            if (!session.getNegotiatedExtensions().isEmpty()) {
+                outboundMetrics.recordDeflateSession();
+            }
+
+            // 存储到本地连接注册表，推送统一经由发送队列异步发出
+            WireProtocol protocol = WireProtocol.negotiate(session);
+            String deviceId = deviceId(session);
+            SessionOutbound outbound = new SessionOutbound(userId, deviceId, session, protocol,
+                    wsSessionConfig.getOutboundHighWaterMark(), wsSessionConfig.getSlowConsumerTimeoutMs(),
+                    WebSocketServer::onOverflow, outboundMetrics, coalescing(session, protocol));
+            SessionOutbound previous = SESSIONS.put(userId, outbound, wsSessionConfig.getMaxDevicesPerUser());
+            if (previous != null) {
+                // 同一设备重连，或设备数超限挤掉最早的连接
+                previous.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "replaced"));
+            }
 
             // 【新增】存储到Redis，标记用户在线
             if (redisUtils != null) {
-                // 存储用户在线状态：ws:online:{userId} -> instanceId
-                redisUtils.set(REDIS_KEY_ONLINE + userId, instanceId, ONLINE_TIMEOUT);
+                // 存储用户在线状态：ws:presence:{userId} -> {instanceId: 本实例设备数}
+                presenceWriter.refresh(userId);
                 // 存储实例下的用户：ws:instance:{instanceId} -> Set<userId>
                 redisUtils.sAdd(REDIS_KEY_INSTANCE + instanceId, userId.toString());
+            }
 
-                // 【新增】拉取并推送离线消息
-                pushOfflineMessages(userId, session);
+            // 补发离线期间的消息（查库放到补发线程，不占用容器线程）
+            try {
+                replayExecutor.execute(() -> replayUnacked(userId, outbound));
+            } catch (RejectedExecutionException e) {
+                log.warn("补发队列已满，跳过补发，由客户端同步接口补齐: userId={}", userId);
             }
 
-            log.info("用户 connected: {}, 当前实例在线: {}, 实例ID: {}", userId, ONLINE_SESSION_MAP.size(), instanceId);
+            log.info("用户 connected: {}, 设备: {}, 协议: {}, 合帧: {}, 当前实例连接数: {}, 实例ID: {}",
+                    userId, deviceId, protocol.getSubprotocol(), outbound.isCoalescing(), SESSIONS.sessionCount(), instanceId);
         } catch (Exception e) {
             log.error("连接异常", e);
         }
     }
 
     /**
-     * 推送离线消息
+     * 补发离线期间的消息
+     * 只补发送达游标（last_delivered_seq 与 last_ack_seq 中较大者）之后的消息：在线时已推送过的不再重复补发。
+     * 按会话最新消息时间倒序，每个会话最多补发最新的 replayPerConversation 条，更早的由客户端按 seq 缺口通过同步接口拉取；
+     * 每条补发消息写出成功后才推进送达游标，发送队列积压时等消化后再补下一个会话。
+     *
+     * 补发的消息全部写出后连接才开始为实时推送记录送达：否则补发期间先写出的较新实时推送会把游标推到
+     * 尚未写出的补发消息之后，连接此时断开就会漏补。补发中断（连接关闭、超时、丢弃）时该连接不再记录送达，
+     * 下次重连从旧游标重新补发，客户端按 msgId 去重
      */
-    private void pushOfflineMessages(Long userId, Session session) {
-        if (redisUtils == null) {
-            return;
-        }
+    private static void replayUnacked(Long userId, SessionOutbound outbound) {
+        int batchSize = wsSessionConfig.getReplayBatchSize();
+        int maxMessages = wsSessionConfig.getReplayMaxMessages();
+        int perConversation = wsSessionConfig.getReplayPerConversation();
+        int replayed = 0;
+        // 尚未写出的补发消息数，另加 1 代表补发循环本身，归零时开始记录实时推送的送达
+        AtomicInteger pending = new AtomicInteger(1);
 
-        String offlineKey = "ws:offline:" + userId;
-        Long offlineCount = redisUtils.lSize(offlineKey);
-
-        if (offlineCount != null && offlineCount > 0) {
-            log.info("用户 {} 有 {} 条离线消息，开始推送", userId, offlineCount);
-            
-            // 批量拉取离线消息（每次最多100条）
-            List<String> messages = redisUtils.lRange(offlineKey, 0, Math.min(99, offlineCount - 1));
-            
-            if (messages != null && !messages.isEmpty()) {
-                int successCount = 0;
-                for (String msg : messages) {
-                    try {
-                        synchronized (session) {
-                            if (session.isOpen()) {
-                                session.getBasicRemote().sendText(msg);
-                                successCount++;
-                            } else {
-                                break;
-                            }
+        try {
+            List<ConversationMember> cursors = conversationMemberRepository.findUndelivered(userId,
+                    wsSessionConfig.getReplayMaxConversations());
+            for (ConversationMember cursor : cursors) {
+                if (replayed >= maxMessages) {
+                    break;
+                }
+                List<Message> messages = messageRepository.findLatestAfterSeq(cursor.getConversationId(),
+                        cursor.getLastDeliveredSeq(), Math.min(perConversation, maxMessages - replayed));
+                if (messages.isEmpty()) {
+                    continue;
+                }
+                for (Message message : messages) {
+                    pending.incrementAndGet();
+                    Runnable onSent = () -> {
+                        deliveredCursorWriter.record(userId, message.getConversationId(), message.getSeq());
+                        if (pending.decrementAndGet() == 0) {
+                            outbound.startDeliveryTracking();
                         }
-                    } catch (IOException e) {
-                        log.error("推送离线消息失败: userId={}", userId, e);
-                        break;
+                    };
+                    if (!offerFrame(outbound, new PushFrame(message), onSent)) {
+                        log.info("补发中连接已关闭: userId={}, 已补发={}", userId, replayed);
+                        return;
                     }
+                    replayed++;
                 }
 
-                // 删除已推送的消息
-                for (int i = 0; i < successCount; i++) {
-                    redisUtils.lPop(offlineKey);
+                if (!outbound.awaitDepthBelow(batchSize, REPLAY_DRAIN_TIMEOUT_MS)) {
+                    log.warn("补发等待发送队列超时，停止补发: userId={}, 已补发={}", userId, replayed);
+                    return;
                 }
-
-                log.info("用户 {} 离线消息推送完成: {}/{}", userId, successCount, messages.size());
             }
+            if (pending.decrementAndGet() == 0) {
+                outbound.startDeliveryTracking();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("补发消息失败: userId={}", userId, e);
+        }
+
+        if (replayed > 0) {
+            log.info("用户 {} 补发完成: {} 条", userId, replayed);
         }
     }
 
     @OnClose
-    public void onClose(@PathParam("userId") Long userId, CloseReason reason) {
+    public void onClose(Session session, @PathParam("userId") Long userId, CloseReason reason) {
         // 打印关闭原因，方便排查是 超时关闭 还是 正常关闭
-        // CloseCode: 1000=正常, 1001=离开, 1006=异常断开
+        // CloseCode: 1000=正常, 1001=离开, 1006=异常断开, 1013=慢连接被断开
         log.info("用户 disconnected: {}, 原因: {}", userId, reason.getCloseCode());
 
-        // 移除本地Session
-        ONLINE_SESSION_MAP.remove(userId);
+        // 移除本地连接；同一设备已建立新连接时，不能把新连接移除
+        SessionOutbound outbound = SESSIONS.find(userId, session);
+        if (outbound == null || !SESSIONS.remove(userId, outbound)) {
+            return;
+        }
+        outbound.close();
+        log.debug("连接发送队列统计: {}", outbound.getStats());
 
-        // 【新增】从Redis移除在线状态
-        if (redisUtils != null) {
-            redisUtils.delete(REDIS_KEY_ONLINE + userId);
+        // 【新增】更新Redis在线状态，本实例上没有该用户的设备时移除
+        if (redisUtils != null && presenceWriter.refresh(userId) == 0) {
             redisUtils.sRemove(REDIS_KEY_INSTANCE + instanceId, userId.toString());
         }
     }
@@ -153,21 +340,27 @@ public class WebSocketServer {
     public void onMessage(String message, Session session, @PathParam("userId") Long userId) {
         // 只要收到消息（无论是业务消息还是心跳），IdleTimeout 计时器都会自动重置
         if ("ping".equals(message)) {
-            try {
-                // 收到 ping，回复 pong
-                session.getBasicRemote().sendText("pong");
-                
-                // 【新增】更新Redis中的在线状态过期时间（心跳保活）
-                if (redisUtils != null && userId != null) {
-                    redisUtils.set(REDIS_KEY_ONLINE + userId, instanceId, ONLINE_TIMEOUT);
-                }
-                
-                log.debug("收到心跳: ping -> pong"); // debug级别，防止日志刷屏
-            } catch (IOException e) {
-                log.error("心跳回复失败", e);
+            // 收到 ping，回复 pong（与推送共用发送队列，避免并发写同一连接）
+            SessionOutbound outbound = SESSIONS.find(userId, session);
+            if (outbound == null || !outbound.offer("pong")) {
+                log.warn("心跳回复失败: userId={}", userId);
+                return;
+            }
+
+            // 【新增】更新Redis中的在线状态过期时间（心跳保活），本地记录后批量续期
+            if (redisUtils != null && userId != null) {
+                presenceWriter.heartbeat(userId);
             }
+
+            log.debug("收到心跳: ping -> pong"); // debug级别，防止日志刷屏
         } else {
-            log.info("收到业务消息: {}", message);
+            // 业务帧（如 send）交给上行处理线程，不占用容器 I/O 线程
+            SessionOutbound outbound = SESSIONS.find(userId, session);
+            if (outbound == null) {
+                log.warn("连接已关闭，忽略业务消息: userId={}", userId);
+                return;
+            }
+            upstreamMessageHandler.submit(userId, outbound, message, authenticated(session, userId));
         }
     }
 
@@ -182,65 +375,196 @@ public class WebSocketServer {
 
     /**
      * 推送消息（对外接口）
-     * 支持多实例部署：先检查Redis中的在线状态，如果用户在其他实例，记录为离线消息
      */
-    public static void pushMessage(Long userId, String message) {
-        // 1. 先检查本地Session（当前实例）
-        Session session = ONLINE_SESSION_MAP.get(userId);
-        if (session != null && session.isOpen()) {
-            synchronized (session) {
-                try {
-                    session.getBasicRemote().sendText(message);
-                    log.debug("消息推送成功: userId={}, instance={}", userId, instanceId);
-                    return;
-                } catch (IOException e) {
-                    log.error("消息推送失败: userId={}", userId, e);
-                    // 发送失败通常意味着连接已断，尝试手动关闭
-                    try {
-                        session.close();
-                    } catch (IOException ex) {
-                        // ignore
-                    }
-                    // 继续执行，可能用户在其他实例
+    public static void pushMessage(Long userId, Message message) {
+        pushToUsers(Collections.singletonList(userId), message);
+    }
+
+    /**
+     * 批量推送消息（对外接口）
+     * 支持多实例部署：本实例的连接直接推送；同一用户的其他设备可能在别的实例上，
+     * 一次 Pipeline 查询全部接收者所在的实例，按实例合并后通过 Redis Pub/Sub 转发；
+     * 不在线的用户无需处理，重连时按送达游标补发
+     */
+    public static void pushToUsers(Collection<Long> userIds, Message message) {
+        pushToUsers(userIds, message, null);
+    }
+
+    /**
+     * 批量推送消息，投递给发送者时跳过 excludeDeviceId 对应的连接（发起发送的设备已通过回执拿到结果）
+     */
+    public static void pushToUsers(Collection<Long> userIds, Message message, String excludeDeviceId) {
+        // 1. 先推送本地连接（当前实例的全部设备），每种协议只编码一次
+        List<Long> undelivered = deliverLocal(userIds, new PushFrame(message), message.getSenderId(), excludeDeviceId);
+
+        if (redisUtils == null) {
+            if (!undelivered.isEmpty()) {
+                log.warn("用户不在线或连接已关闭: userIds={}", undelivered);
+            }
+            return;
+        }
+
+        // 2. 查询Redis中的在线状态（各设备所在的实例）
+        List<Long> receivers = userIds instanceof List ? (List<Long>) userIds : new ArrayList<>(userIds);
+        List<String> keys = new ArrayList<>(receivers.size());
+        for (Long userId : receivers) {
+            keys.add(REDIS_KEY_ONLINE + userId);
+        }
+        List<Set<String>> onlineInstances = redisUtils.multiHKeys(keys);
+
+        Map<String, List<Long>> usersByInstance = new HashMap<>();
+        for (int i = 0; i < receivers.size(); i++) {
+            for (String onlineInstanceId : onlineInstances.get(i)) {
+                // 本实例的设备已在第 1 步投递
+                if (!onlineInstanceId.equals(instanceId)) {
+                    usersByInstance.computeIfAbsent(onlineInstanceId, k -> new ArrayList<>()).add(receivers.get(i));
                 }
             }
         }
 
-        // 2. 检查Redis中的在线状态（可能在其他实例）
-        if (redisUtils != null) {
-            String onlineInstanceId = redisUtils.get(REDIS_KEY_ONLINE + userId);
-            if (onlineInstanceId != null && !onlineInstanceId.equals(instanceId)) {
-                // 用户在其他实例在线，但当前实例无法直接推送
-                // 这里可以：
-                // - 使用Redis Pub/Sub通知其他实例推送（需要其他实例订阅）
-                // - 或者存储为离线消息，等待用户下次连接时拉取
-                log.debug("用户在其他实例在线: userId={}, instance={}", userId, onlineInstanceId);
-                // TODO: 可以实现Redis Pub/Sub或离线消息存储
-                return;
+        // 3. 每个目标实例只发布一个信封（携带消息本身，由目标实例按各连接的协议编码）；
+        // 目标实例已下线则清理其遗留的在线状态
+        String payload = usersByInstance.isEmpty() ? null : messageCodec.encode(message);
+        List<Long> offlineUserIds = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> entry : usersByInstance.entrySet()) {
+            if (!clusterPushRouter.publish(entry.getKey(), entry.getValue(), payload, excludeDeviceId)) {
+                log.debug("目标实例无订阅者，按离线处理: instance={}", entry.getKey());
+                for (Long userId : entry.getValue()) {
+                    redisUtils.hDelete(REDIS_KEY_ONLINE + userId, entry.getKey());
+                }
+                offlineUserIds.addAll(entry.getValue());
             }
         }
 
-        // 3. 用户不在线，存储为离线消息
-        if (redisUtils != null) {
-            String offlineKey = "ws:offline:" + userId;
-            redisUtils.lPush(offlineKey, message);
-            // 设置过期时间（7天）
-            redisUtils.expire(offlineKey, 7 * 24 * 3600);
-            log.debug("用户离线，消息已存储: userId={}", userId);
-        } else {
-            log.warn("用户不在线或连接已关闭: userId={}", userId);
+        // 4. 消息已落库，不在线的用户重连时补发
+        if (!offlineUserIds.isEmpty()) {
+            log.debug("用户不在线，等待重连补发: userIds={}", offlineUserIds);
+        }
+    }
+
+    /**
+     * 其他实例转发过来的推送，投递给本实例上的连接
+     */
+    @Override
+    public void onRemotePush(List<Long> userIds, String payload, String excludeDeviceId) {
+        // 发布时用户已断开（在线状态尚未过期），重连时补发
+        Message message = messageCodec.decode(payload, Message.class);
+        List<Long> undelivered = deliverLocal(userIds, new PushFrame(message), message.getSenderId(), excludeDeviceId);
+        if (!undelivered.isEmpty()) {
+            log.debug("用户已断开，等待重连补发: userIds={}", undelivered);
+        }
+    }
+
+    /**
+     * 推送给当前实例上的连接
+     * 只入队不等待网络写出，慢连接不会拖住群消息的其他接收者
+     * @return 未能在本实例推送成功的用户
+     */
+    private static List<Long> deliverLocal(Collection<Long> userIds, PushFrame frame,
+                                           Long senderId, String excludeDeviceId) {
+        List<Long> undelivered = new ArrayList<>();
+        for (Long userId : userIds) {
+            int delivered = 0;
+            boolean sender = excludeDeviceId != null && userId.equals(senderId);
+            for (SessionOutbound outbound : SESSIONS.get(userId)) {
+                if (sender && excludeDeviceId.equals(outbound.getDeviceId())) {
+                    // 发起发送的连接视为已送达
+                    delivered++;
+                    continue;
+                }
+                // 写出成功后才推进送达游标，丢弃或断开的推送在重连时补发
+                Runnable onSent = outbound.isDeliveryTracking() ? () -> deliveredCursorWriter.record(
+                        userId, frame.getMessage().getConversationId(), frame.getMessage().getSeq()) : null;
+                if (offerFrame(outbound, frame, onSent)) {
+                    delivered++;
+                }
+            }
+            if (delivered == 0) {
+                undelivered.add(userId);
+                continue;
+            }
+            log.debug("消息已入队: userId={}, devices={}, instance={}", userId, delivered, instanceId);
         }
+        return undelivered;
     }
 
     /**
-     * 获取用户在线状态
-     * @return 用户所在的实例ID，如果不在线返回null
+     * 握手时是否携带了该用户的有效 Token（关闭登录时路径中的 userId 不可信）
      */
-    public static String getUserOnlineInstance(Long userId) {
+    private static boolean authenticated(Session session, Long userId) {
+        return userId != null && userId.equals(session.getUserProperties().get(SpringWebSocketConfigurator.AUTH_USER_ID));
+    }
+
+    /**
+     * 握手参数 deviceId 标识设备，未携带时按连接区分
+     */
+    private static String deviceId(Session session) {
+        List<String> params = session.getRequestParameterMap().get("deviceId");
+        return params == null || params.isEmpty() || params.get(0).isEmpty() ? session.getId() : params.get(0);
+    }
+
+    /**
+     * 按连接协议编码后入队
+     */
+    private static boolean offerFrame(SessionOutbound outbound, PushFrame frame, Runnable onSent) {
+        if (outbound.getProtocol() == WireProtocol.MSGPACK) {
+            return outbound.offerPush(frame.binary(binaryMessageCodec), onSent);
+        }
+        return outbound.offerPush(frame.json(messageCodec), onSent);
+    }
+
+    /**
+     * 握手带 batch=1 且配置允许时开启推送合帧，老客户端仍按单条消息一帧下发
+     */
+    private static SessionOutbound.Coalescing coalescing(Session session, WireProtocol protocol) {
+        List<String> params = session.getRequestParameterMap().get("batch");
+        boolean requested = params != null && !params.isEmpty()
+                && ("1".equals(params.get(0)) || "true".equalsIgnoreCase(params.get(0)));
+        if (!requested || wsSessionConfig.getCoalesceMaxMessages() < 2) {
+            return null;
+        }
+        return new SessionOutbound.Coalescing(wsSessionConfig.getCoalesceMaxMessages(),
+                wsSessionConfig.getCoalesceWindowMs(), coalesceScheduler,
+                protocol == WireProtocol.MSGPACK ? WebSocketServer::mergeBinary : WebSocketServer::mergeJson);
+    }
+
+    private static Object mergeJson(List<Object> frames) {
+        List<String> jsons = new ArrayList<>(frames.size());
+        for (Object frame : frames) {
+            jsons.add((String) frame);
+        }
+        return messageCodec.encodeBatch(jsons);
+    }
+
+    private static Object mergeBinary(List<Object> frames) {
+        List<byte[]> binaries = new ArrayList<>(frames.size());
+        for (Object frame : frames) {
+            binaries.add((byte[]) frame);
+        }
+        return binaryMessageCodec.encodeBatch(binaries);
+    }
+
+    /**
+     * 发送队列超过高水位时丢弃的推送
+     * 消息已落库且未被确认，客户端发现序列号缺口或重连后补齐
+     */
+    private static void onOverflow(Long userId, Object frame) {
+        log.debug("发送队列已满，丢弃推送: userId={}", userId);
+    }
+
+    /**
+     * 获取用户在线的设备数（所有实例合计）
+     * @return 不在线返回0
+     */
+    public static int getUserDeviceCount(Long userId) {
         if (redisUtils == null) {
-            return ONLINE_SESSION_MAP.containsKey(userId) ? instanceId : null;
+            return SESSIONS.deviceCount(userId);
         }
-        return redisUtils.get(REDIS_KEY_ONLINE + userId);
+        int devices = 0;
+        for (Object count : redisUtils.hGetAll(REDIS_KEY_ONLINE + userId).values()) {
+            devices += Integer.parseInt(count.toString());
+        }
+        return devices;
     }
 
     /**
@@ -248,15 +572,31 @@ public class WebSocketServer {
      */
     public static boolean isUserOnline(Long userId) {
         if (redisUtils == null) {
-            return ONLINE_SESSION_MAP.containsKey(userId);
+            return SESSIONS.deviceCount(userId) > 0;
         }
         return redisUtils.hasKey(REDIS_KEY_ONLINE + userId);
     }
 
     /**
-     * 获取当前实例的在线用户数
+     * 获取当前实例的连接数
      */
     public static int getLocalOnlineCount() {
-        return ONLINE_SESSION_MAP.size();
+        return SESSIONS.sessionCount();
+    }
+
+    /**
+     * 获取当前实例的在线用户数（一个用户可能有多个设备连接）
+     */
+    public static int getLocalUserCount() {
+        return SESSIONS.userCount();
+    }
+
+    /**
+     * 获取当前实例所有连接发送队列的积压总数
+     */
+    public static long getLocalOutboundDepth() {
+        long[] depth = {0};
+        SESSIONS.forEach(outbound -> depth[0] += outbound.getDepth());
+        return depth[0];
     }
 }
@@ -0,0 +1,55 @@
+package com.bytedance.consumer;
+
+import javax.websocket.Session;
+import java.util.List;
+
+/**
+ * 下发协议
+ * WebSocket 握手时通过子协议（Sec-WebSocket-Protocol）协商，不支持设置子协议的客户端可用 ?protocol= 参数；
+ * 同步接口通过 Accept 头协商
+ */
+public enum WireProtocol {
+
+    /**
+     * 文本帧，JSON（默认）
+     */
+    JSON("json"),
+
+    /**
+     * 二进制帧，MessagePack 数组编码
+     */
+    MSGPACK("msgpack");
+
+    public static final String MSGPACK_MEDIA_TYPE = "application/x-msgpack";
+
+    private final String subprotocol;
+
+    WireProtocol(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String getSubprotocol() {
+        return subprotocol;
+    }
+
+    /**
+     * 按握手结果确定连接的协议，未协商时使用 JSON
+     */
+    public static WireProtocol negotiate(Session session) {
+        WireProtocol protocol = of(session.getNegotiatedSubprotocol());
+        if (protocol == null) {
+            List<String> params = session.getRequestParameterMap().get("protocol");
+            protocol = params == null || params.isEmpty() ? null : of(params.get(0));
+        }
+        return protocol != null ? protocol : JSON;
+    }
+
+    private static WireProtocol of(String name) {
+        for (WireProtocol protocol : values()) {
+            if (protocol.subprotocol.equalsIgnoreCase(name)) {
+                return protocol;
+            }
+        }
+        return null;
+    }
+}
@@ -1,10 +1,12 @@
 package com.bytedance.controller;
 
 import cn.hutool.log.Log;
+import com.bytedance.dto.AckRequest;
 import com.bytedance.dto.AddMemberRequest;
 import com.bytedance.dto.ConversationDTO;
 import com.bytedance.dto.TopRequest;
 import com.bytedance.dto.MutedRequest;
+import com.bytedance.dto.ScrollResult;
 import com.bytedance.dto.SetRoleRequest;
 import com.bytedance.utils.UserContext;
 import com.bytedance.vo.ConversationVO;
@@ -34,6 +36,19 @@ public class ConversationController {
         return Result.success(list);
     }
 
+    /**
+     * 滚动分页获取会话列表（置顶优先，其次按最后消息时间倒序）
+     * 首页不传 max、offset；下一页传上一页返回的 minTime 作为 max，offset 原样传回
+     * URL: GET /api/conversations/page?max=&offset=0&limit=20
+     */
+    @GetMapping("/page")
+    public Result<ScrollResult> getPage(@RequestParam(required = false) Long max,
+                                        @RequestParam(defaultValue = "0") Integer offset,
+                                        @RequestParam(defaultValue = "20") Integer limit) {
+        Long userId = getUserId();
+        return Result.success(conversationService.getConversationPage(userId, max, offset, limit));
+    }
+
     /**
      * 创建会话 (为了方便 APIFox 测试，也暴露出来)
      * 如果创建会话时提供了成员列表，会先检查是否存在相同会话名和成员的会话
@@ -111,6 +126,17 @@ public class ConversationController {
         return Result.success();
     }
 
+    /**
+     * 确认已读到指定序列号（未读数 = 会话当前序列号 - 已读序列号）
+     * URL: POST /api/conversations/ack
+     */
+    @PostMapping("/ack")
+    public Result<Void> ack(@RequestBody AckRequest request) {
+        Long userId = getUserId();
+        conversationService.ackConversation(request.getConversationId(), userId, request.getSeq());
+        return Result.success();
+    }
+
     /**
      * 获取用户ID，优先使用请求体中的 userId，否则使用 UserContext 中的
      */
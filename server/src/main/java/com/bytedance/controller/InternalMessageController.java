@@ -0,0 +1,50 @@
+package com.bytedance.controller;
+
+import cn.hutool.core.util.StrUtil;
+import com.bytedance.common.Result;
+import com.bytedance.config.LaneConfig;
+import com.bytedance.dto.ForwardSendRequest;
+import com.bytedance.entity.Message;
+import com.bytedance.usecase.message.ConversationLanes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 实例间内部接口（不在 /api 下，不经过登录拦截器，只供集群内其他实例调用）
+ */
+@RestController
+@RequestMapping("/internal/messages")
+public class InternalMessageController {
+
+    @Autowired
+    private ConversationLanes conversationLanes;
+
+    @Autowired
+    private LaneConfig laneConfig;
+
+    /**
+     * 接收其他实例转发的发送请求，在本实例的会话车道上执行
+     * URL: POST /internal/messages/send
+     */
+    @PostMapping("/send")
+    public Result<Message> send(@RequestHeader(value = ConversationLanes.TOKEN_HEADER, required = false) String token,
+                                @RequestBody ForwardSendRequest request) {
+        // 未配置令牌时车道不会启动，这里也不放行
+        String expected = laneConfig.getInternalToken();
+        if (StrUtil.isBlank(expected) || token == null
+                || !MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            throw new RuntimeException("内部接口校验失败");
+        }
+        Message message = conversationLanes.sendLocal(
+                request.getConversationId(),
+                request.getSenderId(),
+                request.getMsgType(),
+                request.getContentJson(),
+                request.getOriginDeviceId()
+        );
+        return Result.success(message);
+    }
+}
@@ -2,15 +2,26 @@ package com.bytedance.controller;
 
 import cn.hutool.json.JSONUtil;
 import com.bytedance.common.Result;
+import com.bytedance.config.WireConfig;
+import com.bytedance.consumer.WireProtocol;
 import com.bytedance.dto.SendMsgRequest;
+import com.bytedance.dto.SyncAllRequest;
 import com.bytedance.entity.Message;
+import com.bytedance.service.BinaryMessageCodec;
 import com.bytedance.service.IMessageService;
 import com.bytedance.utils.UserContext;
+import com.bytedance.vo.HistoryPageVO;
+import com.bytedance.vo.MessageVO;
+import com.bytedance.vo.SyncAllVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/messages")
@@ -19,6 +30,12 @@ public class MessageController {
     @Autowired
     private IMessageService messageService;
 
+    @Autowired
+    private WireConfig wireConfig;
+
+    @Autowired
+    private BinaryMessageCodec binaryMessageCodec;
+
     /**
      * 接口1：发送消息
      * URL: POST /api/messages/send
@@ -56,15 +73,58 @@ public class MessageController {
 
     /**
      * 接口2：同步/拉取消息
-     * URL: GET /api/messages/sync?conversationId=1&afterSeq=0
+     * URL: GET /api/messages/sync?conversationId=1&afterSeq=0&rawContent=true
+     * rawContent: content 是否作为 JSON 对象内嵌返回，不传时使用 im.wire.raw-content
+     * Accept 包含 application/x-msgpack 时返回 MessagePack 编码的消息数组（不包 Result，出错时仍返回 JSON）
      */
     @GetMapping("/sync")
-    public Result<List<Message>> syncMessages(
+    public ResponseEntity<?> syncMessages(
             @RequestParam Long conversationId,
-            @RequestParam(defaultValue = "0") Long afterSeq
+            @RequestParam(defaultValue = "0") Long afterSeq,
+            @RequestParam(required = false) Boolean rawContent,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
     ) {
         List<Message> messages = messageService.syncMessages(conversationId, afterSeq);
-        return Result.success(messages);
+        if (accept != null && accept.contains(WireProtocol.MSGPACK_MEDIA_TYPE)) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(WireProtocol.MSGPACK_MEDIA_TYPE))
+                    .body(binaryMessageCodec.encodeMessages(messages));
+        }
+        boolean raw = rawContent != null ? rawContent : wireConfig.isRawContent();
+        if (raw) {
+            return ResponseEntity.ok(Result.success(messages.stream().map(MessageVO::from).collect(Collectors.toList())));
+        }
+        return ResponseEntity.ok(Result.success(messages));
+    }
+
+    /**
+     * 接口3：多会话增量同步（重连时替代逐个会话调用 /sync）
+     * URL: POST /api/messages/sync-all
+     * Body: {"cursors": {"1": 120, "2": 0}} 或 {"continuation": "..."}
+     * 返回各会话的增量消息；continuation 不为空时带上它继续请求
+     */
+    @PostMapping("/sync-all")
+    public Result<SyncAllVO> syncAll(@RequestBody SyncAllRequest request) {
+        Long userId = getUserId(request.getUserId());
+        return Result.success(messageService.syncAll(userId, request.getCursors(), request.getContinuation()));
+    }
+
+    /**
+     * 接口4：历史消息分页（键集分页，按 seq 翻页）
+     * URL: GET /api/messages/history?conversationId=1&beforeSeq=120&limit=30
+     * beforeSeq 向前翻、afterSeq 向后翻、aroundSeq 取该消息前后一屏（含该消息），都不传时返回最新一页
+     * limit 默认 20，最大 100；返回的 messages 按 seq 升序
+     */
+    @GetMapping("/history")
+    public Result<HistoryPageVO> history(
+            @RequestParam Long conversationId,
+            @RequestParam(required = false) Long beforeSeq,
+            @RequestParam(required = false) Long afterSeq,
+            @RequestParam(required = false) Long aroundSeq,
+            @RequestParam(required = false) Integer limit
+    ) {
+        Long userId = getUserId(null);
+        return Result.success(messageService.getHistory(userId, conversationId, beforeSeq, afterSeq, aroundSeq, limit));
     }
 
     /**
@@ -0,0 +1,52 @@
+package com.bytedance.controller;
+
+import com.bytedance.common.Result;
+import com.bytedance.dto.PresenceBatchRequest;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.service.PresenceService;
+import com.bytedance.utils.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/presence")
+public class PresenceController {
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private MembershipCache membershipCache;
+
+    /**
+     * 批量查询在线状态（会话列表、成员面板），返回 userId -> 在线设备数，0 表示不在线
+     * URL: POST /api/presence/batch
+     * Body: {"userIds": [1001, 1002]}
+     */
+    @PostMapping("/batch")
+    public Result<Map<Long, Integer>> batch(@RequestBody PresenceBatchRequest request) {
+        if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+            return Result.success(Collections.emptyMap());
+        }
+        return Result.success(presenceService.getDeviceCounts(request.getUserIds()));
+    }
+
+    /**
+     * 会话在线成员数（只有会话成员可以查询）
+     * URL: GET /api/presence/conversations/{conversationId}/online-count
+     */
+    @GetMapping("/conversations/{conversationId}/online-count")
+    public Result<Integer> onlineCount(@PathVariable Long conversationId) {
+        Long userId = UserContext.getUserId();
+        if (userId == null) {
+            throw new RuntimeException("无法获取用户ID，请提供 userId");
+        }
+        if (!membershipCache.isMember(conversationId, userId)) {
+            throw new RuntimeException("不是会话成员");
+        }
+        return Result.success(presenceService.countOnlineMembers(conversationId));
+    }
+}
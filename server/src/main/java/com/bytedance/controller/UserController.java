@@ -3,17 +3,19 @@ package com.bytedance.controller;
 
 import com.bytedance.common.Result;
 import com.bytedance.dto.LoginRequest;
-import com.bytedance.entity.User;
 import com.bytedance.service.IUserService;
 import com.bytedance.usecase.user.LoginUserUseCase;
+import com.bytedance.vo.UserDirectoryVO;
 import com.bytedance.vo.UserVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 
 @RestController
@@ -37,18 +39,55 @@ public class UserController {
     /**
      * 获取所有用户列表
      * URL: GET /api/users/list
+     * 返回目录快照，带 ETag；请求带 If-None-Match 且目录未变化时返回 304
      */
     @GetMapping("/list")
-    public Result<List<UserVO>> getUserList() {
-        List<User> users = userService.list();
-        List<UserVO> userVOList = users.stream()
-                .map(user -> UserVO.builder()
-                        .userId(user.getUserId())
-                        .username(user.getUsername())
-                        .avatarUrl(user.getAvatarUrl())
-                        .build())
-                .collect(Collectors.toList());
-        return Result.success(userVOList);
+    public ResponseEntity<Result<List<UserVO>>> getUserList(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        UserDirectoryVO directory = userService.getDirectory(null);
+        String etag = etag(directory);
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(Result.success(directory.getUsers()));
+    }
+
+    /**
+     * 用户目录同步（快照 + 增量）
+     * URL: GET /api/users/directory?since=120
+     * 不带 since 时返回完整快照（full=true）；带 since 时只返回该版本之后变更的用户，
+     * 变更过多或 since 无效时退回完整快照。客户端保存返回的 version 作为下次的 since
+     */
+    @GetMapping("/directory")
+    public ResponseEntity<Result<UserDirectoryVO>> getDirectory(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        UserDirectoryVO directory = userService.getDirectory(since);
+        String etag = etag(directory);
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(Result.success(directory));
+    }
+
+    /**
+     * 搜索用户（替代下载整个通讯录后在本地查找）
+     * URL: GET /api/users/search?q=zhang&limit=20
+     * 匹配用户名前缀、拼音全拼/首字母前缀和用户名子串，limit 默认 20，最大 50
+     */
+    @GetMapping("/search")
+    public Result<List<UserVO>> search(@RequestParam String q,
+                                       @RequestParam(required = false) Integer limit) {
+        return Result.success(userService.searchUsers(q, limit));
+    }
+
+    /**
+     * 目录内容只由版本号决定
+     */
+    private static String etag(UserDirectoryVO directory) {
+        return "\"" + directory.getVersion() + "\"";
     }
 }
 
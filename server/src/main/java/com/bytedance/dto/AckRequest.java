@@ -0,0 +1,9 @@
+package com.bytedance.dto;
+
+import lombok.Data;
+
+@Data
+public class AckRequest {
+    private Long conversationId;
+    private Long seq; // 已读到的序列号
+}
@@ -0,0 +1,20 @@
+package com.bytedance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 实例间转发的发送请求（非归属实例 -> 会话归属实例）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForwardSendRequest {
+    private Long conversationId;
+    private Long senderId;
+    private Integer msgType;
+    private String contentJson;
+    // 发起发送的设备，归属实例推送给发送者其他设备时跳过
+    private String originDeviceId;
+}
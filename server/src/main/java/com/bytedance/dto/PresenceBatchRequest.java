@@ -0,0 +1,10 @@
+package com.bytedance.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PresenceBatchRequest {
+    private List<Long> userIds;
+}
@@ -0,0 +1,12 @@
+package com.bytedance.dto;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+
+@Data
+public class SyncAllRequest {
+    private LinkedHashMap<Long, Long> cursors; // 会话ID -> 客户端本地最大序列号，按优先级排列
+    private String continuation;               // 上次响应的续传令牌，与 cursors 二选一
+    private Long userId;                       // 可选的用户ID（当关闭登录系统时使用）
+}
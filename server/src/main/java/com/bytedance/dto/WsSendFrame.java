@@ -0,0 +1,17 @@
+package com.bytedance.dto;
+
+import lombok.Data;
+
+/**
+ * WebSocket 上行发送帧
+ * {"type":"send","clientMsgId":"...","conversationId":1,"msgType":1,"text":"..."}，content 与 text 二选一，同 SendMsgRequest
+ */
+@Data
+public class WsSendFrame {
+    private String type;
+    private String clientMsgId; // 客户端生成的消息ID，用于匹配回执和重发去重
+    private Long conversationId;
+    private Integer msgType;
+    private String content;
+    private String text;
+}
@@ -28,7 +28,11 @@ public class ConversationMember {
     @Builder.Default
     private Long lastAckSeq = 0L;
 
-    // 未读数
+    // 送达游标：已推送或补发到的序列号，重连时只补发两个游标中较大者之后的消息
+    @Builder.Default
+    private Long lastDeliveredSeq = 0L;
+
+    // 未读数（已废弃：未读数由 conversations.current_seq - last_ack_seq 计算，该列不再维护）
     @Builder.Default
     private Integer unreadCount = 0;
 
@@ -27,4 +27,7 @@ public class User {
 
     // 数据库已配置 DEFAULT CURRENT_TIMESTAMP，插入时可为 null
     private LocalDateTime createdTime;
+
+    // 最后一次变更时的目录版本号，用于通讯录增量同步
+    private Long version;
 }
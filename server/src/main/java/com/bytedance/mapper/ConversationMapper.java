@@ -3,7 +3,20 @@ package com.bytedance.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bytedance.entity.Conversation;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
 
 @Mapper
 public interface ConversationMapper extends BaseMapper<Conversation> {
+
+    // 推进会话最新序列号和摘要
+    // 只在 seq 更大时生效，并发发送乱序提交时不会把 current_seq 改小
+    @Update("UPDATE conversations SET current_seq = #{seq}, last_msg_content = #{content}, last_msg_time = #{time} " +
+            "WHERE conversation_id = #{conversationId} AND current_seq < #{seq}")
+    int updateLastMessage(@Param("conversationId") Long conversationId,
+                          @Param("seq") Long seq,
+                          @Param("content") String content,
+                          @Param("time") LocalDateTime time);
 }
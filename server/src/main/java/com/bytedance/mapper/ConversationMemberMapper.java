@@ -4,27 +4,55 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bytedance.entity.ConversationMember;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
 @Mapper
 public interface ConversationMemberMapper extends BaseMapper<ConversationMember> {
 
-    // 原子更新未读数
-    // 使用 MyBatis 的注解写原生 SQL，性能最高
-    // 逻辑：给群里除了发送者(senderId)以外的所有人，unread_count + 1
-    @Update("UPDATE conversation_members SET unread_count = unread_count + 1 " +
-            "WHERE conversation_id = #{conversationId} AND user_id != #{senderId}")
-    void incrementUnreadCount(@Param("conversationId") Long conversationId,
-                              @Param("senderId") Long senderId);
-
-    // 清除某个会话的未读消息数
-    @Update("UPDATE conversation_members SET unread_count = 0 " +
-            "WHERE conversation_id = #{conversationId} AND user_id = #{userId}")
+    // 推进已读游标（读扩散）：未读数 = conversations.current_seq - last_ack_seq
+    // 只前进不后退，且不超过会话当前序列号
+    @Update("UPDATE conversation_members cm JOIN conversations c ON c.conversation_id = cm.conversation_id " +
+            "SET cm.last_ack_seq = LEAST(#{seq}, c.current_seq) " +
+            "WHERE cm.conversation_id = #{conversationId} AND cm.user_id = #{userId} " +
+            "AND cm.last_ack_seq < LEAST(#{seq}, c.current_seq)")
+    int advanceAckSeq(@Param("conversationId") Long conversationId,
+                      @Param("userId") Long userId,
+                      @Param("seq") Long seq);
+
+    // 清除某个会话的未读消息数：把 last_ack_seq 推进到会话最新序列号
+    @Update("UPDATE conversation_members cm JOIN conversations c ON c.conversation_id = cm.conversation_id " +
+            "SET cm.last_ack_seq = c.current_seq " +
+            "WHERE cm.conversation_id = #{conversationId} AND cm.user_id = #{userId} " +
+            "AND cm.last_ack_seq < c.current_seq")
     void clearUnreadCount(@Param("conversationId") Long conversationId,
                           @Param("userId") Long userId);
 
-    // 清除用户所有会话的未读消息数
-    @Update("UPDATE conversation_members SET unread_count = 0 " +
-            "WHERE user_id = #{userId}")
+    // 清除用户所有会话的未读消息数：把每个会话的 last_ack_seq 推进到最新序列号
+    @Update("UPDATE conversation_members cm JOIN conversations c ON c.conversation_id = cm.conversation_id " +
+            "SET cm.last_ack_seq = c.current_seq " +
+            "WHERE cm.user_id = #{userId} AND cm.last_ack_seq < c.current_seq")
     void clearAllUnreadCount(@Param("userId") Long userId);
+
+    // 重连补发：有未送达消息的会话，按最新消息时间倒序
+    // 返回的 last_delivered_seq 是送达游标和已读游标中的较大者
+    @Select("SELECT cm.conversation_id, cm.user_id, " +
+            "GREATEST(cm.last_ack_seq, cm.last_delivered_seq) AS last_delivered_seq " +
+            "FROM conversation_members cm JOIN conversations c ON c.conversation_id = cm.conversation_id " +
+            "WHERE cm.user_id = #{userId} AND c.current_seq > GREATEST(cm.last_ack_seq, cm.last_delivered_seq) " +
+            "ORDER BY c.last_msg_time DESC LIMIT #{limit}")
+    List<ConversationMember> selectUndelivered(@Param("userId") Long userId, @Param("limit") int limit);
+
+    // 批量推进送达游标（只前进不后退），一条 UPDATE 合并多个 (会话, 用户)
+    @Update("<script>" +
+            "UPDATE conversation_members cm JOIN (" +
+            "<foreach collection='cursors' item='c' separator=' UNION ALL '>" +
+            "SELECT #{c.conversationId} AS conversation_id, #{c.userId} AS user_id, #{c.lastDeliveredSeq} AS seq" +
+            "</foreach>" +
+            ") d ON cm.conversation_id = d.conversation_id AND cm.user_id = d.user_id " +
+            "SET cm.last_delivered_seq = d.seq WHERE cm.last_delivered_seq &lt; d.seq" +
+            "</script>")
+    int advanceDeliveredSeqs(@Param("cursors") List<ConversationMember> cursors);
 }
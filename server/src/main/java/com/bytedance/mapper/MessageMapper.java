@@ -2,8 +2,29 @@ package com.bytedance.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bytedance.entity.Message;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface MessageMapper extends BaseMapper<Message> {
+
+    // 会话内已落库的最大序列号（走 uk_conv_seq 索引）
+    @Select("SELECT MAX(seq) FROM messages WHERE conversation_id = #{conversationId}")
+    Long selectMaxSeq(@Param("conversationId") Long conversationId);
+
+    // 多行插入（一条 INSERT 写入一批消息），回填自增 message_id
+    @Insert("<script>" +
+            "INSERT INTO messages (conversation_id, sender_id, seq, quote_id, msg_type, content, mentions, is_revoked, created_time) VALUES " +
+            "<foreach collection='list' item='m' separator=','>" +
+            "(#{m.conversationId}, #{m.senderId}, #{m.seq}, IFNULL(#{m.quoteId}, 0), #{m.msgType}, #{m.content}, " +
+            "#{m.mentions}, IFNULL(#{m.isRevoked}, 0), #{m.createdTime})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "messageId", keyColumn = "message_id")
+    int insertBatch(List<Message> messages);
 }
@@ -3,6 +3,28 @@ package com.bytedance.mapper;
 import com.bytedance.entity.User;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 @Mapper
-public interface UserMapper extends BaseMapper<User> { }
+public interface UserMapper extends BaseMapper<User> {
+
+    // 目录版本加一；行锁持有到事务提交，版本号按提交顺序递增
+    @Update("UPDATE user_directory SET version = version + 1 WHERE id = 1")
+    int incrementDirectoryVersion();
+
+    @Select("SELECT version FROM user_directory WHERE id = 1")
+    Long selectDirectoryVersion();
+
+    // 目录只需要公开字段，不读密码
+    @Select("SELECT user_id, username, avatar_url, version FROM users")
+    List<User> selectDirectory();
+
+    // 版本号大于 afterVersion 的用户（走 idx_version 索引）
+    @Select("SELECT user_id, username, avatar_url, version FROM users " +
+            "WHERE version > #{afterVersion} ORDER BY version LIMIT #{limit}")
+    List<User> selectDirectoryAfter(@Param("afterVersion") Long afterVersion, @Param("limit") int limit);
+}
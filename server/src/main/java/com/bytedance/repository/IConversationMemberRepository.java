@@ -13,11 +13,26 @@ public interface IConversationMemberRepository {
      */
     List<ConversationMember> findByConversationId(Long conversationId);
 
+    /**
+     * 根据会话ID查询所有成员的用户ID（只查 user_id 列）
+     */
+    List<Long> findUserIdsByConversationId(Long conversationId);
+
+    /**
+     * 批量查询多个会话中除指定用户外的成员（一次 IN 查询，只返回会话ID和用户ID）
+     */
+    List<ConversationMember> findOthersByConversationIds(List<Long> conversationIds, Long excludeUserId);
+
     /**
      * 根据用户ID查询用户参与的所有会话成员关系
      */
     List<ConversationMember> findByUserId(Long userId);
 
+    /**
+     * 查询用户在指定会话中的成员关系
+     */
+    List<ConversationMember> findByUserIdAndConversationIds(Long userId, List<Long> conversationIds);
+
     /**
      * 检查用户是否为会话成员
      */
@@ -34,9 +49,22 @@ public interface IConversationMemberRepository {
     void saveBatch(List<ConversationMember> members);
 
     /**
-     * 增加未读数（排除发送者）
+     * 推进已读游标 last_ack_seq（只前进，不超过会话当前序列号）
+     * @return 是否有推进
+     */
+    boolean advanceAckSeq(Long conversationId, Long userId, Long seq);
+
+    /**
+     * 查询用户有未送达消息的会话，按最新消息时间倒序
+     * 返回的 lastDeliveredSeq 为送达游标和已读游标中的较大者
+     */
+    List<ConversationMember> findUndelivered(Long userId, int limit);
+
+    /**
+     * 批量推进送达游标 last_delivered_seq（只前进）
+     * @param cursors 每项只需 conversationId、userId、lastDeliveredSeq
      */
-    void incrementUnreadCount(Long conversationId, Long senderId);
+    void advanceDeliveredSeqs(List<ConversationMember> cursors);
 
     /**
      * 根据会话ID和用户ID查询成员关系
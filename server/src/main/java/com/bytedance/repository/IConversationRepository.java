@@ -2,6 +2,7 @@ package com.bytedance.repository;
 
 import com.bytedance.entity.Conversation;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -34,6 +35,13 @@ public interface IConversationRepository {
      */
     void update(Conversation conversation);
 
+    /**
+     * 推进会话最新消息（序列号、摘要、时间）
+     * 只有 seq 大于当前 current_seq 时才会更新
+     * @return 是否更新成功
+     */
+    boolean updateLastMessage(Long conversationId, Long seq, String lastMsgContent, LocalDateTime lastMsgTime);
+
     /**
      * 根据群名和类型查询群聊列表
      * @param name 群名
@@ -0,0 +1,44 @@
+package com.bytedance.repository;
+
+import com.bytedance.entity.Conversation;
+import com.bytedance.entity.ConversationMember;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户收件箱数据访问接口
+ * 每个用户一份按（置顶，最后消息时间）排序的会话索引，写入时维护，读取时直接分页
+ */
+public interface IInboxRepository {
+    /**
+     * 检查用户收件箱是否存在（不存在时需要全量重建）
+     */
+    boolean exists(Long userId);
+
+    /**
+     * 会话有新消息或新成员加入：更新这些用户收件箱中该会话的排序时间，保留置顶状态
+     * 收件箱不存在的用户跳过，下次读取时重建
+     */
+    void touch(List<Long> userIds, Long conversationId, LocalDateTime lastMsgTime);
+
+    /**
+     * 设置/取消置顶
+     */
+    void setTop(Long userId, Long conversationId, boolean isTop);
+
+    /**
+     * 根据会话成员关系全量重建收件箱
+     */
+    void rebuild(Long userId, List<ConversationMember> memberships, Map<Long, Conversation> conversations);
+
+    /**
+     * 按排序分数倒序滚动分页
+     * @param max 本页最大分数（包含），首页传 null
+     * @param offset 跳过分数等于 max 的前 offset 个
+     * @return conversationId -> 排序分数，按分数倒序
+     */
+    LinkedHashMap<Long, Long> scroll(Long userId, Long max, int offset, int limit);
+}
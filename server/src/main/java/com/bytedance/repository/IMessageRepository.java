@@ -13,6 +13,11 @@ public interface IMessageRepository {
      */
     void save(Message message);
 
+    /**
+     * 批量保存消息（一条多行 INSERT），保存后回填 messageId
+     */
+    void saveBatch(List<Message> messages);
+
     /**
      * 根据会话ID和序列号范围查询消息
      * @param conversationId 会话ID
@@ -20,5 +25,24 @@ public interface IMessageRepository {
      * @param limit 限制数量
      */
     List<Message> findByConversationIdAndSeqAfter(Long conversationId, Long afterSeq, int limit);
+
+    /**
+     * 查询序列号小于 beforeSeq 的消息（向前翻历史），走 uk_conv_seq 倒序扫描
+     * @param beforeSeq 结束序列号（不包含）
+     * @return 按序列号降序排列
+     */
+    List<Message> findByConversationIdAndSeqBefore(Long conversationId, Long beforeSeq, int limit);
+
+    /**
+     * 查询会话内已落库的最大序列号
+     * @return 最大序列号，会话内没有消息时返回 null
+     */
+    Long findMaxSeq(Long conversationId);
+
+    /**
+     * 查询会话内序列号大于 afterSeq 的最新 limit 条消息，按序列号升序返回
+     * @param afterSeq 起始序列号（不包含）
+     */
+    List<Message> findLatestAfterSeq(Long conversationId, Long afterSeq, int limit);
 }
 
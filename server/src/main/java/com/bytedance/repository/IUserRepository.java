@@ -20,7 +20,7 @@ public interface IUserRepository {
     User findByUsername(String username);
 
     /**
-     * 保存用户
+     * 保存用户（新增或修改），同一事务内分配新的目录版本号写入 version
      */
     void save(User user);
 
@@ -33,4 +33,19 @@ public interface IUserRepository {
      * 根据ID列表批量查询用户
      */
     List<User> findByIds(List<Long> userIds);
+
+    /**
+     * 当前目录版本号（已提交）
+     */
+    long currentDirectoryVersion();
+
+    /**
+     * 全部用户的公开字段
+     */
+    List<User> findDirectory();
+
+    /**
+     * 版本号大于 afterVersion 的用户公开字段，按版本号升序
+     */
+    List<User> findDirectoryAfter(long afterVersion, int limit);
 }
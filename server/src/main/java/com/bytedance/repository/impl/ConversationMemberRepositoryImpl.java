@@ -7,7 +7,9 @@ import com.bytedance.repository.IConversationMemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 会话成员数据访问实现（MySQL）
@@ -30,6 +32,28 @@ public class ConversationMemberRepositoryImpl implements IConversationMemberRepo
         );
     }
 
+    @Override
+    public List<Long> findUserIdsByConversationId(Long conversationId) {
+        return conversationMemberMapper.selectList(
+                new LambdaQueryWrapper<ConversationMember>()
+                        .select(ConversationMember::getUserId)
+                        .eq(ConversationMember::getConversationId, conversationId)
+        ).stream().map(ConversationMember::getUserId).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ConversationMember> findOthersByConversationIds(List<Long> conversationIds, Long excludeUserId) {
+        if (conversationIds == null || conversationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return conversationMemberMapper.selectList(
+                new LambdaQueryWrapper<ConversationMember>()
+                        .select(ConversationMember::getConversationId, ConversationMember::getUserId)
+                        .in(ConversationMember::getConversationId, conversationIds)
+                        .ne(ConversationMember::getUserId, excludeUserId)
+        );
+    }
+
     @Override
     public List<ConversationMember> findByUserId(Long userId) {
         return conversationMemberMapper.selectList(
@@ -38,6 +62,18 @@ public class ConversationMemberRepositoryImpl implements IConversationMemberRepo
         );
     }
 
+    @Override
+    public List<ConversationMember> findByUserIdAndConversationIds(Long userId, List<Long> conversationIds) {
+        if (conversationIds == null || conversationIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return conversationMemberMapper.selectList(
+                new LambdaQueryWrapper<ConversationMember>()
+                        .eq(ConversationMember::getUserId, userId)
+                        .in(ConversationMember::getConversationId, conversationIds)
+        );
+    }
+
     @Override
     public boolean existsByConversationIdAndUserId(Long conversationId, Long userId) {
         Long count = conversationMemberMapper.selectCount(
@@ -65,8 +101,21 @@ public class ConversationMemberRepositoryImpl implements IConversationMemberRepo
     }
 
     @Override
-    public void incrementUnreadCount(Long conversationId, Long senderId) {
-        conversationMemberMapper.incrementUnreadCount(conversationId, senderId);
+    public boolean advanceAckSeq(Long conversationId, Long userId, Long seq) {
+        return conversationMemberMapper.advanceAckSeq(conversationId, userId, seq) > 0;
+    }
+
+    @Override
+    public List<ConversationMember> findUndelivered(Long userId, int limit) {
+        return conversationMemberMapper.selectUndelivered(userId, limit);
+    }
+
+    @Override
+    public void advanceDeliveredSeqs(List<ConversationMember> cursors) {
+        if (cursors == null || cursors.isEmpty()) {
+            return;
+        }
+        conversationMemberMapper.advanceDeliveredSeqs(cursors);
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.bytedance.repository.IConversationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -55,6 +56,11 @@ public class ConversationRepositoryImpl implements IConversationRepository {
         conversationMapper.updateById(conversation);
     }
 
+    @Override
+    public boolean updateLastMessage(Long conversationId, Long seq, String lastMsgContent, LocalDateTime lastMsgTime) {
+        return conversationMapper.updateLastMessage(conversationId, seq, lastMsgContent, lastMsgTime) > 0;
+    }
+
     @Override
     public List<Conversation> findByNameAndType(String name, Integer type) {
         return conversationMapper.selectList(
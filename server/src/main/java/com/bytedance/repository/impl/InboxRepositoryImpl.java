@@ -0,0 +1,151 @@
+package com.bytedance.repository.impl;
+
+import com.bytedance.entity.Conversation;
+import com.bytedance.entity.ConversationMember;
+import com.bytedance.repository.IInboxRepository;
+import com.bytedance.utils.RedisUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户收件箱数据访问实现（Redis ZSet）
+ * key: im:inbox:{userId}，member: conversationId，
+ * score: 置顶标记 * 2^42 + 最后消息时间（毫秒），置顶会话整体排在非置顶之前
+ */
+@Repository
+public class InboxRepositoryImpl implements IInboxRepository {
+
+    private static final String KEY_PREFIX = "im:inbox:";
+    private static final long TTL_SECONDS = 7 * 24 * 3600;
+
+    // 2^42 毫秒约 139 年，足够容纳时间戳；加上置顶位后仍在 double 可精确表示的范围内
+    private static final long TOP_WEIGHT = 1L << 42;
+
+    // 单次脚本处理的收件箱数量，避免大群一次脚本阻塞 Redis 过久
+    private static final int TOUCH_BATCH = 500;
+
+    // 只更新已存在的收件箱并续期；保留置顶位；时间只前进不后退（推送可能乱序）
+    private static final DefaultRedisScript<Long> TOUCH_SCRIPT = new DefaultRedisScript<>(
+            "local weight = tonumber(ARGV[3]) " +
+            "local base = tonumber(ARGV[2]) " +
+            "for _, key in ipairs(KEYS) do " +
+            "  if redis.call('exists', key) == 1 then " +
+            "    local score = redis.call('zscore', key, ARGV[1]) " +
+            "    local top = 0 " +
+            "    local old = -1 " +
+            "    if score then " +
+            "      score = tonumber(score) " +
+            "      if score >= weight then top = weight end " +
+            "      old = score % weight " +
+            "    end " +
+            "    if base >= old then " +
+            "      redis.call('zadd', key, string.format('%d', top + base), ARGV[1]) " +
+            "    end " +
+            "    redis.call('expire', key, ARGV[4]) " +
+            "  end " +
+            "end " +
+            "return 0",
+            Long.class);
+
+    // 会话不在收件箱中时不处理（收件箱不存在或尚未加入，读取时重建会带上置顶状态）
+    private static final DefaultRedisScript<Long> SET_TOP_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('zscore', KEYS[1], ARGV[1]) " +
+            "if not score then return 0 end " +
+            "local base = tonumber(score) % tonumber(ARGV[3]) " +
+            "redis.call('zadd', KEYS[1], string.format('%d', base + tonumber(ARGV[2])), ARGV[1]) " +
+            "return 1",
+            Long.class);
+
+    private final RedisUtils redisUtils;
+
+    @Autowired
+    public InboxRepositoryImpl(RedisUtils redisUtils) {
+        this.redisUtils = redisUtils;
+    }
+
+    @Override
+    public boolean exists(Long userId) {
+        return redisUtils.hasKey(KEY_PREFIX + userId);
+    }
+
+    @Override
+    public void touch(List<Long> userIds, Long conversationId, LocalDateTime lastMsgTime) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        String base = String.valueOf(toMillis(lastMsgTime));
+        for (int from = 0; from < userIds.size(); from += TOUCH_BATCH) {
+            List<String> keys = new ArrayList<>();
+            for (Long userId : userIds.subList(from, Math.min(from + TOUCH_BATCH, userIds.size()))) {
+                keys.add(KEY_PREFIX + userId);
+            }
+            redisUtils.execute(TOUCH_SCRIPT, keys, conversationId.toString(), base, String.valueOf(TOP_WEIGHT),
+                    String.valueOf(TTL_SECONDS));
+        }
+    }
+
+    @Override
+    public void setTop(Long userId, Long conversationId, boolean isTop) {
+        redisUtils.execute(SET_TOP_SCRIPT, KEY_PREFIX + userId, conversationId.toString(),
+                String.valueOf(isTop ? TOP_WEIGHT : 0), String.valueOf(TOP_WEIGHT));
+    }
+
+    @Override
+    public void rebuild(Long userId, List<ConversationMember> memberships, Map<Long, Conversation> conversations) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (ConversationMember member : memberships) {
+            Conversation conv = conversations.get(member.getConversationId());
+            if (conv == null) {
+                continue;
+            }
+            long score = toMillis(conv.getLastMsgTime());
+            if (Boolean.TRUE.equals(member.getIsTop())) {
+                score += TOP_WEIGHT;
+            }
+            tuples.add(new DefaultTypedTuple<>(conv.getConversationId().toString(), (double) score));
+        }
+        // 空集合无法写入 ZSet，没有会话的用户每次走全量查询，代价很小
+        if (tuples.isEmpty()) {
+            return;
+        }
+        String key = KEY_PREFIX + userId;
+        redisUtils.zAdd(key, tuples);
+        redisUtils.expire(key, TTL_SECONDS);
+    }
+
+    @Override
+    public LinkedHashMap<Long, Long> scroll(Long userId, Long max, int offset, int limit) {
+        double maxScore = max == null ? Double.MAX_VALUE : max;
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisUtils.zReverseRangeByScoreWithScores(
+                KEY_PREFIX + userId, maxScore, offset, limit);
+
+        LinkedHashMap<Long, Long> page = new LinkedHashMap<>();
+        if (tuples == null) {
+            return page;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() == null || tuple.getScore() == null) {
+                continue;
+            }
+            page.put(Long.valueOf(tuple.getValue()), tuple.getScore().longValue());
+        }
+        return page;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        // 没有消息的会话排在最后，与全量列表的排序一致
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
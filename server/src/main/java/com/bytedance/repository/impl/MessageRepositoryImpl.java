@@ -7,6 +7,7 @@ import com.bytedance.repository.IMessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -31,6 +32,14 @@ public class MessageRepositoryImpl implements IMessageRepository {
         }
     }
 
+    @Override
+    public void saveBatch(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        messageMapper.insertBatch(messages);
+    }
+
     @Override
     public List<Message> findByConversationIdAndSeqAfter(Long conversationId, Long afterSeq, int limit) {
         return messageMapper.selectList(
@@ -41,5 +50,34 @@ public class MessageRepositoryImpl implements IMessageRepository {
                         .last("LIMIT " + limit)
         );
     }
+
+    @Override
+    public List<Message> findByConversationIdAndSeqBefore(Long conversationId, Long beforeSeq, int limit) {
+        return messageMapper.selectList(
+                new LambdaQueryWrapper<Message>()
+                        .eq(Message::getConversationId, conversationId)
+                        .lt(Message::getSeq, beforeSeq)
+                        .orderByDesc(Message::getSeq)
+                        .last("LIMIT " + limit)
+        );
+    }
+
+    @Override
+    public Long findMaxSeq(Long conversationId) {
+        return messageMapper.selectMaxSeq(conversationId);
+    }
+
+    @Override
+    public List<Message> findLatestAfterSeq(Long conversationId, Long afterSeq, int limit) {
+        List<Message> messages = messageMapper.selectList(
+                new LambdaQueryWrapper<Message>()
+                        .eq(Message::getConversationId, conversationId)
+                        .gt(Message::getSeq, afterSeq)
+                        .orderByDesc(Message::getSeq)
+                        .last("LIMIT " + limit)
+        );
+        Collections.reverse(messages);
+        return messages;
+    }
 }
 
@@ -6,6 +6,7 @@ import com.bytedance.mapper.UserMapper;
 import com.bytedance.repository.IUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -36,7 +37,10 @@ public class UserRepositoryImpl implements IUserRepository {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void save(User user) {
+        // 新增和修改都分配新的目录版本号，增量同步才能拿到变更
+        user.setVersion(nextDirectoryVersion());
         if (user.getUserId() == null) {
             userMapper.insert(user);
         } else {
@@ -57,5 +61,29 @@ public class UserRepositoryImpl implements IUserRepository {
     public List<User> findByIds(List<Long> userIds) {
         return userMapper.selectBatchIds(userIds);
     }
+
+    /**
+     * 分配下一个目录版本号，与写用户在同一事务中（行锁保证提交顺序与版本号顺序一致）
+     */
+    private long nextDirectoryVersion() {
+        userMapper.incrementDirectoryVersion();
+        return currentDirectoryVersion();
+    }
+
+    @Override
+    public long currentDirectoryVersion() {
+        Long version = userMapper.selectDirectoryVersion();
+        return version == null ? 0 : version;
+    }
+
+    @Override
+    public List<User> findDirectory() {
+        return userMapper.selectDirectory();
+    }
+
+    @Override
+    public List<User> findDirectoryAfter(long afterVersion, int limit) {
+        return userMapper.selectDirectoryAfter(afterVersion, limit);
+    }
 }
 
@@ -0,0 +1,57 @@
+package com.bytedance.service;
+
+import com.bytedance.entity.Message;
+
+import java.util.List;
+
+/**
+ * 二进制下发编码（WebSocket 二进制帧、同步接口 application/x-msgpack）
+ *
+ * 消息按固定下标编码为数组，不携带字段名：
+ * [messageId, conversationId, senderId, seq, msgType, content, createdTime(毫秒), quoteId, mentions, isRevoked]
+ * 空值编码为 nil；新增字段只能追加在末尾，客户端忽略不认识的尾部字段
+ *
+ * 推送帧为 [帧类型, 帧内容]，合帧时帧内容为消息数组的数组
+ */
+public interface BinaryMessageCodec {
+
+    /**
+     * 帧类型：单条消息，帧内容为消息数组
+     */
+    int FRAME_MESSAGE = 1;
+
+    /**
+     * 帧类型：多条消息（合帧），帧内容为消息数组的数组
+     */
+    int FRAME_BATCH = 2;
+
+    /**
+     * 编码单条消息的推送帧
+     */
+    byte[] encodePush(Message message);
+
+    /**
+     * 解码推送帧中的消息
+     */
+    Message decodePush(byte[] frame);
+
+    /**
+     * 把多条已编码的单条消息推送帧合并为一个合帧，不重新编码消息
+     */
+    byte[] encodeBatch(List<byte[]> pushFrames);
+
+    /**
+     * 解码推送帧中的全部消息，单条消息帧和合帧均可
+     */
+    List<Message> decodeFrame(byte[] frame);
+
+    /**
+     * 编码消息列表（同步接口），外层为数组
+     */
+    byte[] encodeMessages(List<Message> messages);
+
+    /**
+     * 解码消息列表
+     */
+    List<Message> decodeMessages(byte[] payload);
+}
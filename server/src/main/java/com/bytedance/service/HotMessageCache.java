@@ -0,0 +1,29 @@
+package com.bytedance.service;
+
+import com.bytedance.entity.Message;
+
+import java.util.List;
+
+/**
+ * 热点会话最近消息缓存
+ * 同步请求大多只要活跃会话最近的几十条消息，写入时顺带缓存，命中时不再查库
+ */
+public interface HotMessageCache {
+
+    /**
+     * 缓存新写入的消息：当前线程有事务时在提交后写入，并通知其他实例
+     */
+    void append(Message message);
+
+    /**
+     * 批量写入时使用，只发送一次通知
+     */
+    void appendAll(List<Message> messages);
+
+    /**
+     * 查询 seq > afterSeq 的消息（升序，最多 limit 条）
+     * 缓存不能确定该区间完整时返回 null，由调用方查库
+     * 返回的消息对象由缓存共享，调用方不能修改
+     */
+    List<Message> findAfter(Long conversationId, Long afterSeq, int limit);
+}
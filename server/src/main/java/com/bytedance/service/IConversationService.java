@@ -1,6 +1,7 @@
 package com.bytedance.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.bytedance.dto.ScrollResult;
 import com.bytedance.vo.ConversationVO;
 import com.bytedance.entity.Conversation;
 
@@ -13,6 +14,9 @@ public interface IConversationService extends IService<Conversation> {
     // 获取用户的会话列表
     List<ConversationVO> getConversationList(Long userId);
 
+    // 滚动分页获取用户的会话列表（读收件箱）
+    ScrollResult getConversationPage(Long userId, Long max, Integer offset, Integer limit);
+
     //添加会话成员
     void addMembers(Long conversationId, List<Long> targetUserIds, Long inviterId);
 
@@ -38,6 +42,14 @@ public interface IConversationService extends IService<Conversation> {
      */
     void clearAllUnreadCount(Long userId);
 
+    /**
+     * 确认已读到指定序列号（只前进不后退）
+     * @param conversationId 会话ID
+     * @param userId 用户ID
+     * @param seq 已读到的序列号
+     */
+    void ackConversation(Long conversationId, Long userId, Long seq);
+
     void setConversationTop(Long conversationId, Long userId, boolean isTop);
 
     /**
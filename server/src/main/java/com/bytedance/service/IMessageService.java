@@ -2,8 +2,11 @@ package com.bytedance.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.bytedance.entity.Message;
+import com.bytedance.vo.HistoryPageVO;
+import com.bytedance.vo.SyncAllVO;
 
 import java.util.List;
+import java.util.Map;
 
 public interface IMessageService extends IService<Message> {
     /**
@@ -18,6 +21,15 @@ public interface IMessageService extends IService<Message> {
     // 通用发送接口
     Message sendMessage(Long conversationId, Long senderId, Integer msgType, String contentJson);
 
+    // 通用发送接口，originDeviceId 为发起发送的设备（WebSocket 上行），推送给发送者的其他设备时跳过它
+    Message sendMessage(Long conversationId, Long senderId, Integer msgType, String contentJson, String originDeviceId);
+
     // 拉取历史消息
     List<Message> syncMessages(Long conversationId, Long afterSeq);
+
+    // 多会话增量同步（重连时一次拉取多个会话），continuation 为上次返回的续传令牌
+    SyncAllVO syncAll(Long userId, Map<Long, Long> cursors, String continuation);
+
+    // 历史消息键集分页：beforeSeq 向前、afterSeq 向后、aroundSeq 取锚点前后，都不传时取最新一页
+    HistoryPageVO getHistory(Long userId, Long conversationId, Long beforeSeq, Long afterSeq, Long aroundSeq, Integer limit);
 }
@@ -4,8 +4,18 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.bytedance.dto.RegisterRequest;
 import com.bytedance.entity.User;
 import com.bytedance.usecase.user.LoginUserUseCase;
+import com.bytedance.vo.UserDirectoryVO;
+import com.bytedance.vo.UserVO;
+
+import java.util.List;
 
 public interface IUserService extends IService<User> {
     void register(RegisterRequest request);
     LoginUserUseCase.LoginResult login(String username, String password);
+
+    // 用户目录同步：since 为空时返回完整快照，否则返回该版本之后的变更
+    UserDirectoryVO getDirectory(Long since);
+
+    // 按用户名、拼音前缀或子串搜索用户
+    List<UserVO> searchUsers(String query, Integer limit);
 }
@@ -0,0 +1,24 @@
+package com.bytedance.service;
+
+/**
+ * 会话成员缓存
+ * 发送校验和推送扇出都需要成员列表，而成员变化很少，按会话缓存在本地
+ */
+public interface MembershipCache {
+
+    /**
+     * 判断用户是否为会话成员
+     */
+    boolean isMember(Long conversationId, Long userId);
+
+    /**
+     * 获取会话的全部成员ID（升序）
+     * 返回的数组是缓存内部状态，调用方不能修改
+     */
+    long[] getMemberIds(Long conversationId);
+
+    /**
+     * 成员变化后调用：当前线程有事务时在提交后失效，并通知其他实例
+     */
+    void invalidate(Long conversationId);
+}
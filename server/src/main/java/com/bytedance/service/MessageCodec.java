@@ -0,0 +1,47 @@
+package com.bytedance.service;
+
+import com.bytedance.entity.Message;
+
+import java.util.List;
+
+/**
+ * 消息/实体的 JSON 编解码
+ * 推送、补发、会话摘要、用户缓存等热路径统一使用，输出格式与原 Hutool JSONUtil 保持一致：
+ * 时间字段为毫秒时间戳，null 字段不输出
+ */
+public interface MessageCodec {
+
+    /**
+     * 序列化为 JSON 字符串
+     */
+    String encode(Object value);
+
+    /**
+     * 编码下发给客户端的消息（推送帧、重连补发）
+     * 按 im.wire.raw-content 决定 content / mentions 原样内嵌还是作为字符串下发
+     */
+    String encodeMessage(Message message);
+
+    /**
+     * 把多条已编码的推送帧合并为一个 JSON 数组帧（合帧），不重新编码
+     */
+    String encodeBatch(List<String> pushFrames);
+
+    /**
+     * 反序列化，未知字段忽略
+     */
+    <T> T decode(String json, Class<T> type);
+
+    /**
+     * 读取消息内容中的 text 字段（生成会话摘要用），不解析其余字段
+     * @return text 的值，不存在时返回 null
+     * @throws RuntimeException 内容不是合法的 JSON 对象时抛出
+     */
+    String readText(String contentJson);
+
+    /**
+     * 校验是否为单个合法的 JSON 值（流式扫描，不构建对象）
+     * @throws RuntimeException 不合法时抛出
+     */
+    void checkJson(String json);
+}
@@ -0,0 +1,22 @@
+package com.bytedance.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 在线状态查询
+ * 在线状态由 WebSocket 连接维护（见 WebSocketServer），这里只读
+ */
+public interface PresenceService {
+
+    /**
+     * 批量查询用户在线的设备数（所有实例合计），0 表示不在线
+     * @return 与请求顺序一致的 userId -> 设备数
+     */
+    Map<Long, Integer> getDeviceCounts(Collection<Long> userIds);
+
+    /**
+     * 会话中在线的成员数
+     */
+    int countOnlineMembers(Long conversationId);
+}
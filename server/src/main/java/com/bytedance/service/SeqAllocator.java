@@ -0,0 +1,23 @@
+package com.bytedance.service;
+
+/**
+ * 会话内序列号分配器
+ * 为每个会话分配单调递增的 seq，避免发送时对会话行加锁
+ * messages 表上的 uk_conv_seq 唯一索引仍然是最后的兜底
+ */
+public interface SeqAllocator {
+
+    /**
+     * 为会话分配下一个序列号
+     * @param conversationId 会话ID
+     * @return 新的序列号
+     * @throws RuntimeException 会话不存在时抛出
+     */
+    long next(Long conversationId);
+
+    /**
+     * 丢弃该会话已缓存的分配状态，下次分配时重新从数据库校准
+     * 写入消息触发 uk_conv_seq 冲突时调用
+     */
+    void reset(Long conversationId);
+}
@@ -0,0 +1,24 @@
+package com.bytedance.service;
+
+import com.bytedance.entity.User;
+import com.bytedance.vo.UserVO;
+
+import java.util.List;
+
+/**
+ * 用户搜索索引
+ * 按用户名前缀、拼音（全拼/首字母）前缀和子串匹配，客户端不必下载整个通讯录再在本地查找
+ */
+public interface UserSearchIndex {
+
+    /**
+     * 搜索用户，按 完全匹配 > 用户名前缀 > 拼音前缀 > 子串 排序
+     * @param limit 返回条数，为空时使用默认值
+     */
+    List<UserVO> search(String query, Integer limit);
+
+    /**
+     * 用户新增或变更后调用：当前线程有事务时在提交后更新
+     */
+    void upsert(User user);
+}
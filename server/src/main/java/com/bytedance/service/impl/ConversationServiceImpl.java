@@ -2,12 +2,14 @@ package com.bytedance.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.bytedance.dto.ScrollResult;
 import com.bytedance.entity.Conversation;
 import com.bytedance.entity.ConversationMember;
 import com.bytedance.mapper.ConversationMapper;
 import com.bytedance.mapper.ConversationMemberMapper;
 import com.bytedance.repository.IConversationMemberRepository;
 import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IInboxRepository;
 import com.bytedance.service.IConversationService;
 import com.bytedance.usecase.conversation.AddMembersUseCase;
 import com.bytedance.usecase.conversation.CreateConversationUseCase;
@@ -38,6 +40,7 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
     private final IConversationRepository conversationRepository;
     private final IConversationMemberRepository conversationMemberRepository;
     private final ConversationMemberMapper conversationMemberMapper;
+    private final IInboxRepository inboxRepository;
 
     @Autowired
     public ConversationServiceImpl(CreateConversationUseCase createConversationUseCase,
@@ -45,13 +48,15 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
                                   AddMembersUseCase addMembersUseCase,
                                   IConversationRepository conversationRepository,
                                   IConversationMemberRepository conversationMemberRepository,
-                                  ConversationMemberMapper conversationMemberMapper) {
+                                  ConversationMemberMapper conversationMemberMapper,
+                                  IInboxRepository inboxRepository) {
         this.createConversationUseCase = createConversationUseCase;
         this.getConversationListUseCase = getConversationListUseCase;
         this.addMembersUseCase = addMembersUseCase;
         this.conversationRepository = conversationRepository;
         this.conversationMemberRepository = conversationMemberRepository;
         this.conversationMemberMapper = conversationMemberMapper;
+        this.inboxRepository = inboxRepository;
     }
 
     @Autowired
@@ -82,6 +87,11 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         return getConversationListUseCase.execute(userId);
     }
 
+    @Override
+    public ScrollResult getConversationPage(Long userId, Long max, Integer offset, Integer limit) {
+        return getConversationListUseCase.scroll(userId, max, offset, limit);
+    }
+
     @Override
     public void addMembers(Long conversationId, List<Long> targetUserIds, Long inviterId) {
         addMembersUseCase.execute(conversationId, targetUserIds, inviterId);
@@ -159,6 +169,14 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
         conversationMemberMapper.clearAllUnreadCount(userId);
     }
 
+    @Override
+    public void ackConversation(Long conversationId, Long userId, Long seq) {
+        if (conversationId == null || seq == null || seq < 0) {
+            throw new RuntimeException("参数错误");
+        }
+        conversationMemberRepository.advanceAckSeq(conversationId, userId, seq);
+    }
+
     @Override
     public void setConversationTop(Long conversationId, Long userId, boolean isTop) {
         // 使用 MyBatis-Plus 的 UpdateWrapper 直接更新字段
@@ -169,6 +187,8 @@ public class ConversationServiceImpl extends ServiceImpl<ConversationMapper, Con
                         .eq(ConversationMember::getUserId, userId)
                         .set(ConversationMember::getIsTop, isTop) // 更新 isTop 字段
         );
+        // 同步收件箱中的排序
+        inboxRepository.setTop(userId, conversationId, isTop);
     }
 
     @Override
@@ -0,0 +1,39 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.entity.Conversation;
+import com.bytedance.repository.IConversationRepository;
+import com.bytedance.service.SeqAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 行锁序列号分配器（原有实现）
+ * 通过 SELECT ... FOR UPDATE 锁住会话行计算 currentSeq + 1，锁持有到事务提交
+ * 必须在调用方的事务内使用
+ */
+@Component
+@ConditionalOnProperty(prefix = "im.seq", name = "allocator", havingValue = "db", matchIfMissing = true)
+public class DbLockSeqAllocator implements SeqAllocator {
+
+    private final IConversationRepository conversationRepository;
+
+    @Autowired
+    public DbLockSeqAllocator(IConversationRepository conversationRepository) {
+        this.conversationRepository = conversationRepository;
+    }
+
+    @Override
+    public long next(Long conversationId) {
+        Conversation conversation = conversationRepository.findByIdForUpdate(conversationId);
+        if (conversation == null) {
+            throw new RuntimeException("会话不存在");
+        }
+        return conversation.getCurrentSeq() + 1;
+    }
+
+    @Override
+    public void reset(Long conversationId) {
+        // 每次都从数据库读取，无需重置
+    }
+}
@@ -0,0 +1,172 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.config.WireConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.vo.MessageVO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 基于 Jackson 的编解码实现
+ * ObjectMapper 只在这里使用，不注册为 Bean，不影响 Spring MVC 的接口返回格式
+ */
+@Component
+public class JacksonMessageCodec implements MessageCodec {
+
+    private static final DateTimeFormatter NORM_DATETIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final WireConfig wireConfig;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final JsonFactory jsonFactory;
+    // 按类型复用 ObjectReader，避免每次解析都查找反序列化器
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * 使用默认下发配置（content 作为字符串）
+     */
+    public JacksonMessageCodec() {
+        this(new WireConfig());
+    }
+
+    @Autowired
+    public JacksonMessageCodec(WireConfig wireConfig) {
+        this.wireConfig = wireConfig;
+        SimpleModule timeModule = new SimpleModule()
+                .addSerializer(LocalDateTime.class, new EpochMillisSerializer())
+                .addDeserializer(LocalDateTime.class, new EpochMillisDeserializer());
+        objectMapper = JsonMapper.builder()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .addModule(timeModule)
+                .build();
+        writer = objectMapper.writer();
+        jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    public String encode(Object value) {
+        try {
+            return writer.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("JSON 序列化失败", e);
+        }
+    }
+
+    @Override
+    public String encodeMessage(Message message) {
+        return encode(wireConfig.isRawContent() ? MessageVO.from(message) : message);
+    }
+
+    @Override
+    public String encodeBatch(List<String> pushFrames) {
+        return "[" + String.join(",", pushFrames) + "]";
+    }
+
+    @Override
+    public <T> T decode(String json, Class<T> type) {
+        try {
+            return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(json);
+        } catch (IOException e) {
+            throw new RuntimeException("JSON 解析失败", e);
+        }
+    }
+
+    @Override
+    public String readText(String contentJson) {
+        // 流式读取顶层字段，找到 text 即返回，不构建整棵树
+        try (JsonParser parser = jsonFactory.createParser(contentJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new RuntimeException("消息内容不是合法的 JSON 对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("text".equals(name)) {
+                    return value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("消息内容不是合法的 JSON 对象", e);
+        }
+    }
+
+    @Override
+    public void checkJson(String json) {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() == null) {
+                throw new RuntimeException("消息内容不是合法的 JSON");
+            }
+            parser.skipChildren();
+            if (parser.nextToken() != null) {
+                throw new RuntimeException("消息内容不是合法的 JSON");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("消息内容不是合法的 JSON", e);
+        }
+    }
+
+    /**
+     * LocalDateTime 输出为毫秒时间戳（系统时区），与 Hutool 一致，客户端无需改动
+     */
+    private static final class EpochMillisSerializer extends JsonSerializer<LocalDateTime> {
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+
+    /**
+     * 兼容毫秒时间戳、ISO 格式和 yyyy-MM-dd HH:mm:ss（旧缓存数据）
+     */
+    private static final class EpochMillisDeserializer extends JsonDeserializer<LocalDateTime> {
+        @Override
+        public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+                return ofEpochMilli(parser.getLongValue());
+            }
+            String text = parser.getValueAsString();
+            if (text == null || text.isEmpty()) {
+                return null;
+            }
+            if (text.chars().allMatch(Character::isDigit)) {
+                return ofEpochMilli(Long.parseLong(text));
+            }
+            return text.indexOf('T') > 0 ? LocalDateTime.parse(text) : LocalDateTime.parse(text, NORM_DATETIME);
+        }
+
+        private static LocalDateTime ofEpochMilli(long millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.config.HotMessageCacheConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.HotMessageCache;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点会话最近消息本地缓存
+ * 每个会话一个环形缓冲区，保存最近 capacity 条 seq 连续的消息，并记录下界 floorSeq：
+ * seq > floorSeq 的已提交消息都在缓冲区内，afterSeq >= floorSeq 的同步请求可以直接命中。
+ * 会话之间按估算内存做 LRU 淘汰。
+ *
+ * 其他实例写入的消息不在本地缓冲区内：写入后通过 Redis 频道广播 "conversationId:seq"，
+ * 收到通知的实例发现自己的缓冲区缺这一条时丢弃该会话，下次同步回源数据库；
+ * 通知到达之前本实例再写入时，seq 不连续也会让缓冲区重新开始，不会返回跳过消息的结果。
+ * 通知是 Pub/Sub，可能丢失：缓冲区超过 revalidateMs 没有本地写入或校验时，读取前先查库比对已提交的最大序列号，
+ * 丢失通知后返回缺少末尾消息的结果最多持续 revalidateMs
+ */
+@Slf4j
+@Component
+public class LocalHotMessageCache implements HotMessageCache, MessageListener {
+
+    private static final String CHANNEL_APPEND = "im:hot-messages:append";
+
+    // 分段加锁，降低读写竞争
+    private static final int STRIPES = 32;
+
+    // 单条消息除内容字符串外的估算开销（对象头、包装类型字段、时间、字符串头）
+    private static final long MESSAGE_OVERHEAD_BYTES = 200;
+
+    // 单个缓冲区除消息外的估算开销（对象头、数组头、Long 键、链表节点）
+    private static final long RING_OVERHEAD_BYTES = 128;
+
+    private static final int INITIAL_RING_SIZE = 8;
+
+    private final HotMessageCacheConfig config;
+    private final RedisUtils redisUtils;
+    private final IMessageRepository messageRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private Counter hitCount;
+    private Counter missCount;
+    private Counter evictionCount;
+
+    @Autowired
+    public LocalHotMessageCache(HotMessageCacheConfig config,
+                                RedisUtils redisUtils,
+                                IMessageRepository messageRepository,
+                                RedisMessageListenerContainer listenerContainer,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        this.redisUtils = redisUtils;
+        this.messageRepository = messageRepository;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        long stripeBytes = Math.max(1, config.getMaxBytes() / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeBytes);
+        }
+
+        hitCount = Counter.builder("im.hot-messages.requests").tag("result", "hit")
+                .description("最近消息缓存命中次数")
+                .register(meterRegistry);
+        missCount = Counter.builder("im.hot-messages.requests").tag("result", "miss")
+                .description("最近消息缓存未命中次数")
+                .register(meterRegistry);
+        evictionCount = Counter.builder("im.hot-messages.evictions")
+                .description("超过内存上限或缺少其他实例写入而被丢弃的会话数")
+                .register(meterRegistry);
+        Gauge.builder("im.hot-messages.size", this, LocalHotMessageCache::size)
+                .description("缓存的会话数")
+                .register(meterRegistry);
+        Gauge.builder("im.hot-messages.bytes", this, LocalHotMessageCache::estimatedBytes)
+                .description("缓存估算占用内存（字节）")
+                .register(meterRegistry);
+
+        if (config.isEnabled()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_APPEND));
+        }
+    }
+
+    @Override
+    public void append(Message message) {
+        appendAll(Collections.singletonList(message));
+    }
+
+    @Override
+    public void appendAll(List<Message> messages) {
+        if (!config.isEnabled() || messages.isEmpty()) {
+            return;
+        }
+        // 回滚的消息不能进入缓存，提交前其他线程也不应读到
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    appendAndPublish(messages);
+                }
+            });
+        } else {
+            appendAndPublish(messages);
+        }
+    }
+
+    @Override
+    public List<Message> findAfter(Long conversationId, Long afterSeq, int limit) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Stripe stripe = stripe(conversationId);
+        revalidate(stripe, conversationId);
+        List<Message> messages = stripe.findAfter(conversationId, afterSeq, limit);
+        if (messages != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return messages;
+    }
+
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        // 格式：conversationId:seq,conversationId:seq,...
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        for (String item : body.split(",")) {
+            int sep = item.indexOf(':');
+            try {
+                Long conversationId = Long.valueOf(item.substring(0, sep));
+                long seq = Long.parseLong(item.substring(sep + 1));
+                if (stripe(conversationId).removeIfMissing(conversationId, seq)) {
+                    evictionCount.increment();
+                }
+            } catch (RuntimeException e) {
+                log.warn("无效的最近消息缓存通知: {}", item);
+            }
+        }
+    }
+
+    /**
+     * 缓冲区超过 revalidateMs 未校验时查库比对已提交的最大序列号，缺少末尾消息则丢弃该会话
+     * 同一个缓冲区每个周期只由一个读取方查库，查库期间其他读取方仍按现有内容返回
+     */
+    private void revalidate(Stripe stripe, Long conversationId) {
+        long now = System.currentTimeMillis();
+        Long tailSeq = stripe.claimRevalidation(conversationId, now - config.getRevalidateMs(), now);
+        if (tailSeq == null) {
+            return;
+        }
+        Long committedSeq;
+        try {
+            committedSeq = messageRepository.findMaxSeq(conversationId);
+        } catch (Exception e) {
+            // 无法确认完整性时不使用缓存
+            log.warn("最近消息缓存校验失败: conversationId={}", conversationId, e);
+            committedSeq = Long.MAX_VALUE;
+        }
+        if (committedSeq != null && stripe.removeIfMissing(conversationId, committedSeq)) {
+            evictionCount.increment();
+        }
+    }
+
+    private void appendAndPublish(List<Message> messages) {
+        int capacity = Math.max(1, config.getCapacity());
+        StringBuilder body = new StringBuilder();
+        for (Message message : messages) {
+            Long conversationId = message.getConversationId();
+            evictionCount.increment(stripe(conversationId).append(conversationId, message, capacity));
+            if (body.length() > 0) {
+                body.append(',');
+            }
+            body.append(conversationId).append(':').append(message.getSeq());
+        }
+        try {
+            redisUtils.publish(CHANNEL_APPEND, body.toString());
+        } catch (Exception e) {
+            // 其他实例收不到通知时可能返回缺少这些消息的结果，客户端收到推送后会再次同步
+            log.error("最近消息缓存通知发送失败: {}", body, e);
+        }
+    }
+
+    private Stripe stripe(Long conversationId) {
+        return stripes[Long.hashCode(conversationId) & (STRIPES - 1)];
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    long estimatedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.bytes();
+        }
+        return bytes;
+    }
+
+    private static long weigh(Message message) {
+        long bytes = MESSAGE_OVERHEAD_BYTES;
+        if (message.getContent() != null) {
+            bytes += 2L * message.getContent().length();
+        }
+        if (message.getMentions() != null) {
+            bytes += 2L * message.getMentions().length();
+        }
+        return bytes;
+    }
+
+    /**
+     * 单个会话的环形缓冲区，保存 seq 连续的 (floorSeq, floorSeq + size] 区间
+     * 写入的 seq 不紧接在末尾时（回滚或冲突留下的空洞、其他实例写入的消息、提交顺序与 seq 顺序不同），
+     * 无法确定中间是否还有消息，丢弃已缓存的内容，从这一条重新开始
+     */
+    private static final class Ring {
+        private Message[] items = new Message[INITIAL_RING_SIZE];
+        private int head;
+        private int size;
+        private long floorSeq;
+        private long bytes;
+        // 最近一次本地写入或查库校验的时间
+        private long validatedAt;
+
+        Ring(long floorSeq) {
+            this.floorSeq = floorSeq;
+            this.validatedAt = System.currentTimeMillis();
+            this.bytes = RING_OVERHEAD_BYTES + 4L * items.length;
+        }
+
+        void append(Message message, int capacity) {
+            long seq = message.getSeq();
+            if (seq <= floorSeq + size) {
+                // 已缓存，或早于缓存区间
+                return;
+            }
+            if (seq != floorSeq + size + 1) {
+                clear();
+                floorSeq = seq - 1;
+            }
+            if (size >= capacity) {
+                Message oldest = items[head];
+                items[head] = null;
+                head = (head + 1) & (items.length - 1);
+                size--;
+                floorSeq++;
+                bytes -= weigh(oldest);
+                if (size >= capacity) {
+                    return;
+                }
+            }
+            if (size == items.length) {
+                grow();
+            }
+            items[(head + size) & (items.length - 1)] = message;
+            size++;
+            bytes += weigh(message);
+            validatedAt = System.currentTimeMillis();
+        }
+
+        long tailSeq() {
+            return floorSeq + size;
+        }
+
+        /**
+         * seq > afterSeq 的消息，区间不完整时返回 null
+         */
+        List<Message> findAfter(long afterSeq, int limit) {
+            if (afterSeq < floorSeq) {
+                return null;
+            }
+            long from = afterSeq - floorSeq;
+            int count = (int) Math.max(0, Math.min(limit, size - from));
+            List<Message> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                messages.add(items[(head + (int) from + i) & (items.length - 1)]);
+            }
+            return messages;
+        }
+
+        /**
+         * 该 seq 的消息是否已经在缓冲区内（或早于缓存区间，不影响完整性）
+         */
+        boolean covers(long seq) {
+            return seq <= tailSeq();
+        }
+
+        private void clear() {
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) & (items.length - 1);
+                bytes -= weigh(items[index]);
+                items[index] = null;
+            }
+            head = 0;
+            size = 0;
+        }
+
+        private void grow() {
+            Message[] grown = new Message[items.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = items[(head + i) & (items.length - 1)];
+            }
+            bytes += 4L * (grown.length - items.length);
+            items = grown;
+            head = 0;
+        }
+    }
+
+    /**
+     * 一段 LRU（访问顺序的 LinkedHashMap），按估算字节数淘汰整个会话
+     */
+    private static final class Stripe {
+        private final long maxBytes;
+        private final LinkedHashMap<Long, Ring> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized List<Message> findAfter(Long conversationId, long afterSeq, int limit) {
+            Ring ring = map.get(conversationId);
+            return ring == null ? null : ring.findAfter(afterSeq, limit);
+        }
+
+        /**
+         * @return 被淘汰的会话数
+         */
+        synchronized int append(Long conversationId, Message message, int capacity) {
+            Ring ring = map.get(conversationId);
+            if (ring == null) {
+                // 新建时之前的消息都不在缓冲区内，下界取这条的前一个 seq
+                ring = new Ring(message.getSeq() - 1);
+                map.put(conversationId, ring);
+                bytes += ring.bytes;
+            }
+            long before = ring.bytes;
+            ring.append(message, capacity);
+            bytes += ring.bytes - before;
+
+            int evicted = 0;
+            Iterator<Map.Entry<Long, Ring>> it = map.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Long, Ring> eldest = it.next();
+                if (eldest.getKey().equals(conversationId)) {
+                    continue;
+                }
+                bytes -= eldest.getValue().bytes;
+                it.remove();
+                evicted++;
+            }
+            // 单个会话超过整段上限，不缓存
+            if (bytes > maxBytes) {
+                map.remove(conversationId);
+                bytes -= ring.bytes;
+                evicted++;
+            }
+            return evicted;
+        }
+
+        /**
+         * 缓冲区在 staleBefore 之前校验过时，标记为本次校验并返回末尾序列号，否则返回 null
+         */
+        synchronized Long claimRevalidation(Long conversationId, long staleBefore, long now) {
+            Ring ring = map.get(conversationId);
+            if (ring == null || ring.validatedAt > staleBefore) {
+                return null;
+            }
+            ring.validatedAt = now;
+            return ring.tailSeq();
+        }
+
+        /**
+         * 缓冲区缺少这条消息时丢弃该会话
+         * @return 是否丢弃
+         */
+        synchronized boolean removeIfMissing(Long conversationId, long seq) {
+            Ring ring = map.get(conversationId);
+            if (ring == null || ring.covers(seq)) {
+                return false;
+            }
+            map.remove(conversationId);
+            bytes -= ring.bytes;
+            return true;
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+}
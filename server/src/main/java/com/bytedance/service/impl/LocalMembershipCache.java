@@ -0,0 +1,279 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.config.MembershipCacheConfig;
+import com.bytedance.repository.IConversationMemberRepository;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话成员本地缓存
+ * 每个会话缓存一个升序 long[]（成员ID），按估算内存做 LRU 淘汰；
+ * 成员变化时通过 Redis 频道通知所有实例失效，另有过期时间兜底
+ */
+@Slf4j
+@Component
+public class LocalMembershipCache implements MembershipCache, MessageListener {
+
+    private static final String CHANNEL_INVALIDATE = "im:membership:invalidate";
+
+    // 分段加锁，降低读写竞争
+    private static final int STRIPES = 16;
+
+    // 单个条目除成员数组外的估算开销（对象头、数组头、Long 键、链表节点）
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private final IConversationMemberRepository conversationMemberRepository;
+    private final RedisUtils redisUtils;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MembershipCacheConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // 失效次数：加载期间发生过失效则不写入缓存，避免把旧的成员列表放回去
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private Counter hitCount;
+    private Counter missCount;
+    private Counter evictionCount;
+
+    @Autowired
+    public LocalMembershipCache(IConversationMemberRepository conversationMemberRepository,
+                                RedisUtils redisUtils,
+                                RedisMessageListenerContainer listenerContainer,
+                                MembershipCacheConfig config,
+                                MeterRegistry meterRegistry) {
+        this.conversationMemberRepository = conversationMemberRepository;
+        this.redisUtils = redisUtils;
+        this.listenerContainer = listenerContainer;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        long stripeBytes = Math.max(1, config.getMaxBytes() / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeBytes);
+        }
+
+        hitCount = Counter.builder("im.membership.cache.requests").tag("result", "hit")
+                .description("成员缓存命中次数")
+                .register(meterRegistry);
+        missCount = Counter.builder("im.membership.cache.requests").tag("result", "miss")
+                .description("成员缓存未命中次数")
+                .register(meterRegistry);
+        evictionCount = Counter.builder("im.membership.cache.evictions")
+                .description("超过内存上限被淘汰的条目数")
+                .register(meterRegistry);
+        Gauge.builder("im.membership.cache.size", this, LocalMembershipCache::size)
+                .description("缓存的会话数")
+                .register(meterRegistry);
+        Gauge.builder("im.membership.cache.bytes", this, LocalMembershipCache::estimatedBytes)
+                .description("缓存估算占用内存（字节）")
+                .register(meterRegistry);
+        Gauge.builder("im.membership.cache.hit_ratio", this, LocalMembershipCache::hitRatio)
+                .description("成员缓存命中率")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_INVALIDATE));
+    }
+
+    @Override
+    public boolean isMember(Long conversationId, Long userId) {
+        return Arrays.binarySearch(getMemberIds(conversationId), userId) >= 0;
+    }
+
+    @Override
+    public long[] getMemberIds(Long conversationId) {
+        Stripe stripe = stripe(conversationId);
+        long now = System.currentTimeMillis();
+        Entry entry = stripe.get(conversationId, now - config.getTtlSeconds() * 1000);
+        if (entry != null) {
+            hitCount.increment();
+            return entry.memberIds;
+        }
+
+        missCount.increment();
+        long version = invalidations.get();
+        long[] memberIds = load(conversationId);
+        if (invalidations.get() == version) {
+            evictionCount.increment(stripe.put(conversationId, new Entry(memberIds, now)));
+        }
+        return memberIds;
+    }
+
+    @Override
+    public void invalidate(Long conversationId) {
+        // 事务提交前失效，其他线程可能在提交前把旧成员列表重新加载进缓存
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateAndPublish(conversationId);
+                }
+            });
+        } else {
+            invalidateAndPublish(conversationId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            evictLocal(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("无效的成员缓存失效通知: {}", message);
+        }
+    }
+
+    private void invalidateAndPublish(Long conversationId) {
+        evictLocal(conversationId);
+        try {
+            redisUtils.publish(CHANNEL_INVALIDATE, conversationId.toString());
+        } catch (Exception e) {
+            // 其他实例依靠过期时间兜底
+            log.error("成员缓存失效通知发送失败: conversationId={}", conversationId, e);
+        }
+    }
+
+    private void evictLocal(Long conversationId) {
+        invalidations.incrementAndGet();
+        stripe(conversationId).remove(conversationId);
+    }
+
+    private long[] load(Long conversationId) {
+        List<Long> userIds = conversationMemberRepository.findUserIdsByConversationId(conversationId);
+        long[] memberIds = new long[userIds.size()];
+        for (int i = 0; i < memberIds.length; i++) {
+            memberIds[i] = userIds.get(i);
+        }
+        Arrays.sort(memberIds);
+        return memberIds;
+    }
+
+    private Stripe stripe(Long conversationId) {
+        return stripes[Long.hashCode(conversationId) & (STRIPES - 1)];
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    long estimatedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.bytes();
+        }
+        return bytes;
+    }
+
+    double hitRatio() {
+        double hits = hitCount.count();
+        double total = hits + missCount.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static final class Entry {
+        private final long[] memberIds;
+        private final long loadedAt;
+        private final long bytes;
+
+        Entry(long[] memberIds, long loadedAt) {
+            this.memberIds = memberIds;
+            this.loadedAt = loadedAt;
+            this.bytes = ENTRY_OVERHEAD_BYTES + 8L * memberIds.length;
+        }
+    }
+
+    /**
+     * 一段 LRU（访问顺序的 LinkedHashMap），按估算字节数淘汰
+     */
+    private static final class Stripe {
+        private final long maxBytes;
+        private final LinkedHashMap<Long, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+
+        Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Entry get(Long conversationId, long expireBefore) {
+            Entry entry = map.get(conversationId);
+            if (entry != null && entry.loadedAt < expireBefore) {
+                map.remove(conversationId);
+                bytes -= entry.bytes;
+                return null;
+            }
+            return entry;
+        }
+
+        /**
+         * @return 被淘汰的条目数
+         */
+        synchronized int put(Long conversationId, Entry entry) {
+            // 单个会话超过整段上限，不缓存
+            if (entry.bytes > maxBytes) {
+                return 0;
+            }
+            Entry old = map.put(conversationId, entry);
+            if (old != null) {
+                bytes -= old.bytes;
+            }
+            bytes += entry.bytes;
+
+            int evicted = 0;
+            Iterator<Map.Entry<Long, Entry>> it = map.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Long, Entry> eldest = it.next();
+                if (eldest.getKey().equals(conversationId)) {
+                    continue;
+                }
+                bytes -= eldest.getValue().bytes;
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        synchronized void remove(Long conversationId) {
+            Entry entry = map.remove(conversationId);
+            if (entry != null) {
+                bytes -= entry.bytes;
+            }
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+
+        synchronized long bytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.bytedance.service.impl;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.bytedance.config.UserSearchConfig;
+import com.bytedance.entity.User;
+import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.UserSearchIndex;
+import com.bytedance.vo.UserVO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 用户搜索本地索引
+ * 用户名、拼音全拼、拼音首字母各建一棵有序树做前缀查找，用户名的单字和双字片段建倒排表做子串查找；
+ * 子串查找只遍历最短的一张倒排表并逐条校验，10 万用户时单次搜索在亚毫秒级。
+ *
+ * 本实例注册的用户提交后立即写入索引；其他实例的变更按用户目录版本号定期增量拉取
+ */
+@Slf4j
+@Component
+public class LocalUserSearchIndex implements UserSearchIndex {
+
+    // 单次增量超过该条数时整体重建
+    private static final int MAX_DELTA = 1000;
+
+    private static final HanyuPinyinOutputFormat PINYIN_FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        PINYIN_FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        PINYIN_FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        PINYIN_FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private final IUserRepository userRepository;
+    private final UserSearchConfig config;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 读写都在 lock 内
+    private Index index = new Index();
+
+    // 已同步到的用户目录版本号，-1 表示尚未加载
+    private volatile long indexedVersion = -1;
+
+    private ScheduledExecutorService refresher;
+    private Timer searchTimer;
+
+    @Autowired
+    public LocalUserSearchIndex(IUserRepository userRepository,
+                                UserSearchConfig config,
+                                MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        searchTimer = Timer.builder("im.user-search.latency")
+                .description("用户搜索耗时")
+                .register(meterRegistry);
+        Gauge.builder("im.user-search.users", this, LocalUserSearchIndex::size)
+                .description("索引中的用户数")
+                .register(meterRegistry);
+
+        refresher = Executors.newSingleThreadScheduledExecutor(
+                ThreadFactoryBuilder.create().setNamePrefix("user-search-").build());
+        refresher.scheduleWithFixedDelay(this::refreshQuietly,
+                0, Math.max(100, config.getRefreshMs()), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<UserVO> search(String query, Integer limit) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int k = limit == null || limit <= 0 ? config.getDefaultLimit() : Math.min(limit, config.getMaxLimit());
+        // 启动后首次搜索时索引可能还没加载完，同步加载
+        if (indexedVersion < 0) {
+            refresh();
+        }
+
+        long start = System.nanoTime();
+        List<Entry> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(q, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+        searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return hits.stream().map(Entry::toVO).collect(Collectors.toList());
+    }
+
+    @Override
+    public void upsert(User user) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(new Entry(user));
+                }
+            });
+        } else {
+            put(new Entry(user));
+        }
+    }
+
+    /**
+     * 按用户目录版本号与数据库对齐：变更少时增量更新，否则整体重建
+     */
+    synchronized void refresh() {
+        long version = userRepository.currentDirectoryVersion();
+        long indexed = indexedVersion;
+        if (indexed >= 0 && version <= indexed) {
+            return;
+        }
+        if (indexed >= 0) {
+            List<User> changed = userRepository.findDirectoryAfter(indexed, MAX_DELTA + 1);
+            if (changed.size() <= MAX_DELTA) {
+                for (User user : changed) {
+                    put(new Entry(user));
+                    version = Math.max(version, versionOf(user));
+                }
+                indexedVersion = version;
+                return;
+            }
+        }
+
+        // 重建期间不阻塞搜索，完成后整体替换
+        Index rebuilt = new Index();
+        for (User user : userRepository.findDirectory()) {
+            rebuilt.put(new Entry(user));
+            version = Math.max(version, versionOf(user));
+        }
+        lock.writeLock().lock();
+        try {
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        indexedVersion = version;
+        log.info("用户搜索索引已重建: users={}, version={}", rebuilt.size(), version);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("用户搜索索引刷新失败", e);
+        }
+    }
+
+    private void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            index.put(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long versionOf(User user) {
+        return user.getVersion() == null ? 0 : user.getVersion();
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 汉字转为拼音（多音字取第一个读音），字母数字原样保留，其他字符忽略
+     * @return {全拼, 首字母}；不含汉字时返回 null
+     */
+    static String[] toPinyin(String name) {
+        StringBuilder full = new StringBuilder(name.length() * 4);
+        StringBuilder initials = new StringBuilder(name.length());
+        boolean hasHan = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN) {
+                String[] readings;
+                try {
+                    readings = PinyinHelper.toHanyuPinyinStringArray(c, PINYIN_FORMAT);
+                } catch (BadHanyuPinyinOutputFormatCombination e) {
+                    readings = null;
+                }
+                if (readings != null && readings.length > 0 && !readings[0].isEmpty()) {
+                    full.append(readings[0]);
+                    initials.append(readings[0].charAt(0));
+                    hasHan = true;
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                full.append(c);
+                initials.append(c);
+            }
+        }
+        return hasHan ? new String[]{full.toString(), initials.toString()} : null;
+    }
+
+    /**
+     * 索引中的一个用户
+     */
+    private static final class Entry {
+        private final Long userId;
+        private final String username;
+        private final String avatarUrl;
+        private final long version;
+        // 小写用户名
+        private final String name;
+        // 拼音全拼与首字母，不含汉字时为 null
+        private final String pinyin;
+        private final String initials;
+
+        Entry(User user) {
+            this.userId = user.getUserId();
+            this.username = user.getUsername() == null ? "" : user.getUsername();
+            this.avatarUrl = user.getAvatarUrl();
+            this.version = versionOf(user);
+            this.name = normalize(username);
+            String[] converted = toPinyin(name);
+            this.pinyin = converted == null ? null : converted[0];
+            this.initials = converted == null ? null : converted[1];
+        }
+
+        /**
+         * 拼音前缀树的键（全拼与首字母相同时只保留一个）
+         */
+        List<String> pinyinKeys() {
+            if (pinyin == null) {
+                return Collections.emptyList();
+            }
+            return pinyin.equals(initials) ? List.of(pinyin) : List.of(pinyin, initials);
+        }
+
+        /**
+         * 用户名的单字与双字片段
+         */
+        Set<String> grams() {
+            Set<String> grams = new LinkedHashSet<>();
+            for (int i = 0; i < name.length(); i++) {
+                grams.add(name.substring(i, i + 1));
+                if (i + 1 < name.length()) {
+                    grams.add(name.substring(i, i + 2));
+                }
+            }
+            return grams;
+        }
+
+        UserVO toVO() {
+            return UserVO.builder()
+                    .userId(userId)
+                    .username(username)
+                    .avatarUrl(avatarUrl)
+                    .build();
+        }
+    }
+
+    /**
+     * 索引结构本身，不做同步，由外层的读写锁保护
+     */
+    private static final class Index {
+        private final Map<Long, Entry> byUserId = new HashMap<>();
+        private final TreeMap<String, List<Entry>> names = new TreeMap<>();
+        private final TreeMap<String, List<Entry>> pinyins = new TreeMap<>();
+        private final Map<String, List<Entry>> grams = new HashMap<>();
+
+        void put(Entry entry) {
+            Entry old = byUserId.get(entry.userId);
+            if (old != null) {
+                // 本地写入与增量拉取可能重复，同版本重复写入和旧版本都跳过
+                if (old.version >= entry.version) {
+                    return;
+                }
+                remove(old);
+            }
+            byUserId.put(entry.userId, entry);
+            add(names, entry.name, entry);
+            for (String key : entry.pinyinKeys()) {
+                add(pinyins, key, entry);
+            }
+            for (String gram : entry.grams()) {
+                add(grams, gram, entry);
+            }
+        }
+
+        int size() {
+            return byUserId.size();
+        }
+
+        /**
+         * 依次按 用户名前缀（完全匹配最先）、拼音前缀、子串 收集，凑够 k 条即停止
+         */
+        List<Entry> search(String q, int k) {
+            Map<Long, Entry> hits = new LinkedHashMap<>();
+            collectPrefix(names, q, k, hits);
+            collectPrefix(pinyins, q, k, hits);
+            collectSubstring(q, k, hits);
+            return new ArrayList<>(hits.values());
+        }
+
+        private void remove(Entry entry) {
+            byUserId.remove(entry.userId);
+            removeFrom(names, entry.name, entry);
+            for (String key : entry.pinyinKeys()) {
+                removeFrom(pinyins, key, entry);
+            }
+            for (String gram : entry.grams()) {
+                removeFrom(grams, gram, entry);
+            }
+        }
+
+        private static void collectPrefix(TreeMap<String, List<Entry>> tree, String q, int k, Map<Long, Entry> hits) {
+            for (Map.Entry<String, List<Entry>> node : tree.tailMap(q, true).entrySet()) {
+                if (hits.size() >= k || !node.getKey().startsWith(q)) {
+                    return;
+                }
+                for (Entry entry : node.getValue()) {
+                    if (hits.size() >= k) {
+                        return;
+                    }
+                    hits.putIfAbsent(entry.userId, entry);
+                }
+            }
+        }
+
+        private void collectSubstring(String q, int k, Map<Long, Entry> hits) {
+            if (hits.size() >= k) {
+                return;
+            }
+            // 取查询串中最短的一张倒排表，逐条校验是否包含整个查询串
+            List<Entry> shortest = null;
+            int n = Math.min(2, q.length());
+            for (int i = 0; i + n <= q.length(); i++) {
+                List<Entry> posting = grams.get(q.substring(i, i + n));
+                if (posting == null) {
+                    return;
+                }
+                if (shortest == null || posting.size() < shortest.size()) {
+                    shortest = posting;
+                }
+            }
+            for (Entry entry : shortest) {
+                if (hits.size() >= k) {
+                    return;
+                }
+                if (entry.name.contains(q)) {
+                    hits.putIfAbsent(entry.userId, entry);
+                }
+            }
+        }
+
+        private static void add(Map<String, List<Entry>> map, String key, Entry entry) {
+            map.computeIfAbsent(key, ignored -> new ArrayList<>(1)).add(entry);
+        }
+
+        private static void removeFrom(Map<String, List<Entry>> map, String key, Entry entry) {
+            List<Entry> posting = map.get(key);
+            if (posting == null) {
+                return;
+            }
+            posting.remove(entry);
+            if (posting.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+}
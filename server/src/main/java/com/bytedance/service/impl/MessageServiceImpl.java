@@ -5,12 +5,19 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.bytedance.entity.Message;
 import com.bytedance.mapper.MessageMapper;
 import com.bytedance.service.IMessageService;
+import com.bytedance.usecase.message.ConversationLanes;
+import com.bytedance.usecase.message.GetMessageHistoryUseCase;
+import com.bytedance.usecase.message.GroupCommitMessageWriter;
 import com.bytedance.usecase.message.SendMessageUseCase;
+import com.bytedance.usecase.message.SyncAllMessagesUseCase;
 import com.bytedance.usecase.message.SyncMessagesUseCase;
+import com.bytedance.vo.HistoryPageVO;
+import com.bytedance.vo.SyncAllVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 消息服务实现
@@ -21,17 +28,44 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
 
     private final SendMessageUseCase sendMessageUseCase;
     private final SyncMessagesUseCase syncMessagesUseCase;
+    private final SyncAllMessagesUseCase syncAllMessagesUseCase;
+    private final GetMessageHistoryUseCase getMessageHistoryUseCase;
+    private final GroupCommitMessageWriter groupCommitMessageWriter;
+    private final ConversationLanes conversationLanes;
 
     @Autowired
     public MessageServiceImpl(SendMessageUseCase sendMessageUseCase,
-                             SyncMessagesUseCase syncMessagesUseCase) {
+                             SyncMessagesUseCase syncMessagesUseCase,
+                             SyncAllMessagesUseCase syncAllMessagesUseCase,
+                             GetMessageHistoryUseCase getMessageHistoryUseCase,
+                             GroupCommitMessageWriter groupCommitMessageWriter,
+                             ConversationLanes conversationLanes) {
         this.sendMessageUseCase = sendMessageUseCase;
         this.syncMessagesUseCase = syncMessagesUseCase;
+        this.syncAllMessagesUseCase = syncAllMessagesUseCase;
+        this.getMessageHistoryUseCase = getMessageHistoryUseCase;
+        this.groupCommitMessageWriter = groupCommitMessageWriter;
+        this.conversationLanes = conversationLanes;
     }
 
     @Override
     public Message sendMessage(Long conversationId, Long senderId, Integer msgType, String contentJson) {
-        return sendMessageUseCase.execute(conversationId, senderId, msgType, contentJson);
+        // HTTP 发送没有对应的推送连接，发送者的所有设备都会收到推送（客户端按 msgId 去重）
+        return sendMessage(conversationId, senderId, msgType, contentJson, null);
+    }
+
+    @Override
+    public Message sendMessage(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                               String originDeviceId) {
+        // 开启会话车道时，由会话的归属实例和车道串行执行
+        if (conversationLanes.isEnabled()) {
+            return conversationLanes.send(conversationId, senderId, msgType, contentJson, originDeviceId);
+        }
+        // 开启批量提交时，与其他并发发送合并到同一个事务
+        if (groupCommitMessageWriter.isEnabled()) {
+            return groupCommitMessageWriter.write(conversationId, senderId, msgType, contentJson, originDeviceId);
+        }
+        return sendMessageUseCase.execute(conversationId, senderId, msgType, contentJson, originDeviceId);
     }
 
     @Override
@@ -44,5 +78,16 @@ public class MessageServiceImpl extends ServiceImpl<MessageMapper, Message> impl
     public List<Message> syncMessages(Long conversationId, Long afterSeq) {
         return syncMessagesUseCase.execute(conversationId, afterSeq);
     }
+
+    @Override
+    public SyncAllVO syncAll(Long userId, Map<Long, Long> cursors, String continuation) {
+        return syncAllMessagesUseCase.execute(userId, cursors, continuation);
+    }
+
+    @Override
+    public HistoryPageVO getHistory(Long userId, Long conversationId,
+                                    Long beforeSeq, Long afterSeq, Long aroundSeq, Integer limit) {
+        return getMessageHistoryUseCase.execute(userId, conversationId, beforeSeq, afterSeq, aroundSeq, limit);
+    }
 }
 
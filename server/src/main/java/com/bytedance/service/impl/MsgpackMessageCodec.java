@@ -0,0 +1,200 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.entity.Message;
+import com.bytedance.service.BinaryMessageCodec;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.MessageUnpacker;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于 MessagePack 的二进制编码
+ */
+@Component
+public class MsgpackMessageCodec implements BinaryMessageCodec {
+
+    // 消息数组的字段数
+    private static final int MESSAGE_FIELDS = 10;
+    // 单条消息推送帧的头部：fixarray(2) + FRAME_MESSAGE
+    private static final int PUSH_HEADER = 0x92;
+    private static final int PUSH_HEADER_LENGTH = 2;
+
+    @Override
+    public byte[] encodePush(Message message) {
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packArrayHeader(2);
+            packer.packInt(FRAME_MESSAGE);
+            packMessage(packer, message);
+            return packer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("MessagePack 编码失败", e);
+        }
+    }
+
+    @Override
+    public Message decodePush(byte[] frame) {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame)) {
+            unpacker.unpackArrayHeader();
+            int type = unpacker.unpackInt();
+            if (type != FRAME_MESSAGE) {
+                throw new RuntimeException("不支持的帧类型: " + type);
+            }
+            return unpackMessage(unpacker);
+        } catch (IOException e) {
+            throw new RuntimeException("MessagePack 解码失败", e);
+        }
+    }
+
+    @Override
+    public byte[] encodeBatch(List<byte[]> pushFrames) {
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packArrayHeader(2);
+            packer.packInt(FRAME_BATCH);
+            packer.packArrayHeader(pushFrames.size());
+            for (byte[] frame : pushFrames) {
+                // 去掉单条推送帧的头部，直接拼接已编码的消息数组
+                if (frame.length <= PUSH_HEADER_LENGTH
+                        || (frame[0] & 0xff) != PUSH_HEADER || frame[1] != FRAME_MESSAGE) {
+                    throw new RuntimeException("不是单条消息推送帧");
+                }
+                packer.writePayload(frame, PUSH_HEADER_LENGTH, frame.length - PUSH_HEADER_LENGTH);
+            }
+            return packer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("MessagePack 编码失败", e);
+        }
+    }
+
+    @Override
+    public List<Message> decodeFrame(byte[] frame) {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(frame)) {
+            unpacker.unpackArrayHeader();
+            int type = unpacker.unpackInt();
+            if (type == FRAME_MESSAGE) {
+                List<Message> messages = new ArrayList<>(1);
+                messages.add(unpackMessage(unpacker));
+                return messages;
+            }
+            if (type != FRAME_BATCH) {
+                throw new RuntimeException("不支持的帧类型: " + type);
+            }
+            int size = unpacker.unpackArrayHeader();
+            List<Message> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                messages.add(unpackMessage(unpacker));
+            }
+            return messages;
+        } catch (IOException e) {
+            throw new RuntimeException("MessagePack 解码失败", e);
+        }
+    }
+
+    @Override
+    public byte[] encodeMessages(List<Message> messages) {
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packArrayHeader(messages.size());
+            for (Message message : messages) {
+                packMessage(packer, message);
+            }
+            return packer.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("MessagePack 编码失败", e);
+        }
+    }
+
+    @Override
+    public List<Message> decodeMessages(byte[] payload) {
+        try (MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(payload)) {
+            int size = unpacker.unpackArrayHeader();
+            List<Message> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                messages.add(unpackMessage(unpacker));
+            }
+            return messages;
+        } catch (IOException e) {
+            throw new RuntimeException("MessagePack 解码失败", e);
+        }
+    }
+
+    private static void packMessage(MessagePacker packer, Message message) throws IOException {
+        packer.packArrayHeader(MESSAGE_FIELDS);
+        packLong(packer, message.getMessageId());
+        packLong(packer, message.getConversationId());
+        packLong(packer, message.getSenderId());
+        packLong(packer, message.getSeq());
+        packInt(packer, message.getMsgType());
+        packString(packer, message.getContent());
+        packLong(packer, message.getCreatedTime() == null ? null
+                : message.getCreatedTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        packLong(packer, message.getQuoteId());
+        packString(packer, message.getMentions());
+        packInt(packer, message.getIsRevoked());
+    }
+
+    private static Message unpackMessage(MessageUnpacker unpacker) throws IOException {
+        int fields = unpacker.unpackArrayHeader();
+        Message message = new Message();
+        message.setMessageId(unpackLong(unpacker));
+        message.setConversationId(unpackLong(unpacker));
+        message.setSenderId(unpackLong(unpacker));
+        message.setSeq(unpackLong(unpacker));
+        message.setMsgType(unpackInt(unpacker));
+        message.setContent(unpackString(unpacker));
+        Long createdMillis = unpackLong(unpacker);
+        if (createdMillis != null) {
+            message.setCreatedTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(createdMillis), ZoneId.systemDefault()));
+        }
+        message.setQuoteId(unpackLong(unpacker));
+        message.setMentions(unpackString(unpacker));
+        message.setIsRevoked(unpackInt(unpacker));
+        // 跳过更新版本追加的字段
+        for (int i = MESSAGE_FIELDS; i < fields; i++) {
+            unpacker.skipValue();
+        }
+        return message;
+    }
+
+    private static void packLong(MessagePacker packer, Long value) throws IOException {
+        if (value == null) {
+            packer.packNil();
+        } else {
+            packer.packLong(value);
+        }
+    }
+
+    private static void packInt(MessagePacker packer, Integer value) throws IOException {
+        if (value == null) {
+            packer.packNil();
+        } else {
+            packer.packInt(value);
+        }
+    }
+
+    private static void packString(MessagePacker packer, String value) throws IOException {
+        if (value == null) {
+            packer.packNil();
+        } else {
+            packer.packString(value);
+        }
+    }
+
+    private static Long unpackLong(MessageUnpacker unpacker) throws IOException {
+        return unpacker.tryUnpackNil() ? null : unpacker.unpackLong();
+    }
+
+    private static Integer unpackInt(MessageUnpacker unpacker) throws IOException {
+        return unpacker.tryUnpackNil() ? null : unpacker.unpackInt();
+    }
+
+    private static String unpackString(MessageUnpacker unpacker) throws IOException {
+        return unpacker.tryUnpackNil() ? null : unpacker.unpackString();
+    }
+}
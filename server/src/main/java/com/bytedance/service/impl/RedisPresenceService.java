@@ -0,0 +1,139 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.config.PresenceConfig;
+import com.bytedance.consumer.WebSocketServer;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.service.PresenceService;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于 Redis 在线状态的批量查询
+ * 本地缓存未命中的用户一次 Pipeline 读取 ws:presence:{userId}（各实例设备数），结果在本地缓存很短时间
+ */
+@Component
+public class RedisPresenceService implements PresenceService {
+
+    private final RedisUtils redisUtils;
+    private final MembershipCache membershipCache;
+    private final PresenceConfig config;
+
+    // userId -> 设备数与过期时间
+    private final ConcurrentHashMap<Long, CachedPresence> cache = new ConcurrentHashMap<>();
+
+    private final Counter hitCount;
+    private final Counter missCount;
+
+    @Autowired
+    public RedisPresenceService(RedisUtils redisUtils,
+                                MembershipCache membershipCache,
+                                PresenceConfig config,
+                                MeterRegistry meterRegistry) {
+        this.redisUtils = redisUtils;
+        this.membershipCache = membershipCache;
+        this.config = config;
+        this.hitCount = Counter.builder("im.presence.cache.hit")
+                .description("在线状态本地缓存命中次数")
+                .register(meterRegistry);
+        this.missCount = Counter.builder("im.presence.cache.miss")
+                .description("在线状态本地缓存未命中次数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Map<Long, Integer> getDeviceCounts(Collection<Long> userIds) {
+        if (userIds.size() > config.getMaxBatchSize()) {
+            throw new RuntimeException("一次最多查询 " + config.getMaxBatchSize() + " 个用户");
+        }
+        long now = System.currentTimeMillis();
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (userId == null || result.containsKey(userId)) {
+                continue;
+            }
+            CachedPresence cached = cache.get(userId);
+            if (cached != null && cached.expiresAt > now) {
+                result.put(userId, cached.devices);
+            } else {
+                // 先占位，保持返回顺序
+                result.put(userId, 0);
+                misses.add(userId);
+            }
+        }
+        hitCount.increment(result.size() - misses.size());
+        if (misses.isEmpty()) {
+            return result;
+        }
+        missCount.increment(misses.size());
+
+        List<String> keys = new ArrayList<>(misses.size());
+        for (Long userId : misses) {
+            keys.add(WebSocketServer.REDIS_KEY_ONLINE + userId);
+        }
+        List<List<String>> counts = redisUtils.multiHValues(keys);
+        long expiresAt = now + config.getCacheTtlMs();
+        for (int i = 0; i < misses.size(); i++) {
+            int devices = 0;
+            for (String count : counts.get(i)) {
+                devices += Integer.parseInt(count);
+            }
+            result.put(misses.get(i), devices);
+            if (config.getCacheTtlMs() > 0) {
+                cache.put(misses.get(i), new CachedPresence(devices, expiresAt));
+            }
+        }
+        if (cache.size() > config.getCacheMaxEntries()) {
+            evict(now);
+        }
+        return result;
+    }
+
+    @Override
+    public int countOnlineMembers(Long conversationId) {
+        long[] memberIds = membershipCache.getMemberIds(conversationId);
+        int online = 0;
+        // 大群按批查询，单批不超过上限
+        for (int from = 0; from < memberIds.length; from += config.getMaxBatchSize()) {
+            long[] chunk = Arrays.copyOfRange(memberIds, from, Math.min(memberIds.length, from + config.getMaxBatchSize()));
+            List<Long> userIds = new ArrayList<>(chunk.length);
+            for (long memberId : chunk) {
+                userIds.add(memberId);
+            }
+            for (int devices : getDeviceCounts(userIds).values()) {
+                if (devices > 0) {
+                    online++;
+                }
+            }
+        }
+        return online;
+    }
+
+    private void evict(long now) {
+        cache.values().removeIf(cached -> cached.expiresAt <= now);
+        if (cache.size() > config.getCacheMaxEntries()) {
+            cache.clear();
+        }
+    }
+
+    private static final class CachedPresence {
+        private final int devices;
+        private final long expiresAt;
+
+        CachedPresence(int devices, long expiresAt) {
+            this.devices = devices;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
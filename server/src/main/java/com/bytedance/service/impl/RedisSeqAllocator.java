@@ -0,0 +1,32 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.service.SeqAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis 序列号分配器
+ * 每次发送一次 INCR，多实例共享同一个计数器，不持有数据库锁
+ */
+@Component
+@ConditionalOnProperty(prefix = "im.seq", name = "allocator", havingValue = "redis")
+public class RedisSeqAllocator implements SeqAllocator {
+
+    private final RedisSeqCounter seqCounter;
+
+    @Autowired
+    public RedisSeqAllocator(RedisSeqCounter seqCounter) {
+        this.seqCounter = seqCounter;
+    }
+
+    @Override
+    public long next(Long conversationId) {
+        return seqCounter.incrementBy(conversationId, 1);
+    }
+
+    @Override
+    public void reset(Long conversationId) {
+        seqCounter.reset(conversationId);
+    }
+}
@@ -0,0 +1,104 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.entity.Conversation;
+import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.utils.RedisUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Redis 的会话序列号计数器
+ * key 不存在（首次使用、过期或被重置）时，以数据库中的最大 seq 为起点初始化
+ */
+@Slf4j
+@Component
+public class RedisSeqCounter {
+
+    // Redis key前缀
+    private static final String REDIS_KEY_SEQ = "im:seq:"; // im:seq:{conversationId}
+    private static final long SEQ_TIMEOUT = 7 * 24 * 3600; // 计数器过期时间（秒），7天不活跃后从数据库重新校准
+
+    // key 存在时递增并续期；不存在返回 -1，由调用方从数据库校准
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+            "local v = redis.call('incrby', KEYS[1], ARGV[1]) " +
+            "redis.call('expire', KEYS[1], ARGV[2]) " +
+            "return v", Long.class);
+
+    // 以数据库水位初始化后递增，SET NX 保证多实例并发初始化时只有一个生效
+    private static final DefaultRedisScript<Long> INIT_AND_INCR = new DefaultRedisScript<>(
+            "redis.call('set', KEYS[1], ARGV[3], 'NX') " +
+            "local v = redis.call('incrby', KEYS[1], ARGV[1]) " +
+            "redis.call('expire', KEYS[1], ARGV[2]) " +
+            "return v", Long.class);
+
+    // 把计数器抬到不低于数据库水位；不删除 key，避免其他实例在删除与重建之间拿到更小的值
+    private static final DefaultRedisScript<Long> RAISE_TO = new DefaultRedisScript<>(
+            "local cur = tonumber(redis.call('get', KEYS[1]) or '0') " +
+            "local persisted = tonumber(ARGV[1]) " +
+            "if persisted > cur then " +
+            "redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2]) " +
+            "return persisted end " +
+            "return cur", Long.class);
+
+    private final RedisUtils redisUtils;
+    private final IConversationRepository conversationRepository;
+    private final IMessageRepository messageRepository;
+
+    @Autowired
+    public RedisSeqCounter(RedisUtils redisUtils,
+                           IConversationRepository conversationRepository,
+                           IMessageRepository messageRepository) {
+        this.redisUtils = redisUtils;
+        this.conversationRepository = conversationRepository;
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * 原子地把会话计数器增加 delta
+     * @return 增加后的值，即本次分配区间 (value - delta, value] 的上界
+     */
+    public long incrementBy(Long conversationId, long delta) {
+        String key = REDIS_KEY_SEQ + conversationId;
+        Long value = redisUtils.execute(INCR_IF_EXISTS, key,
+                String.valueOf(delta), String.valueOf(SEQ_TIMEOUT));
+        if (value != null && value >= 0) {
+            return value;
+        }
+
+        long persistedSeq = loadPersistedSeq(conversationId);
+        log.debug("初始化会话序列号计数器: conversationId={}, seq={}", conversationId, persistedSeq);
+        value = redisUtils.execute(INIT_AND_INCR, key,
+                String.valueOf(delta), String.valueOf(SEQ_TIMEOUT), String.valueOf(persistedSeq));
+        if (value == null) {
+            throw new RuntimeException("序列号分配失败");
+        }
+        return value;
+    }
+
+    /**
+     * 从数据库校准计数器：只会调大（max(当前值, 数据库最大 seq)），不会回退
+     */
+    public void reset(Long conversationId) {
+        long persistedSeq = loadPersistedSeq(conversationId);
+        redisUtils.execute(RAISE_TO, REDIS_KEY_SEQ + conversationId,
+                String.valueOf(persistedSeq), String.valueOf(SEQ_TIMEOUT));
+    }
+
+    /**
+     * 数据库中已落库的最大序列号
+     * current_seq 与 messages 中的 MAX(seq) 取较大者，防止会话摘要滞后导致重复分配
+     */
+    public long loadPersistedSeq(Long conversationId) {
+        Conversation conversation = conversationRepository.findById(conversationId);
+        if (conversation == null) {
+            throw new RuntimeException("会话不存在");
+        }
+        long currentSeq = conversation.getCurrentSeq() == null ? 0L : conversation.getCurrentSeq();
+        Long maxSeq = messageRepository.findMaxSeq(conversationId);
+        return Math.max(currentSeq, maxSeq == null ? 0L : maxSeq);
+    }
+}
@@ -0,0 +1,119 @@
+package com.bytedance.service.impl;
+
+import com.bytedance.config.LaneConfig;
+import com.bytedance.config.SeqConfig;
+import com.bytedance.consumer.ClusterMembership;
+import com.bytedance.service.SeqAllocator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 号段序列号分配器
+ * 每个会话一次从 Redis 租用 segmentStep 个号，用完再租，热点会话绝大多数分配只在本地内存完成
+ *
+ * 注意：不同实例租到的是不相交的号段，只能保证单实例内单调递增，因此要求开启会话车道（同一会话只在归属实例上分配）；
+ * 重启或淘汰会丢弃未用完的号段，只产生空洞，不会产生重复
+ *
+ * 归属迁移：会话迁走期间新的归属实例会租用更大的号段，迁回后继续用旧号段会写入比 current_seq 小的 seq。
+ * 因此哈希环变化时丢弃归属已不在本实例的号段，留下的号段在环变化后首次使用前与数据库水位比对，落后则重新租用
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "im.seq", name = "allocator", havingValue = "segment")
+public class SegmentSeqAllocator implements SeqAllocator {
+
+    private final RedisSeqCounter seqCounter;
+    private final SeqConfig seqConfig;
+    private final LaneConfig laneConfig;
+    private final ClusterMembership clusterMembership;
+
+    // 本地号段：conversationId -> 当前号段
+    private final ConcurrentHashMap<Long, Segment> segments = new ConcurrentHashMap<>();
+
+    // 哈希环变化次数，号段记录上次校验时的值，不一致时使用前重新校验
+    private final AtomicLong ringEpoch = new AtomicLong();
+
+    @Autowired
+    public SegmentSeqAllocator(RedisSeqCounter seqCounter, SeqConfig seqConfig, LaneConfig laneConfig,
+                               ClusterMembership clusterMembership) {
+        this.seqCounter = seqCounter;
+        this.seqConfig = seqConfig;
+        this.laneConfig = laneConfig;
+        this.clusterMembership = clusterMembership;
+    }
+
+    @PostConstruct
+    public void init() {
+        // 不开车道时同一会话会在多个实例上用各自的号段分配，seq 在实例之间不单调
+        if (!laneConfig.isEnabled()) {
+            throw new IllegalStateException("im.seq.allocator=segment 需要同时开启 im.lanes.enabled");
+        }
+        clusterMembership.addRingChangeListener(this::onRingChanged);
+    }
+
+    @Override
+    public long next(Long conversationId) {
+        if (segments.size() > seqConfig.getMaxSegments()) {
+            // 超过上限整体丢弃，未用完的号段作废
+            log.info("本地号段数超过上限 {}，清空重新租用", seqConfig.getMaxSegments());
+            segments.clear();
+        }
+
+        long epoch = ringEpoch.get();
+        Segment segment = segments.computeIfAbsent(conversationId, id -> new Segment(epoch));
+        synchronized (segment) {
+            if (segment.epoch != epoch) {
+                // 环变化后首次使用：期间其他实例可能已经写入更大的 seq，落后则作废剩余号段
+                if (segment.next <= segment.max && segment.next <= seqCounter.loadPersistedSeq(conversationId)) {
+                    log.info("会话号段落后于数据库，重新租用: conversationId={}", conversationId);
+                    segment.max = 0;
+                    segment.next = 1;
+                }
+                segment.epoch = epoch;
+            }
+            if (segment.next > segment.max) {
+                long step = Math.max(1L, seqConfig.getSegmentStep());
+                long max = seqCounter.incrementBy(conversationId, step);
+                segment.next = max - step + 1;
+                segment.max = max;
+            }
+            return segment.next++;
+        }
+    }
+
+    @Override
+    public void reset(Long conversationId) {
+        segments.remove(conversationId);
+        seqCounter.reset(conversationId);
+    }
+
+    /**
+     * 哈希环变化：丢弃归属已迁走的会话的号段，其余号段标记为待校验
+     */
+    void onRingChanged() {
+        ringEpoch.incrementAndGet();
+        segments.keySet().removeIf(conversationId ->
+                !clusterMembership.isLocal(clusterMembership.ownerOf(conversationId)));
+    }
+
+    /**
+     * 号段 [next, max]，next > max 表示已用完
+     */
+    private static class Segment {
+        private long next = 1;
+        private long max = 0;
+        // 上次校验时的环版本
+        private long epoch;
+
+        Segment(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
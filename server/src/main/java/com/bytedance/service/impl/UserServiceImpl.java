@@ -6,11 +6,17 @@ import com.bytedance.dto.RegisterRequest;
 import com.bytedance.entity.User;
 import com.bytedance.mapper.UserMapper;
 import com.bytedance.service.IUserService;
+import com.bytedance.service.UserSearchIndex;
+import com.bytedance.usecase.user.GetUserDirectoryUseCase;
 import com.bytedance.usecase.user.LoginUserUseCase;
 import com.bytedance.usecase.user.RegisterUserUseCase;
+import com.bytedance.vo.UserDirectoryVO;
+import com.bytedance.vo.UserVO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * 用户服务实现
  * 作为门面层，协调 UseCase
@@ -20,12 +26,18 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
 
     private final RegisterUserUseCase registerUserUseCase;
     private final LoginUserUseCase loginUserUseCase;
+    private final GetUserDirectoryUseCase getUserDirectoryUseCase;
+    private final UserSearchIndex userSearchIndex;
 
     @Autowired
     public UserServiceImpl(RegisterUserUseCase registerUserUseCase,
-                          LoginUserUseCase loginUserUseCase) {
+                          LoginUserUseCase loginUserUseCase,
+                          GetUserDirectoryUseCase getUserDirectoryUseCase,
+                          UserSearchIndex userSearchIndex) {
         this.registerUserUseCase = registerUserUseCase;
         this.loginUserUseCase = loginUserUseCase;
+        this.getUserDirectoryUseCase = getUserDirectoryUseCase;
+        this.userSearchIndex = userSearchIndex;
     }
 
     @Override
@@ -37,5 +49,15 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     public LoginUserUseCase.LoginResult login(String username, String password) {
         return loginUserUseCase.execute(username, password);
     }
+
+    @Override
+    public UserDirectoryVO getDirectory(Long since) {
+        return getUserDirectoryUseCase.execute(since);
+    }
+
+    @Override
+    public List<UserVO> searchUsers(String query, Integer limit) {
+        return userSearchIndex.search(query, limit);
+    }
 }
 
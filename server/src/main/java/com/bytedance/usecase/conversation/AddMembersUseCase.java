@@ -5,7 +5,9 @@ import com.bytedance.entity.ConversationMember;
 import com.bytedance.entity.User;
 import com.bytedance.repository.IConversationMemberRepository;
 import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IInboxRepository;
 import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.MembershipCache;
 import com.bytedance.usecase.message.SendMessageUseCase;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -28,16 +30,22 @@ public class AddMembersUseCase {
     private final IConversationMemberRepository conversationMemberRepository;
     private final IUserRepository userRepository;
     private final SendMessageUseCase sendMessageUseCase;
+    private final IInboxRepository inboxRepository;
+    private final MembershipCache membershipCache;
 
     @Autowired
     public AddMembersUseCase(IConversationRepository conversationRepository,
                              IConversationMemberRepository conversationMemberRepository,
                              IUserRepository userRepository,
-                             SendMessageUseCase sendMessageUseCase) {
+                             SendMessageUseCase sendMessageUseCase,
+                             IInboxRepository inboxRepository,
+                             MembershipCache membershipCache) {
         this.conversationRepository = conversationRepository;
         this.conversationMemberRepository = conversationMemberRepository;
         this.userRepository = userRepository;
         this.sendMessageUseCase = sendMessageUseCase;
+        this.inboxRepository = inboxRepository;
+        this.membershipCache = membershipCache;
     }
 
     /**
@@ -97,11 +105,17 @@ public class AddMembersUseCase {
                     .userId(userId)
                     .role(0)
                     .unreadCount(0)
+                    // 入群前的消息不计入未读，也不在重连时补发
+                    .lastAckSeq(conversation.getCurrentSeq())
                     .joinedTime(LocalDateTime.now())
                     .build();
             newMembers.add(member);
         }
         conversationMemberRepository.saveBatch(newMembers);
+        membershipCache.invalidate(conversationId);
+
+        // 把会话加入新成员的收件箱
+        inboxRepository.touch(effectiveUserIds, conversationId, conversation.getLastMsgTime());
 
         // 4. 发送一条系统通知消息 群聊发信息，单聊不发信息。
         if (conversation.getType() == 2) {
@@ -4,11 +4,14 @@ import com.bytedance.entity.Conversation;
 import com.bytedance.entity.ConversationMember;
 import com.bytedance.repository.IConversationMemberRepository;
 import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IInboxRepository;
+import com.bytedance.service.MembershipCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 
 /**
  * 创建会话用例
@@ -19,12 +22,18 @@ public class CreateConversationUseCase {
 
     private final IConversationRepository conversationRepository;
     private final IConversationMemberRepository conversationMemberRepository;
+    private final IInboxRepository inboxRepository;
+    private final MembershipCache membershipCache;
 
     @Autowired
     public CreateConversationUseCase(IConversationRepository conversationRepository,
-                                     IConversationMemberRepository conversationMemberRepository) {
+                                     IConversationMemberRepository conversationMemberRepository,
+                                     IInboxRepository inboxRepository,
+                                     MembershipCache membershipCache) {
         this.conversationRepository = conversationRepository;
         this.conversationMemberRepository = conversationMemberRepository;
+        this.inboxRepository = inboxRepository;
+        this.membershipCache = membershipCache;
     }
 
     /**
@@ -52,6 +61,10 @@ public class CreateConversationUseCase {
                 .joinedTime(LocalDateTime.now())
                 .build();
         conversationMemberRepository.save(member);
+        membershipCache.invalidate(conversation.getConversationId());
+
+        // 3. 加入创建者的收件箱
+        inboxRepository.touch(Collections.singletonList(ownerId), conversation.getConversationId(), null);
 
         return conversation.getConversationId();
     }
@@ -1,13 +1,15 @@
 package com.bytedance.usecase.conversation;
 
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
+import com.bytedance.dto.ScrollResult;
 import com.bytedance.entity.Conversation;
 import com.bytedance.entity.ConversationMember;
 import com.bytedance.entity.User;
 import com.bytedance.repository.IConversationMemberRepository;
 import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IInboxRepository;
 import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.MessageCodec;
 import com.bytedance.utils.RedisUtils;
 import com.bytedance.vo.ConversationVO;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +17,9 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,16 +35,28 @@ public class GetConversationListUseCase {
     private final IConversationRepository conversationRepository;
     private final IUserRepository userRepository;
     private final RedisUtils redisUtils; // 【新增】Redis 工具类
+    private final IInboxRepository inboxRepository;
+    private final MessageCodec messageCodec;
+
+    private static final String USER_CACHE_PREFIX = "user:info:";
+    private static final long USER_CACHE_TTL = 86400;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
     public GetConversationListUseCase(IConversationMemberRepository conversationMemberRepository,
                                       IConversationRepository conversationRepository,
                                       IUserRepository userRepository,
-                                      RedisUtils redisUtils) {
+                                      RedisUtils redisUtils,
+                                      IInboxRepository inboxRepository,
+                                      MessageCodec messageCodec) {
         this.conversationMemberRepository = conversationMemberRepository;
         this.conversationRepository = conversationRepository;
         this.userRepository = userRepository;
         this.redisUtils = redisUtils;
+        this.inboxRepository = inboxRepository;
+        this.messageCodec = messageCodec;
     }
 
     /**
@@ -63,10 +80,110 @@ public class GetConversationListUseCase {
         Map<Long, Conversation> convMap = conversations.stream()
                 .collect(Collectors.toMap(Conversation::getConversationId, c -> c));
 
-        // 4. 组装 VO
-        List<ConversationVO> voList = new ArrayList<>();
+        // 4. 收件箱不存在（首次访问或已过期）时顺带重建，之后分页接口直接读收件箱
+        if (!inboxRepository.exists(userId)) {
+            inboxRepository.rebuild(userId, myMemberships, convMap);
+        }
+
+        // 5. 组装 VO
+        List<ConversationVO> voList = assemble(userId, myMemberships, conversations, convMap);
+
+        // 6. 排序 (置顶优先，其次按时间倒序)
+        voList.sort((a, b) -> {
+            boolean topA = Boolean.TRUE.equals(a.getIsTop());
+            boolean topB = Boolean.TRUE.equals(b.getIsTop());
+
+            // 6.1 先比较置顶状态
+            if (topA && !topB) return -1; // A置顶，B不置顶 -> A在前
+            if (!topA && topB) return 1;  // B置顶，A不置顶 -> B在前
+
+            // 6.2 都在同一层级，再比较时间
+            LocalDateTime timeA = a.getLastMsgTime();
+            LocalDateTime timeB = b.getLastMsgTime();
+
+            if (timeB == null) return -1;
+            if (timeA == null) return 1;
+            return timeB.compareTo(timeA); // 时间倒序
+        });
+
+        return voList;
+    }
+
+    /**
+     * 滚动分页获取会话列表（读收件箱，O(log n + 页大小)）
+     * @param max 上一页返回的 minTime，首页传 null
+     * @param offset 上一页返回的 offset，首页传 0
+     */
+    public ScrollResult scroll(Long userId, Long max, Integer offset, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        int skip = offset == null ? 0 : offset;
+
+        // 1. 收件箱不存在时走全量查询重建
+        if (!inboxRepository.exists(userId)) {
+            execute(userId);
+        }
+
+        // 2. 从收件箱取出本页会话ID
+        LinkedHashMap<Long, Long> page = inboxRepository.scroll(userId, max, skip, pageSize);
+
+        ScrollResult result = new ScrollResult();
+        if (page.isEmpty()) {
+            result.setList(new ArrayList<>());
+            result.setMinTime(max);
+            result.setOffset(skip);
+            return result;
+        }
+
+        // 3. 只查本页的成员关系和会话
+        List<Long> conversationIds = new ArrayList<>(page.keySet());
+        List<ConversationMember> memberships = conversationMemberRepository
+                .findByUserIdAndConversationIds(userId, conversationIds);
+        List<Conversation> conversations = conversationRepository.findByIds(conversationIds);
+        Map<Long, Conversation> convMap = conversations.stream()
+                .collect(Collectors.toMap(Conversation::getConversationId, c -> c));
+
+        // 4. 组装 VO，保持收件箱中的顺序
+        Map<Long, ConversationVO> voMap = assemble(userId, memberships, conversations, convMap).stream()
+                .collect(Collectors.toMap(ConversationVO::getConversationId, vo -> vo));
+        List<ConversationVO> voList = new ArrayList<>(page.size());
+        for (Long conversationId : conversationIds) {
+            ConversationVO vo = voMap.get(conversationId);
+            if (vo != null) {
+                voList.add(vo);
+            }
+        }
+
+        // 5. 计算下一页游标：本页最小分数，以及本页中等于该分数的个数（分数相同时用于跳过）
+        long minTime = 0;
+        int sameScoreCount = 0;
+        for (Long score : page.values()) {
+            if (score == minTime) {
+                sameScoreCount++;
+            } else {
+                minTime = score;
+                sameScoreCount = 1;
+            }
+        }
+        if (max != null && minTime == max) {
+            sameScoreCount += skip;
+        }
+
+        result.setList(voList);
+        result.setMinTime(minTime);
+        result.setOffset(sameScoreCount);
+        return result;
+    }
+
+    /**
+     * 把成员关系和会话组装为 VO（不排序）
+     */
+    private List<ConversationVO> assemble(Long userId, List<ConversationMember> memberships,
+                                          List<Conversation> conversations, Map<Long, Conversation> convMap) {
+        // 批量查出所有单聊的对方用户（一次 IN 查询 + 一次 MGET，避免循环内查库）
+        Map<Long, User> peerMap = loadPeers(conversations, userId);
 
-        for (ConversationMember myMember : myMemberships) {
+        List<ConversationVO> voList = new ArrayList<>();
+        for (ConversationMember myMember : memberships) {
             Conversation conv = convMap.get(myMember.getConversationId());
             if (conv == null) continue;
 
@@ -75,45 +192,11 @@ public class GetConversationListUseCase {
 
             // 如果是单聊，名字和头像不能用会话的，要用"对方"的
             if (conv.getType() == 1) {
-                // 4.1 查该会话的所有成员 (这里其实还有优化空间，避免循环内查库)
-                List<ConversationMember> allMembers = conversationMemberRepository
-                        .findByConversationId(conv.getConversationId());
-
-                // 4.2 找到那个 userId 不等于当前 userId 的人
-                Long targetId = null;
-                for (ConversationMember m : allMembers) {
-                    if (!m.getUserId().equals(userId)) {
-                        targetId = m.getUserId();
-                        break;
-                    }
-                }
-
-                // 4.3 【核心修改】加入 Redis 缓存逻辑
-                if (targetId != null) {
-                    User targetUser = null;
-                    String userCacheKey = "user:info:" + targetId;
-
-                    // A. 先查 Redis
-                    String userJson = redisUtils.get(userCacheKey);
-
-                    if (StrUtil.isNotBlank(userJson)) {
-                        // B. 缓存命中：反序列化
-                        targetUser = JSONUtil.toBean(userJson, User.class);
-                    } else {
-                        // C. 缓存未命中：查数据库
-                        targetUser = userRepository.findById(targetId);
-                        if (targetUser != null) {
-                            // D. 写入 Redis (过期时间设为 1 天 = 86400 秒)
-                            redisUtils.set(userCacheKey, JSONUtil.toJsonStr(targetUser), 86400);
-                        }
-                    }
-
-                    // E. 赋值
-                    if (targetUser != null) {
-                        // 优先显示备注或昵称，这里简化为 username
-                        showName = targetUser.getUsername();
-                        showAvatar = targetUser.getAvatarUrl();
-                    }
+                User targetUser = peerMap.get(conv.getConversationId());
+                if (targetUser != null) {
+                    // 优先显示备注或昵称，这里简化为 username
+                    showName = targetUser.getUsername();
+                    showAvatar = targetUser.getAvatarUrl();
                 }
             }
 
@@ -124,31 +207,82 @@ public class GetConversationListUseCase {
                     .avatarUrl(showAvatar)
                     .lastMsgContent(conv.getLastMsgContent())
                     .lastMsgTime(conv.getLastMsgTime())
-                    .unreadCount(myMember.getUnreadCount())
+                    .unreadCount(unreadCount(conv, myMember))
                     .isTop(myMember.getIsTop() != null && myMember.getIsTop())
                     .build();
 
             voList.add(vo);
         }
 
-        // 5. 排序 (置顶优先，其次按时间倒序)
-        voList.sort((a, b) -> {
-            boolean topA = Boolean.TRUE.equals(a.getIsTop());
-            boolean topB = Boolean.TRUE.equals(b.getIsTop());
+        return voList;
+    }
 
-            // 5.1 先比较置顶状态
-            if (topA && !topB) return -1; // A置顶，B不置顶 -> A在前
-            if (!topA && topB) return 1;  // B置顶，A不置顶 -> B在前
+    /**
+     * 未读数 = 会话当前序列号 - 已读游标
+     * 序列号可能有空洞（分配后事务回滚、号段/Redis 分配器重启丢弃的号），所以这是未读数的上限，
+     * 红点展示可以接受；需要精确值时按 seq > last_ack_seq 数消息行
+     */
+    private static int unreadCount(Conversation conv, ConversationMember member) {
+        long currentSeq = conv.getCurrentSeq() == null ? 0 : conv.getCurrentSeq();
+        long lastAckSeq = member.getLastAckSeq() == null ? 0 : member.getLastAckSeq();
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, currentSeq - lastAckSeq));
+    }
 
-            // 5.2 都在同一层级，再比较时间
-            LocalDateTime timeA = a.getLastMsgTime();
-            LocalDateTime timeB = b.getLastMsgTime();
+    /**
+     * 批量加载单聊会话的对方用户
+     * @return conversationId -> 对方用户
+     */
+    private Map<Long, User> loadPeers(List<Conversation> conversations, Long userId) {
+        List<Long> p2pConversationIds = conversations.stream()
+                .filter(c -> c.getType() == 1)
+                .map(Conversation::getConversationId)
+                .collect(Collectors.toList());
+        if (p2pConversationIds.isEmpty()) {
+            return new HashMap<>();
+        }
 
-            if (timeB == null) return -1;
-            if (timeA == null) return 1;
-            return timeB.compareTo(timeA); // 时间倒序
-        });
+        // 4.1 一次查出所有单聊中不是自己的成员
+        Map<Long, Long> peerIdByConversation = new HashMap<>();
+        for (ConversationMember m : conversationMemberRepository.findOthersByConversationIds(p2pConversationIds, userId)) {
+            peerIdByConversation.putIfAbsent(m.getConversationId(), m.getUserId());
+        }
+        List<Long> peerIds = new ArrayList<>(new LinkedHashSet<>(peerIdByConversation.values()));
+        if (peerIds.isEmpty()) {
+            return new HashMap<>();
+        }
 
-        return voList;
+        // 4.2 先查 Redis（MGET 一次往返）
+        List<String> keys = peerIds.stream().map(id -> USER_CACHE_PREFIX + id).collect(Collectors.toList());
+        List<String> cached = redisUtils.multiGet(keys);
+
+        Map<Long, User> userMap = new HashMap<>();
+        List<Long> missIds = new ArrayList<>();
+        for (int i = 0; i < peerIds.size(); i++) {
+            String userJson = cached == null ? null : cached.get(i);
+            if (StrUtil.isNotBlank(userJson)) {
+                userMap.put(peerIds.get(i), messageCodec.decode(userJson, User.class));
+            } else {
+                missIds.add(peerIds.get(i));
+            }
+        }
+
+        // 4.3 未命中的一次批量查库，并批量回写 Redis (过期时间 1 天)
+        if (!missIds.isEmpty()) {
+            Map<String, String> toCache = new HashMap<>();
+            for (User user : userRepository.findByIds(missIds)) {
+                userMap.put(user.getUserId(), user);
+                toCache.put(USER_CACHE_PREFIX + user.getUserId(), messageCodec.encode(user));
+            }
+            redisUtils.multiSet(toCache, USER_CACHE_TTL);
+        }
+
+        Map<Long, User> peerMap = new HashMap<>();
+        peerIdByConversation.forEach((conversationId, peerId) -> {
+            User user = userMap.get(peerId);
+            if (user != null) {
+                peerMap.put(conversationId, user);
+            }
+        });
+        return peerMap;
     }
 }
@@ -0,0 +1,271 @@
+package com.bytedance.usecase.message;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import cn.hutool.core.util.StrUtil;
+import com.bytedance.common.Result;
+import com.bytedance.config.LaneConfig;
+import com.bytedance.consumer.ClusterMembership;
+import com.bytedance.dto.ForwardSendRequest;
+import com.bytedance.entity.Message;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 会话车道（单写者）
+ * 一组单线程执行器，会话按 ID 固定到其中一条，同一会话的分配序列号、落库、更新摘要、推送串行执行，
+ * 行锁和序列号分配不再有竞争；不同会话分散在多条车道上并行
+ *
+ * 多实例部署时先按一致性哈希找到会话的归属实例，不是本实例则转发过去
+ */
+@Slf4j
+@Component
+public class ConversationLanes {
+
+    // 实例间转发接口
+    public static final String FORWARD_PATH = "/internal/messages/send";
+    public static final String TOKEN_HEADER = "X-IM-Internal-Token";
+
+    private static final ParameterizedTypeReference<Result<Message>> RESULT_TYPE =
+            new ParameterizedTypeReference<Result<Message>>() {
+            };
+
+    private final LaneConfig laneConfig;
+    private final SendMessageUseCase sendMessageUseCase;
+    private final ClusterMembership clusterMembership;
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final MeterRegistry meterRegistry;
+
+    private List<ThreadPoolExecutor> lanes;
+    private RestTemplate restTemplate;
+
+    // 转发给归属实例的发送数
+    private Counter forwardedCount;
+    // 归属实例不可达、拒绝执行的发送数
+    private Counter forwardFailureCount;
+
+    @Autowired
+    public ConversationLanes(LaneConfig laneConfig,
+                             SendMessageUseCase sendMessageUseCase,
+                             ClusterMembership clusterMembership,
+                             RestTemplateBuilder restTemplateBuilder,
+                             MeterRegistry meterRegistry) {
+        this.laneConfig = laneConfig;
+        this.sendMessageUseCase = sendMessageUseCase;
+        this.clusterMembership = clusterMembership;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!laneConfig.isEnabled()) {
+            return;
+        }
+        // 转发接口不经过登录拦截器，没有令牌时任何人都能以任意用户身份发送
+        if (StrUtil.isBlank(laneConfig.getInternalToken())) {
+            throw new IllegalStateException("开启 im.lanes 时必须配置 im.lanes.internal-token");
+        }
+        if (laneConfig.getForwardTimeoutMs() <= laneConfig.getTimeoutMs()) {
+            throw new IllegalStateException("im.lanes.forward-timeout-ms 必须大于 im.lanes.timeout-ms");
+        }
+        int count = laneConfig.getLanes() > 0 ? laneConfig.getLanes() : Runtime.getRuntime().availableProcessors();
+        lanes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lanes.add(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(laneConfig.getQueueCapacity()),
+                    ThreadFactoryBuilder.create().setNamePrefix("im-lane-" + i + "-").build(),
+                    new ThreadPoolExecutor.AbortPolicy()));
+        }
+
+        Gauge.builder("im.lanes.queue.depth", this, ConversationLanes::getQueueDepth)
+                .description("各车道待执行的发送数之和")
+                .register(meterRegistry);
+        forwardedCount = Counter.builder("im.lanes.forwarded")
+                .description("转发给归属实例的发送数")
+                .register(meterRegistry);
+        forwardFailureCount = Counter.builder("im.lanes.forward.failure")
+                .description("归属实例不可达而拒绝的发送数")
+                .register(meterRegistry);
+
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(laneConfig.getForwardConnectTimeoutMs()))
+                .setReadTimeout(Duration.ofMillis(laneConfig.getForwardTimeoutMs()))
+                .build();
+        log.info("会话车道已开启: lanes={}", count);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (lanes == null) {
+            return;
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("车道关闭超时，剩余 {} 条未执行", lane.getQueue().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return laneConfig.isEnabled();
+    }
+
+    /**
+     * 发送消息：会话归属本实例时进入本地车道，否则转发给归属实例
+     * 归属实例不可达时不在本实例兜底：号段分配器在归属实例上还持有未用完的号段，
+     * 本地另起分配会和它交错，较小的序列号晚写入时摘要不再前进，因此直接返回可重试的错误，等环刷新后由新的归属实例执行
+     * @return 保存的消息实体
+     */
+    public Message send(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                        String originDeviceId) {
+        String owner = clusterMembership.ownerOf(conversationId);
+        if (owner == null || clusterMembership.isLocal(owner)) {
+            return sendLocal(conversationId, senderId, msgType, contentJson, originDeviceId);
+        }
+
+        String address = clusterMembership.addressOf(owner);
+        if (address != null) {
+            try {
+                Message message = forward(address, conversationId, senderId, msgType, contentJson, originDeviceId);
+                forwardedCount.increment();
+                return message;
+            } catch (RestClientException e) {
+                // 请求已经发出（读取超时、归属实例返回错误）时对方可能已经写入，不能当作未发送处理
+                if (!isConnectFailure(e)) {
+                    log.warn("转发发送失败: conversationId={}, owner={}", conversationId, owner, e);
+                    throw new RuntimeException("消息发送失败，请稍后重试");
+                }
+                log.warn("归属实例不可达: conversationId={}, owner={}", conversationId, owner, e);
+            }
+        }
+        // 归属实例不可达（刚下线、环尚未刷新）：请求没有到达对方，客户端可以放心重试
+        forwardFailureCount.increment();
+        throw new RuntimeException("会话归属实例切换中，请稍后重试");
+    }
+
+    /**
+     * 在本实例的车道上执行，不再路由（转发入口直接调用，避免实例视图不一致时来回转发）
+     */
+    public Message sendLocal(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                             String originDeviceId) {
+        if (lanes == null) {
+            throw new RuntimeException("未开启会话车道");
+        }
+        Future<Message> future;
+        try {
+            future = laneOf(conversationId).submit(
+                    () -> sendMessageUseCase.execute(conversationId, senderId, msgType, contentJson, originDeviceId));
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("系统繁忙，请稍后重试");
+        }
+
+        try {
+            return future.get(laneConfig.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("消息发送失败", e.getCause());
+        } catch (TimeoutException e) {
+            // 还在排队的取消并移出队列，调用方放弃之后不会再写入；已经开始执行的无法撤回
+            if (future.cancel(false)) {
+                laneOf(conversationId).remove((Runnable) future);
+            }
+            throw new RuntimeException("消息发送超时，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("消息发送被中断");
+        }
+    }
+
+    public int getQueueDepth() {
+        if (lanes == null) {
+            return 0;
+        }
+        int depth = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            depth += lane.getQueue().size();
+        }
+        return depth;
+    }
+
+    /**
+     * 是否在建立连接阶段失败（请求没有到达归属实例）
+     */
+    static boolean isConnectFailure(RestClientException e) {
+        if (!(e instanceof ResourceAccessException)) {
+            return false;
+        }
+        Throwable cause = e.getCause();
+        if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                || cause instanceof UnknownHostException) {
+            return true;
+        }
+        // HttpURLConnection 的连接超时和读取超时都是 SocketTimeoutException，只能按消息区分
+        return cause instanceof SocketTimeoutException && cause.getMessage() != null
+                && cause.getMessage().toLowerCase().contains("connect");
+    }
+
+    private ThreadPoolExecutor laneOf(Long conversationId) {
+        // 打散连续的会话ID，避免相邻会话扎堆在同一条车道
+        long h = conversationId * 0x9E3779B97F4A7C15L;
+        return lanes.get((int) Math.floorMod(h ^ (h >>> 32), (long) lanes.size()));
+    }
+
+    private Message forward(String address, Long conversationId, Long senderId, Integer msgType, String contentJson,
+                            String originDeviceId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(TOKEN_HEADER, laneConfig.getInternalToken());
+        ForwardSendRequest request = new ForwardSendRequest(conversationId, senderId, msgType, contentJson,
+                originDeviceId);
+
+        Result<Message> result = restTemplate.exchange(address + FORWARD_PATH, HttpMethod.POST,
+                new HttpEntity<>(request, headers), RESULT_TYPE).getBody();
+        if (result == null) {
+            throw new RuntimeException("消息转发失败");
+        }
+        // 业务异常（如不是会话成员）原样抛给调用方，不做兜底
+        if (result.getCode() == null || result.getCode() != 0) {
+            throw new RuntimeException(result.getMsg());
+        }
+        return result.getData();
+    }
+}
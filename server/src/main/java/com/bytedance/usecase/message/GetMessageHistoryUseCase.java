@@ -0,0 +1,93 @@
+package com.bytedance.usecase.message;
+
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.vo.HistoryPageVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 历史消息分页用例
+ * 按序列号做键集分页（不用 OFFSET），三种方式都走 uk_conv_seq 索引：
+ * beforeSeq 向前翻、afterSeq 向后翻、aroundSeq 取某条消息前后一屏（定位到引用/搜索结果）；
+ * 都不传时返回最新一页。每个方向多查一条判断是否还有更多，不做 COUNT
+ */
+@Component
+public class GetMessageHistoryUseCase {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final IMessageRepository messageRepository;
+    private final MembershipCache membershipCache;
+
+    @Autowired
+    public GetMessageHistoryUseCase(IMessageRepository messageRepository, MembershipCache membershipCache) {
+        this.messageRepository = messageRepository;
+        this.membershipCache = membershipCache;
+    }
+
+    public HistoryPageVO execute(Long userId, Long conversationId,
+                                 Long beforeSeq, Long afterSeq, Long aroundSeq, Integer limit) {
+        if (!membershipCache.isMember(conversationId, userId)) {
+            throw new RuntimeException("用户不是该会话成员，无法查看消息");
+        }
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        if (aroundSeq != null) {
+            // 锚点之前取一半，锚点及之后取另一半
+            int beforeCount = pageSize / 2;
+            Page before = pageBefore(conversationId, aroundSeq, beforeCount);
+            Page after = pageAfter(conversationId, aroundSeq - 1, pageSize - beforeCount);
+            List<Message> messages = new ArrayList<>(before.messages.size() + after.messages.size());
+            messages.addAll(before.messages);
+            messages.addAll(after.messages);
+            return HistoryPageVO.builder()
+                    .messages(messages)
+                    .hasMoreBefore(before.hasMore)
+                    .hasMoreAfter(after.hasMore)
+                    .build();
+        }
+        if (afterSeq != null) {
+            Page after = pageAfter(conversationId, afterSeq, pageSize);
+            return HistoryPageVO.builder().messages(after.messages).hasMoreAfter(after.hasMore).build();
+        }
+        Page before = pageBefore(conversationId, beforeSeq != null ? beforeSeq : Long.MAX_VALUE, pageSize);
+        return HistoryPageVO.builder().messages(before.messages).hasMoreBefore(before.hasMore).build();
+    }
+
+    /**
+     * seq < beforeSeq 的最近 limit 条，返回升序
+     */
+    private Page pageBefore(Long conversationId, long beforeSeq, int limit) {
+        List<Message> rows = messageRepository.findByConversationIdAndSeqBefore(conversationId, beforeSeq, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<Message> messages = new ArrayList<>(hasMore ? rows.subList(0, limit) : rows);
+        Collections.reverse(messages);
+        return new Page(messages, hasMore);
+    }
+
+    /**
+     * seq > afterSeq 的前 limit 条，升序
+     */
+    private Page pageAfter(Long conversationId, long afterSeq, int limit) {
+        List<Message> rows = messageRepository.findByConversationIdAndSeqAfter(conversationId, afterSeq, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        return new Page(hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows, hasMore);
+    }
+
+    private static final class Page {
+        private final List<Message> messages;
+        private final boolean hasMore;
+
+        Page(List<Message> messages, boolean hasMore) {
+            this.messages = messages;
+            this.hasMore = hasMore;
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package com.bytedance.usecase.message;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.bytedance.config.GroupCommitConfig;
+import com.bytedance.consumer.MessageDispatcher;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IConversationMemberRepository;
+import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.HotMessageCache;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.service.SeqAllocator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 消息批量提交写入器（group commit）
+ * 把短时间内并发的发送请求合并成一个事务：一条多行 INSERT、每个会话一次摘要更新、一次提交，
+ * 降低高并发下每条消息一次事务提交（一次刷盘）的开销
+ *
+ * 顺序保证：会话按 ID 固定到某个写入线程，线程内按到达顺序分配序列号
+ */
+@Slf4j
+@Component
+public class GroupCommitMessageWriter {
+
+    private final GroupCommitConfig config;
+    private final IMessageRepository messageRepository;
+    private final IConversationRepository conversationRepository;
+    private final IConversationMemberRepository conversationMemberRepository;
+    private final MembershipCache membershipCache;
+    private final SeqAllocator seqAllocator;
+    private final MessageDispatcher messageDispatcher;
+    private final HotMessageCache hotMessageCache;
+    private final SendMessageUseCase sendMessageUseCase;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageCodec messageCodec;
+    private final MeterRegistry meterRegistry;
+
+    private List<BlockingQueue<PendingSend>> queues;
+    private ExecutorService writerPool;
+    private volatile boolean running;
+
+    // 每批实际条数
+    private DistributionSummary batchSize;
+    // 批量写入失败后逐条重试的批次数
+    private Counter fallbackCount;
+
+    @Autowired
+    public GroupCommitMessageWriter(GroupCommitConfig config,
+                                    IMessageRepository messageRepository,
+                                    IConversationRepository conversationRepository,
+                                    IConversationMemberRepository conversationMemberRepository,
+                                    MembershipCache membershipCache,
+                                    SeqAllocator seqAllocator,
+                                    MessageDispatcher messageDispatcher,
+                                    HotMessageCache hotMessageCache,
+                                    SendMessageUseCase sendMessageUseCase,
+                                    TransactionTemplate transactionTemplate,
+                                    MessageCodec messageCodec,
+                                    MeterRegistry meterRegistry) {
+        this.config = config;
+        this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
+        this.conversationMemberRepository = conversationMemberRepository;
+        this.membershipCache = membershipCache;
+        this.seqAllocator = seqAllocator;
+        this.messageDispatcher = messageDispatcher;
+        this.hotMessageCache = hotMessageCache;
+        this.sendMessageUseCase = sendMessageUseCase;
+        this.transactionTemplate = transactionTemplate;
+        this.messageCodec = messageCodec;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        int writers = Math.max(1, config.getWriters());
+        queues = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            queues.add(new ArrayBlockingQueue<>(config.getQueueCapacity()));
+        }
+
+        batchSize = DistributionSummary.builder("im.group_commit.batch.size")
+                .description("每次提交包含的消息数")
+                .register(meterRegistry);
+        fallbackCount = Counter.builder("im.group_commit.fallback")
+                .description("批量写入失败后逐条重试的批次数")
+                .register(meterRegistry);
+        Gauge.builder("im.group_commit.queue.depth", this, GroupCommitMessageWriter::getQueueDepth)
+                .description("待写入的消息数")
+                .register(meterRegistry);
+
+        running = true;
+        writerPool = Executors.newFixedThreadPool(writers,
+                ThreadFactoryBuilder.create().setNamePrefix("im-group-commit-").build());
+        for (BlockingQueue<PendingSend> queue : queues) {
+            writerPool.execute(() -> runWriter(queue));
+        }
+        log.info("消息批量提交已开启: writers={}, maxBatchSize={}, maxWaitMicros={}",
+                writers, config.getMaxBatchSize(), config.getMaxWaitMicros());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (writerPool == null) {
+            return;
+        }
+        running = false;
+        writerPool.shutdown();
+        try {
+            if (!writerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("批量写入线程关闭超时，剩余 {} 条未写入", getQueueDepth());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 发送消息，阻塞到所在批次提交
+     * @return 保存的消息实体
+     */
+    public Message write(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                         String originDeviceId) {
+        PendingSend pending = enqueue(conversationId, senderId, msgType, contentJson, originDeviceId);
+        try {
+            return await(pending.future);
+        } catch (TimeoutException e) {
+            // 还在排队的标记取消，写入线程跳过；已经进入写入中的批次无法撤回，等这一批提交完拿到真实结果
+            if (pending.claimed.compareAndSet(false, true)) {
+                throw new RuntimeException("消息发送超时，请稍后重试");
+            }
+            try {
+                return await(pending.future);
+            } catch (TimeoutException again) {
+                throw new RuntimeException("消息发送超时，请稍后重试");
+            }
+        }
+    }
+
+    /**
+     * 发送消息，返回所在批次提交后完成的 Future
+     */
+    public CompletableFuture<Message> submit(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                                             String originDeviceId) {
+        return enqueue(conversationId, senderId, msgType, contentJson, originDeviceId).future;
+    }
+
+    private PendingSend enqueue(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                                String originDeviceId) {
+        // 成员和内容校验在调用线程完成，失败立即返回
+        if (!membershipCache.isMember(conversationId, senderId)) {
+            throw new RuntimeException("您不是该会话成员，无法发送消息");
+        }
+        messageCodec.checkJson(contentJson);
+        PendingSend pending = new PendingSend(conversationId, senderId, msgType, contentJson, originDeviceId);
+        if (!queueOf(conversationId).offer(pending)) {
+            throw new RuntimeException("系统繁忙，请稍后重试");
+        }
+        return pending;
+    }
+
+    private Message await(CompletableFuture<Message> future) throws TimeoutException {
+        try {
+            return future.get(config.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("消息发送失败", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("消息发送被中断");
+        }
+    }
+
+    public int getQueueDepth() {
+        if (queues == null) {
+            return 0;
+        }
+        int depth = 0;
+        for (BlockingQueue<PendingSend> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    private BlockingQueue<PendingSend> queueOf(Long conversationId) {
+        return queues.get((int) Math.floorMod(conversationId, (long) queues.size()));
+    }
+
+    private void runWriter(BlockingQueue<PendingSend> queue) {
+        int maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        List<PendingSend> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingSend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 凑批：先取走已排队的，不够再最多等待 maxWaitMicros
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(config.getMaxWaitMicros());
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingSend next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                // 调用方已超时放弃的不再写入，其余的标记为已取走
+                batch.removeIf(pending -> !pending.claimed.compareAndSet(false, true));
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("批量写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingSend> batch) {
+        List<Message> saved;
+        try {
+            saved = transactionTemplate.execute(status -> writeBatch(batch));
+        } catch (Exception e) {
+            // 整批回滚（如序列号冲突、死锁），逐条走普通发送流程，避免一条失败拖累整批
+            fallbackCount.increment();
+            log.warn("批量写入失败，逐条重试: size={}", batch.size(), e);
+            fallback(batch);
+            return;
+        }
+
+        batchSize.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(saved.get(i));
+        }
+    }
+
+    /**
+     * 在一个事务内写入一批消息
+     * @return 与 batch 一一对应的已保存消息
+     */
+    private List<Message> writeBatch(List<PendingSend> batch) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1. 分配序列号：按会话ID顺序（行锁分配器在这里对会话行加锁，与其他事务保持相同的加锁顺序），
+        // 同一会话内按到达顺序（稳定排序）
+        // 行锁分配器在同一事务内重复调用会返回相同的值，同一会话的后续消息在上一条基础上递增
+        Integer[] order = new Integer[batch.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> batch.get(i).conversationId));
+        Map<Long, Long> lastSeqs = new HashMap<>();
+        Message[] allocated = new Message[batch.size()];
+        for (int i : order) {
+            PendingSend pending = batch.get(i);
+            long seq = seqAllocator.next(pending.conversationId);
+            Long lastSeq = lastSeqs.get(pending.conversationId);
+            if (lastSeq != null && seq <= lastSeq) {
+                seq = lastSeq + 1;
+            }
+            lastSeqs.put(pending.conversationId, seq);
+
+            allocated[i] = Message.builder()
+                    .conversationId(pending.conversationId)
+                    .senderId(pending.senderId)
+                    .seq(seq)
+                    .msgType(pending.msgType)
+                    .content(pending.contentJson)
+                    .createdTime(now)
+                    .build();
+        }
+        List<Message> messages = Arrays.asList(allocated);
+
+        // 2. 一条多行 INSERT
+        messageRepository.saveBatch(messages);
+
+        // 3. 每个会话只用本批最后一条更新摘要；与第 1 步相同，按会话ID顺序加锁
+        Map<Long, Message> latest = new TreeMap<>();
+        for (Message message : messages) {
+            latest.put(message.getConversationId(), message);
+        }
+        for (Message message : latest.values()) {
+            conversationRepository.updateLastMessage(message.getConversationId(), message.getSeq(),
+                    SendMessageUseCase.buildSummary(messageCodec, message.getMsgType(), message.getContent()), now);
+        }
+
+        // 4. 发送者视为已读到自己发的最后一条（每人每会话只更新一次，按 (会话ID, 用户ID) 顺序加锁）
+        Map<Long, Map<Long, Long>> ackSeqs = new TreeMap<>();
+        for (Message message : messages) {
+            ackSeqs.computeIfAbsent(message.getConversationId(), k -> new TreeMap<>())
+                    .merge(message.getSenderId(), message.getSeq(), Math::max);
+        }
+        for (Map.Entry<Long, Map<Long, Long>> conversation : ackSeqs.entrySet()) {
+            for (Map.Entry<Long, Long> sender : conversation.getValue().entrySet()) {
+                conversationMemberRepository.advanceAckSeq(conversation.getKey(), sender.getKey(), sender.getValue());
+            }
+        }
+
+        // 5. 事务提交后推送，并放入最近消息缓存
+        for (int i = 0; i < messages.size(); i++) {
+            messageDispatcher.dispatch(messages.get(i), batch.get(i).originDeviceId);
+        }
+        hotMessageCache.appendAll(messages);
+        return messages;
+    }
+
+    private void fallback(List<PendingSend> batch) {
+        Set<Long> conversationIds = new LinkedHashSet<>();
+        for (PendingSend pending : batch) {
+            conversationIds.add(pending.conversationId);
+        }
+        // 校准分配器（共享计数器只会被抬高到已提交的最大值，不会回退）
+        for (Long conversationId : conversationIds) {
+            seqAllocator.reset(conversationId);
+        }
+        for (PendingSend pending : batch) {
+            try {
+                pending.future.complete(sendMessageUseCase.execute(pending.conversationId, pending.senderId,
+                        pending.msgType, pending.contentJson, pending.originDeviceId));
+            } catch (Exception e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 等待写入的发送请求
+     */
+    private static final class PendingSend {
+        private final Long conversationId;
+        private final Long senderId;
+        private final Integer msgType;
+        private final String contentJson;
+        private final String originDeviceId;
+        private final CompletableFuture<Message> future = new CompletableFuture<>();
+        // 调用方超时取消与写入线程取走互斥，先到者生效
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingSend(Long conversationId, Long senderId, Integer msgType, String contentJson, String originDeviceId) {
+            this.conversationId = conversationId;
+            this.senderId = senderId;
+            this.msgType = msgType;
+            this.contentJson = contentJson;
+            this.originDeviceId = originDeviceId;
+        }
+    }
+}
@@ -1,107 +1,150 @@
 package com.bytedance.usecase.message;
 
-import cn.hutool.json.JSONUtil;
-import com.bytedance.consumer.WebSocketServer;
-import com.bytedance.entity.Conversation;
-import com.bytedance.entity.ConversationMember;
+import com.bytedance.config.SeqConfig;
+import com.bytedance.consumer.MessageDispatcher;
 import com.bytedance.entity.Message;
 import com.bytedance.repository.IConversationMemberRepository;
 import com.bytedance.repository.IConversationRepository;
 import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.HotMessageCache;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.service.SeqAllocator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 /**
  * 发送消息用例
  * 封装发送消息的业务逻辑
  */
+@Slf4j
 @Component
 public class SendMessageUseCase {
 
     private final IMessageRepository messageRepository;
     private final IConversationRepository conversationRepository;
     private final IConversationMemberRepository conversationMemberRepository;
+    private final MembershipCache membershipCache;
+    private final SeqAllocator seqAllocator;
+    private final SeqConfig seqConfig;
+    private final MessageDispatcher messageDispatcher;
+    private final MessageCodec messageCodec;
+    private final HotMessageCache hotMessageCache;
 
     @Autowired
     public SendMessageUseCase(IMessageRepository messageRepository,
                              IConversationRepository conversationRepository,
-                             IConversationMemberRepository conversationMemberRepository) {
+                             IConversationMemberRepository conversationMemberRepository,
+                             MembershipCache membershipCache,
+                             SeqAllocator seqAllocator,
+                             SeqConfig seqConfig,
+                             MessageDispatcher messageDispatcher,
+                             MessageCodec messageCodec,
+                             HotMessageCache hotMessageCache) {
         this.messageRepository = messageRepository;
         this.conversationRepository = conversationRepository;
         this.conversationMemberRepository = conversationMemberRepository;
+        this.membershipCache = membershipCache;
+        this.seqAllocator = seqAllocator;
+        this.seqConfig = seqConfig;
+        this.messageDispatcher = messageDispatcher;
+        this.messageCodec = messageCodec;
+        this.hotMessageCache = hotMessageCache;
     }
 
     /**
-     * 执行发送消息逻辑
+     * 执行发送消息逻辑（系统消息等没有发起设备的场景）
      * @return 保存的消息实体
      */
     @Transactional(rollbackFor = Exception.class)
     public Message execute(Long conversationId, Long senderId, Integer msgType, String contentJson) {
-        // 1. 查询 conversation_member 表，看该用户是否在会话中
-        if (!conversationMemberRepository.existsByConversationIdAndUserId(conversationId, senderId)) {
+        return execute(conversationId, senderId, msgType, contentJson, null);
+    }
+
+    /**
+     * 执行发送消息逻辑
+     * @param originDeviceId 发起发送的设备，推送给发送者其他设备时跳过；为 null 时推送给发送者的所有设备
+     * @return 保存的消息实体
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public Message execute(Long conversationId, Long senderId, Integer msgType, String contentJson,
+                           String originDeviceId) {
+        // 1. 校验该用户是否在会话中（走本地成员缓存）
+        if (!membershipCache.isMember(conversationId, senderId)) {
             throw new RuntimeException("您不是该会话成员，无法发送消息");
         }
 
-        // 2. 锁会话 & 校验
-        Conversation conversation = conversationRepository.findByIdForUpdate(conversationId);
-        if (conversation == null) {
-            throw new RuntimeException("会话不存在");
-        }
+        // 内容原样存储并可能原样内嵌下发，写入前校验为合法 JSON
+        messageCodec.checkJson(contentJson);
 
-        // 3. 生成 Seq
-        long newSeq = conversation.getCurrentSeq() + 1;
+        // 2. 分配 Seq（会话不存在时由分配器抛出异常）
+        long newSeq = seqAllocator.next(conversationId);
 
-        // 4. 构建消息
+        // 3. 构建消息
+        LocalDateTime now = LocalDateTime.now();
         Message message = Message.builder()
                 .conversationId(conversationId)
                 .senderId(senderId)
                 .seq(newSeq)
                 .msgType(msgType)
                 .content(contentJson)
-                .createdTime(LocalDateTime.now())
+                .createdTime(now)
                 .build();
 
-        messageRepository.save(message);
+        // 4. 落库，uk_conv_seq 冲突说明分配器落后于数据库，校准后重新分配
+        saveWithSeqRetry(message);
 
-        // 5. 更新会话摘要
-        conversation.setCurrentSeq(newSeq);
-        conversation.setLastMsgTime(LocalDateTime.now());
+        // 5. 更新会话摘要和 current_seq（未读数由 current_seq - last_ack_seq 计算，不再逐个成员更新）
+        // 放在事务靠后，会话行锁只持有到提交为止
+        conversationRepository.updateLastMessage(conversationId, message.getSeq(),
+                buildSummary(messageCodec, msgType, contentJson), now);
 
-        // 根据类型生成摘要
-        String summary = "[未知消息]";
-        if (msgType == 1) {
-            summary = JSONUtil.parseObj(contentJson).getStr("text");
-        } else if (msgType == 2) {
-            summary = "[图片]";
-        } else if (msgType == 5) {
-            summary = "[待办任务]";
-        }
-        conversation.setLastMsgContent(summary);
-        conversationRepository.update(conversation);
+        // 6. 发送者视为已读到自己这条
+        conversationMemberRepository.advanceAckSeq(conversationId, senderId, message.getSeq());
 
-        // 6. 更新未读数
-        conversationMemberRepository.incrementUnreadCount(conversationId, senderId);
+        // 7. 实时推送：事务提交后由分发器异步推送，不占用会话行锁和请求线程
+        messageDispatcher.dispatch(message, originDeviceId);
 
-        // 7. 实时推送
-        List<ConversationMember> members = conversationMemberRepository
-                .findByConversationId(conversationId);
+        // 8. 事务提交后放入最近消息缓存，同步接口直接命中
+        hotMessageCache.append(message);
 
-        // 构建推送 JSON
-        String pushJson = JSONUtil.toJsonStr(message);
+        return message;
+    }
 
-        // 循环推送
-        for (ConversationMember member : members) {
-            // 排除自己
-            if (!member.getUserId().equals(senderId)) {
-                WebSocketServer.pushMessage(member.getUserId(), pushJson);
+    private void saveWithSeqRetry(Message message) {
+        Long conversationId = message.getConversationId();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                messageRepository.save(message);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= seqConfig.getMaxRetries()) {
+                    throw new RuntimeException("消息序列号冲突，请稍后重试");
+                }
+                log.warn("消息序列号冲突，重新分配: conversationId={}, seq={}", conversationId, message.getSeq());
+                seqAllocator.reset(conversationId);
+                message.setSeq(seqAllocator.next(conversationId));
             }
         }
+    }
 
-        return message;
+    /**
+     * 根据类型生成摘要
+     */
+    static String buildSummary(MessageCodec messageCodec, Integer msgType, String contentJson) {
+        String summary = "[未知消息]";
+        if (msgType == 1) {
+            summary = messageCodec.readText(contentJson);
+        } else if (msgType == 2) {
+            summary = "[图片]";
+        } else if (msgType == 5) {
+            summary = "[待办任务]";
+        }
+        return summary;
     }
 }
-
@@ -0,0 +1,41 @@
+package com.bytedance.usecase.message;
+
+import com.bytedance.entity.Message;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量同步的空洞保护
+ * seq 在事务外分配时（redis / segment），seq=11 可能晚于 seq=12 提交；
+ * 客户端拿到 12 后游标越过 11，11 提交后再也同步不到。
+ * 同步结果在刚写入的消息前出现空洞时截断，等空洞补上或超过宽限时间（视为回滚留下的永久空洞）后再返回
+ */
+final class SeqGapGuard {
+
+    private SeqGapGuard() {
+    }
+
+    /**
+     * @param messages 按 seq 升序、seq > afterSeq 的消息
+     * @return 可以安全返回给客户端的前缀
+     */
+    static List<Message> visiblePrefix(List<Message> messages, long afterSeq, long graceMs) {
+        if (graceMs <= 0 || messages.isEmpty()) {
+            return messages;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(graceMs, ChronoUnit.MILLIS);
+        long expected = afterSeq + 1;
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if (message.getSeq() != expected
+                    && message.getCreatedTime() != null && message.getCreatedTime().isAfter(cutoff)) {
+                return new ArrayList<>(messages.subList(0, i));
+            }
+            expected = message.getSeq() + 1;
+        }
+        return messages;
+    }
+}
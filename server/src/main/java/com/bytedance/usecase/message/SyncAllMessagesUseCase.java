@@ -0,0 +1,209 @@
+package com.bytedance.usecase.message;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.bytedance.config.SeqConfig;
+import com.bytedance.config.SyncConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.vo.SyncAllVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 多会话增量同步用例
+ * 重连时一次请求拉取多个会话的增量：按批并行查库（批大小即并行度），按请求顺序累计消息体积，
+ * 预算用完或会话数超限时，剩余部分编码为续传令牌由客户端再次请求
+ */
+@Slf4j
+@Component
+public class SyncAllMessagesUseCase {
+
+    // 单条消息除内容外的估算体积（字段名、ID、时间等）
+    private static final int MESSAGE_OVERHEAD_BYTES = 160;
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private final IMessageRepository messageRepository;
+    private final MembershipCache membershipCache;
+    private final SyncConfig config;
+    private final SeqConfig seqConfig;
+
+    private ThreadPoolExecutor executor;
+
+    @Autowired
+    public SyncAllMessagesUseCase(IMessageRepository messageRepository,
+                                  MembershipCache membershipCache,
+                                  SyncConfig config,
+                                  SeqConfig seqConfig) {
+        this.messageRepository = messageRepository;
+        this.membershipCache = membershipCache;
+        this.config = config;
+        this.seqConfig = seqConfig;
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, config.getParallelism());
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                ThreadFactoryBuilder.create().setNamePrefix("im-sync-").build(),
+                // 队列满时由请求线程自己查，起到限流作用
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param cursors 会话ID -> 客户端已有的最大序列号（按优先级排列）
+     * @param continuation 上次返回的续传令牌，不为空时忽略 cursors
+     */
+    public SyncAllVO execute(Long userId, Map<Long, Long> cursors, String continuation) {
+        Map<Long, Long> pending = continuation != null && !continuation.isEmpty()
+                ? decodeContinuation(continuation)
+                : (cursors == null ? new LinkedHashMap<>() : cursors);
+
+        // 只同步用户所在的会话
+        List<Long> conversationIds = new ArrayList<>();
+        for (Long conversationId : pending.keySet()) {
+            if (conversationId != null && membershipCache.isMember(conversationId, userId)) {
+                conversationIds.add(conversationId);
+            }
+        }
+
+        List<SyncAllVO.ConversationDelta> deltas = new ArrayList<>();
+        Map<Long, Long> remaining = new LinkedHashMap<>();
+        long budget = config.getMaxBytes();
+        int limit = config.getPerConversationLimit();
+        int batchSize = Math.max(1, config.getParallelism());
+        int maxConversations = Math.min(conversationIds.size(), config.getMaxConversations());
+
+        int index = 0;
+        while (index < maxConversations && budget > 0) {
+            int end = Math.min(maxConversations, index + batchSize);
+            List<Future<List<Message>>> futures = new ArrayList<>(end - index);
+            for (int i = index; i < end; i++) {
+                Long conversationId = conversationIds.get(i);
+                long afterSeq = afterSeq(pending.get(conversationId));
+                // 多查一条判断是否还有更多
+                futures.add(executor.submit(() ->
+                        messageRepository.findByConversationIdAndSeqAfter(conversationId, afterSeq, limit + 1)));
+            }
+            for (int i = index; i < end; i++) {
+                Long conversationId = conversationIds.get(i);
+                long afterSeq = afterSeq(pending.get(conversationId));
+                // 空洞之后可能还有未提交的消息，这部分等客户端下次同步
+                List<Message> messages = SeqGapGuard.visiblePrefix(
+                        await(futures.get(i - index)), afterSeq, seqConfig.getGapGraceMs());
+                if (budget <= 0) {
+                    // 预算已在本批前面的会话用完，整个会话留到下次
+                    remaining.put(conversationId, afterSeq);
+                    continue;
+                }
+                int take = Math.min(messages.size(), limit);
+                int kept = 0;
+                while (kept < take && (kept == 0 || budget > 0)) {
+                    budget -= estimateBytes(messages.get(kept));
+                    kept++;
+                }
+                // 超过单会话上限，或预算不够没取完
+                boolean hasMore = messages.size() > limit || kept < take;
+                List<Message> page = new ArrayList<>(messages.subList(0, kept));
+                long nextSeq = page.isEmpty() ? afterSeq : page.get(page.size() - 1).getSeq();
+                if (!page.isEmpty() || hasMore) {
+                    deltas.add(SyncAllVO.ConversationDelta.builder()
+                            .conversationId(conversationId)
+                            .messages(page)
+                            .hasMore(hasMore)
+                            .nextSeq(nextSeq)
+                            .build());
+                }
+                if (hasMore) {
+                    remaining.put(conversationId, nextSeq);
+                }
+            }
+            index = end;
+        }
+        // 预算或会话数上限之外的会话原样留到下次
+        for (int i = index; i < conversationIds.size(); i++) {
+            remaining.put(conversationIds.get(i), afterSeq(pending.get(conversationIds.get(i))));
+        }
+
+        return SyncAllVO.builder()
+                .conversations(deltas)
+                .continuation(remaining.isEmpty() ? null : encodeContinuation(remaining))
+                .build();
+    }
+
+    private List<Message> await(Future<List<Message>> future) {
+        try {
+            return future.get(config.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("同步消息被中断", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("同步消息失败", e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("同步消息超时", e);
+        }
+    }
+
+    private static long afterSeq(Long seq) {
+        return seq == null || seq < 0 ? 0 : seq;
+    }
+
+    private static long estimateBytes(Message message) {
+        int content = message.getContent() == null ? 0 : message.getContent().length();
+        int mentions = message.getMentions() == null ? 0 : message.getMentions().length();
+        // 按 UTF-8 中文 3 字节的上限估算
+        return MESSAGE_OVERHEAD_BYTES + 3L * (content + mentions);
+    }
+
+    /**
+     * 续传令牌：“会话ID:序列号”逗号分隔后做 URL 安全的 Base64，客户端原样传回
+     */
+    static String encodeContinuation(Map<Long, Long> remaining) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Long, Long> entry : remaining.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Map<Long, Long> decodeContinuation(String continuation) {
+        Map<Long, Long> cursors = new LinkedHashMap<>();
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(continuation), StandardCharsets.UTF_8);
+            for (String pair : decoded.split(",")) {
+                int colon = pair.indexOf(':');
+                cursors.put(Long.parseLong(pair.substring(0, colon)), Long.parseLong(pair.substring(colon + 1)));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new RuntimeException("续传令牌无效");
+        }
+        return cursors;
+    }
+}
@@ -1,7 +1,9 @@
 package com.bytedance.usecase.message;
 
+import com.bytedance.config.SeqConfig;
 import com.bytedance.entity.Message;
 import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.HotMessageCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -14,11 +16,19 @@ import java.util.List;
 @Component
 public class SyncMessagesUseCase {
 
+    private static final int SYNC_LIMIT = 100;
+
     private final IMessageRepository messageRepository;
+    private final HotMessageCache hotMessageCache;
+    private final SeqConfig seqConfig;
 
     @Autowired
-    public SyncMessagesUseCase(IMessageRepository messageRepository) {
+    public SyncMessagesUseCase(IMessageRepository messageRepository,
+                               HotMessageCache hotMessageCache,
+                               SeqConfig seqConfig) {
         this.messageRepository = messageRepository;
+        this.hotMessageCache = hotMessageCache;
+        this.seqConfig = seqConfig;
     }
 
     /**
@@ -28,9 +38,16 @@ public class SyncMessagesUseCase {
      * @return 消息列表
      */
     public List<Message> execute(Long conversationId, Long afterSeq) {
+        // 活跃会话拉取最近的消息时，直接从最近消息缓存返回
+        List<Message> cached = hotMessageCache.findAfter(conversationId, afterSeq, SYNC_LIMIT);
+        if (cached != null) {
+            return cached;
+        }
         // 查找该会话中 seq > afterSeq 的所有消息，按 seq 升序排列
         // 限制一次拉取的数量为 100
-        return messageRepository.findByConversationIdAndSeqAfter(conversationId, afterSeq, 100);
+        List<Message> messages = messageRepository.findByConversationIdAndSeqAfter(conversationId, afterSeq, SYNC_LIMIT);
+        // 不返回还可能有未提交消息的空洞之后的部分
+        return SeqGapGuard.visiblePrefix(messages, afterSeq, seqConfig.getGapGraceMs());
     }
 }
 
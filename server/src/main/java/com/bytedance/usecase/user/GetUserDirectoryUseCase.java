@@ -0,0 +1,87 @@
+package com.bytedance.usecase.user;
+
+import com.bytedance.entity.User;
+import com.bytedance.repository.IUserRepository;
+import com.bytedance.vo.UserDirectoryVO;
+import com.bytedance.vo.UserVO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 用户目录（通讯录）同步用例
+ * 用户每次变更都会分配递增的目录版本号：
+ * 不带 since 时返回完整快照（按版本号缓存在本地，版本不变时不查库），
+ * 带 since 时只返回该版本之后变更的用户，变更过多时退回完整快照
+ */
+@Component
+public class GetUserDirectoryUseCase {
+
+    // 增量超过该条数时直接返回完整快照
+    private static final int MAX_DELTA = 1000;
+
+    private final IUserRepository userRepository;
+
+    private volatile UserDirectoryVO snapshot;
+
+    @Autowired
+    public GetUserDirectoryUseCase(IUserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @param since 客户端已同步到的版本号，为空表示首次同步
+     */
+    public UserDirectoryVO execute(Long since) {
+        long version = userRepository.currentDirectoryVersion();
+        // since 比当前版本还大（如数据库重建），客户端数据不可信，返回完整快照
+        if (since == null || since <= 0 || since > version) {
+            return snapshot(version);
+        }
+        if (since == version) {
+            return UserDirectoryVO.builder().version(version).full(false).users(Collections.emptyList()).build();
+        }
+
+        List<User> changed = userRepository.findDirectoryAfter(since, MAX_DELTA + 1);
+        if (changed.size() > MAX_DELTA) {
+            return snapshot(version);
+        }
+        // 读取期间提交的变更也可能出现在结果中，版本号取两者较大值
+        for (User user : changed) {
+            version = Math.max(version, user.getVersion());
+        }
+        return UserDirectoryVO.builder()
+                .version(version)
+                .full(false)
+                .users(changed.stream().map(UserVO::from).collect(Collectors.toList()))
+                .build();
+    }
+
+    private UserDirectoryVO snapshot(long version) {
+        UserDirectoryVO current = snapshot;
+        if (current != null && current.getVersion() >= version) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.getVersion() >= version) {
+                return current;
+            }
+            List<User> users = userRepository.findDirectory();
+            long snapshotVersion = version;
+            for (User user : users) {
+                snapshotVersion = Math.max(snapshotVersion, user.getVersion());
+            }
+            current = UserDirectoryVO.builder()
+                    .version(snapshotVersion)
+                    .full(true)
+                    .users(Collections.unmodifiableList(users.stream().map(UserVO::from).collect(Collectors.toList())))
+                    .build();
+            snapshot = current;
+            return current;
+        }
+    }
+}
@@ -4,8 +4,10 @@ import cn.hutool.crypto.digest.BCrypt;
 import com.bytedance.dto.RegisterRequest;
 import com.bytedance.entity.User;
 import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.UserSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 
@@ -17,15 +19,18 @@ import java.time.LocalDateTime;
 public class RegisterUserUseCase {
 
     private final IUserRepository userRepository;
+    private final UserSearchIndex userSearchIndex;
 
     @Autowired
-    public RegisterUserUseCase(IUserRepository userRepository) {
+    public RegisterUserUseCase(IUserRepository userRepository, UserSearchIndex userSearchIndex) {
         this.userRepository = userRepository;
+        this.userSearchIndex = userSearchIndex;
     }
 
     /**
      * 执行注册逻辑
      */
+    @Transactional(rollbackFor = Exception.class)
     public void execute(RegisterRequest request) {
         // 1. 业务校验：检查用户名是否已存在
         if (userRepository.existsByUsername(request.getUsername())) {
@@ -43,8 +48,11 @@ public class RegisterUserUseCase {
                 .createdTime(LocalDateTime.now())
                 .build();
 
-        // 4. 保存用户
+        // 4. 保存用户（同时分配目录版本号）
         userRepository.save(user);
+
+        // 5. 提交后加入搜索索引，本实例立即可搜到
+        userSearchIndex.upsert(user);
     }
 }
 
@@ -1,10 +1,17 @@
 package com.bytedance.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -44,6 +51,33 @@ public class RedisUtils {
         return stringRedisTemplate.opsForValue().get(key);
     }
 
+    /**
+     * 批量读取缓存（MGET，一次往返）
+     * @return 与 keys 一一对应的值，不存在的 key 对应 null
+     */
+    public List<String> multiGet(List<String> keys) {
+        return stringRedisTemplate.opsForValue().multiGet(keys);
+    }
+
+    /**
+     * 批量写入缓存并设置过期时间（Pipeline，一次往返）
+     * @param timeout 过期时间 (秒)
+     */
+    public void multiSet(Map<String, String> values, long timeout) {
+        if (values.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                connection.stringCommands().setEx(
+                        entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        timeout,
+                        entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
     /**
      * 删除缓存
      */
@@ -116,6 +150,71 @@ public class RedisUtils {
         return stringRedisTemplate.opsForHash().get(key, hashKey);
     }
 
+    /**
+     * Hash获取全部字段
+     */
+    public Map<Object, Object> hGetAll(String key) {
+        return stringRedisTemplate.opsForHash().entries(key);
+    }
+
+    /**
+     * 批量读取多个 Hash 的字段名（Pipeline，一次往返）
+     * @return 与 keys 一一对应的字段集合，不存在的 key 对应空集合
+     */
+    @SuppressWarnings("unchecked")
+    public List<Set<String>> multiHKeys(List<String> keys) {
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hKeys(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        List<Set<String>> fields = new ArrayList<>(results.size());
+        for (Object result : results) {
+            fields.add(result == null ? Collections.emptySet() : (Set<String>) result);
+        }
+        return fields;
+    }
+
+    /**
+     * 批量读取多个 Hash 的全部字段值（Pipeline，一次往返）
+     * @return 与 keys 一一对应的值列表，不存在的 key 对应空列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<List<String>> multiHValues(List<String> keys) {
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.hashCommands().hVals(key.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        List<List<String>> values = new ArrayList<>(results.size());
+        for (Object result : results) {
+            values.add(result == null ? Collections.emptyList() : (List<String>) result);
+        }
+        return values;
+    }
+
+    /**
+     * 批量写入多个 Hash 的同名字段并设置过期时间（Pipeline，一次往返）
+     * @param values key -> 字段值
+     * @param timeout 过期时间 (秒)
+     */
+    public void multiHSetExpire(Map<String, String> values, String field, long timeout) {
+        if (values.isEmpty()) {
+            return;
+        }
+        byte[] fieldBytes = field.getBytes(StandardCharsets.UTF_8);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                connection.hashCommands().hSet(key, fieldBytes, entry.getValue().getBytes(StandardCharsets.UTF_8));
+                connection.keyCommands().expire(key, timeout);
+            }
+            return null;
+        });
+    }
+
     /**
      * Hash删除
      */
@@ -218,6 +317,63 @@ public class RedisUtils {
         return stringRedisTemplate.opsForSet().size(key);
     }
 
+    // ==================== ZSet操作 ====================
+
+    /**
+     * 批量添加 ZSet 成员（一条 ZADD）
+     */
+    public Long zAdd(String key, Set<ZSetOperations.TypedTuple<String>> tuples) {
+        return stringRedisTemplate.opsForZSet().add(key, tuples);
+    }
+
+    /**
+     * ZSet添加单个成员（已存在时更新分数）
+     */
+    public Boolean zAdd(String key, String value, double score) {
+        return stringRedisTemplate.opsForZSet().add(key, value, score);
+    }
+
+    /**
+     * ZSet移除成员
+     */
+    public Long zRemove(String key, String... values) {
+        return stringRedisTemplate.opsForZSet().remove(key, (Object[]) values);
+    }
+
+    /**
+     * ZSet按分数范围获取成员
+     */
+    public Set<String> zRangeByScore(String key, double min, double max) {
+        return stringRedisTemplate.opsForZSet().rangeByScore(key, min, max);
+    }
+
+    /**
+     * ZSet按分数范围删除成员
+     */
+    public Long zRemoveRangeByScore(String key, double min, double max) {
+        return stringRedisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+    }
+
+    /**
+     * 按分数倒序滚动分页（ZREVRANGEBYSCORE key max 0 WITHSCORES LIMIT offset count）
+     */
+    public Set<ZSetOperations.TypedTuple<String>> zReverseRangeByScoreWithScores(String key, double max,
+                                                                                long offset, long count) {
+        return stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(key, 0, max, offset, count);
+    }
+
+    // ==================== 发布订阅 ====================
+
+    /**
+     * 发布消息到频道
+     * @return 收到消息的订阅者数量
+     */
+    public Long publish(String channel, String message) {
+        return stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                channel.getBytes(StandardCharsets.UTF_8),
+                message.getBytes(StandardCharsets.UTF_8)));
+    }
+
     // ==================== 分布式锁 ====================
 
     /**
@@ -253,4 +409,23 @@ public class RedisUtils {
         );
         return result != null && result > 0;
     }
+
+    // ==================== Lua脚本 ====================
+
+    /**
+     * 对单个 key 执行 Lua 脚本
+     * @param script 脚本（建议定义为常量，便于复用 SHA）
+     * @param key 脚本中的 KEYS[1]
+     * @param args 脚本中的 ARGV
+     */
+    public <T> T execute(RedisScript<T> script, String key, String... args) {
+        return stringRedisTemplate.execute(script, Collections.singletonList(key), (Object[]) args);
+    }
+
+    /**
+     * 对多个 key 执行 Lua 脚本
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, String... args) {
+        return stringRedisTemplate.execute(script, keys, (Object[]) args);
+    }
 }
@@ -20,7 +20,7 @@ public class ConversationVO {
     private String lastMsgContent; // 最后一条消息预览
     private LocalDateTime lastMsgTime; // 最后一条消息时间
 
-    private Integer unreadCount;   // 未读数红点
+    private Integer unreadCount;   // 未读数红点（current_seq - last_ack_seq）
 
     private Boolean isTop;
 }
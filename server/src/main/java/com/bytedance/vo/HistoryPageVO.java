@@ -0,0 +1,23 @@
+package com.bytedance.vo;
+
+import com.bytedance.entity.Message;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 历史消息分页结果
+ * messages 按序列号升序；hasMoreBefore / hasMoreAfter 表示该方向是否还有消息（只在本次翻页的方向上给出）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPageVO {
+    private List<Message> messages;
+    private Boolean hasMoreBefore;
+    private Boolean hasMoreAfter;
+}
@@ -0,0 +1,52 @@
+package com.bytedance.vo;
+
+import com.bytedance.entity.Message;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息下发视图
+ * content / mentions 在库里已经是 JSON 字符串，这里原样内嵌到输出中，不再作为字符串二次转义
+ * 写入时已校验为合法 JSON（SendMessageUseCase）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageVO {
+    private Long messageId;
+    private Long conversationId;
+    private Long senderId;
+    private Long seq;
+    private Long quoteId;
+    private Integer msgType;
+
+    @JsonRawValue
+    private String content;
+
+    @JsonRawValue
+    private String mentions;
+
+    private Integer isRevoked;
+    private LocalDateTime createdTime;
+
+    public static MessageVO from(Message message) {
+        return MessageVO.builder()
+                .messageId(message.getMessageId())
+                .conversationId(message.getConversationId())
+                .senderId(message.getSenderId())
+                .seq(message.getSeq())
+                .quoteId(message.getQuoteId())
+                .msgType(message.getMsgType())
+                .content(message.getContent())
+                .mentions(message.getMentions())
+                .isRevoked(message.getIsRevoked())
+                .createdTime(message.getCreatedTime())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.bytedance.vo;
+
+import com.bytedance.entity.Message;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 多会话增量同步结果
+ * continuation 不为空时，客户端处理完本次结果后带上它再请求一次，直到为空
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncAllVO {
+    private List<ConversationDelta> conversations;
+    private String continuation;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConversationDelta {
+        private Long conversationId;
+        private List<Message> messages;
+        private Boolean hasMore;  // 是否还有未返回的消息（已放入续传令牌）
+        private Long nextSeq;     // 下次从该序列号之后继续同步
+    }
+}
@@ -0,0 +1,23 @@
+package com.bytedance.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 用户目录（通讯录）同步结果
+ * full 为 true 时 users 是完整快照，客户端整体替换；否则只包含 since 之后变更的用户，按 userId 覆盖本地记录。
+ * 客户端保存 version，下次作为 since 传回
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectoryVO {
+    private Long version;
+    private Boolean full;
+    private List<UserVO> users;
+}
@@ -1,5 +1,6 @@
 package com.bytedance.vo;
 
+import com.bytedance.entity.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,4 +14,12 @@ public class UserVO {
     private Long userId;
     private String username;
     private String avatarUrl;
+
+    public static UserVO from(User user) {
+        return UserVO.builder()
+                .userId(user.getUserId())
+                .username(user.getUsername())
+                .avatarUrl(user.getAvatarUrl())
+                .build();
+    }
 }
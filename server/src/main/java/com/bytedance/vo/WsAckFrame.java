@@ -0,0 +1,28 @@
+package com.bytedance.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * WebSocket 上行发送的回执帧
+ * 成功时携带服务端分配的 messageId / seq，失败时只有 error
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WsAckFrame {
+    public static final String TYPE = "ack";
+
+    private String type;
+    private String clientMsgId;
+    private Long conversationId;
+    private Long messageId;
+    private Long seq;
+    private LocalDateTime createdTime;
+    private String error;
+}
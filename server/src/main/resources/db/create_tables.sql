@@ -5,6 +5,7 @@ create table conversation_members
     conversation_id bigint                              not null,
     user_id         bigint                              not null,
     last_ack_seq    bigint    default 0                 null comment '已确认同步到的序列号',
+    last_delivered_seq bigint default 0                 not null comment '已推送/补发到的序列号',
     unread_count    int       default 0                 null comment '未读消息数',
     role            tinyint   default 1                 null comment '角色: 1=成员, 2=管理员',
     is_muted        tinyint   default 0                 null comment '免打扰',
@@ -15,6 +16,9 @@ create table conversation_members
 )
     comment '会话成员表';
 
+create index idx_user
+    on conversation_members (user_id);
+
 create table conversations
 (
     conversation_id  bigint auto_increment
@@ -71,6 +75,20 @@ create table users
     username     varchar(64)                            not null comment '用户名/姓名',
     avatar_url   varchar(255) default ''                null comment '头像链接',
     password     varchar(255)                           null comment '密码（可为空，用于测试）',
-    created_time timestamp    default CURRENT_TIMESTAMP null
+    created_time timestamp    default CURRENT_TIMESTAMP null,
+    version      bigint       default 0                 not null comment '最后一次变更时的目录版本号'
 )
     comment '用户信息表';
+
+create index idx_version
+    on users (version);
+
+create table user_directory
+(
+    id      tinyint                not null
+        primary key,
+    version bigint       default 0 not null comment '用户目录当前版本号，每次用户变更加一'
+)
+    comment '用户目录版本表（单行）';
+
+insert into user_directory (id, version) values (1, 0);
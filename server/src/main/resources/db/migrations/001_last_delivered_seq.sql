@@ -0,0 +1,8 @@
+-- 重连补发改为按送达游标：补发 last_delivered_seq 与 last_ack_seq 中较大者之后的消息
+alter table conversation_members
+    add column last_delivered_seq bigint default 0 not null comment '已推送/补发到的序列号' after last_ack_seq;
+
+-- 回填：上线前的历史消息视为已送达（客户端通过同步接口拉取），避免首次重连从最早的历史开始补发
+update conversation_members cm
+    join conversations c on c.conversation_id = cm.conversation_id
+set cm.last_delivered_seq = greatest(cm.last_delivered_seq, ifnull(cm.last_ack_seq, 0), ifnull(c.current_seq, 0));
@@ -0,0 +1,5 @@
+-- 未读数改为 conversations.current_seq - last_ack_seq 计算后，unread_count 不再维护
+-- 回填已读游标：老数据 last_ack_seq 大多为 0，按旧的 unread_count 换算，避免升级后未读数变成全部历史消息数
+update conversation_members cm
+    join conversations c on c.conversation_id = cm.conversation_id
+set cm.last_ack_seq = greatest(ifnull(cm.last_ack_seq, 0), ifnull(c.current_seq, 0) - ifnull(cm.unread_count, 0));
@@ -0,0 +1,24 @@
+-- 用户目录增量同步：users 记录最后一次变更时的目录版本号，客户端按版本号拉取变更
+alter table users
+    add column version bigint default 0 not null comment '最后一次变更时的目录版本号';
+
+create index idx_version
+    on users (version);
+
+-- 回填：老用户版本号为 0 时增量同步（version > 0）拉不到，按 user_id 分配互不相同的版本号
+update users
+set version = user_id
+where version = 0;
+
+create table user_directory
+(
+    id      tinyint                not null
+        primary key,
+    version bigint       default 0 not null comment '用户目录当前版本号，每次用户变更加一'
+)
+    comment '用户目录版本表（单行）';
+
+-- 目录版本从回填后的最大值继续，新的变更不会与老用户的版本号重复
+insert into user_directory (id, version)
+select 1, ifnull(max(version), 0)
+from users;
@@ -0,0 +1,156 @@
+package com.bytedance.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.bytedance.config.WireConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.entity.User;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON 编解码微基准（JMH）
+ * 对比 Hutool JSONUtil 与 JacksonMessageCodec 在推送帧、会话摘要、用户缓存上的耗时，
+ * 以及推送帧 content 作为字符串（二次转义）与原样内嵌两种格式的耗时和字节数
+ *
+ * 不依赖 MySQL 和 Redis，运行方式：
+ * mvn test -Pbenchmark -Dtest=CodecBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// 在 surefire 进程内运行（surefire 的 classpath 无法直接传给子进程），结果用于相对比较
+@Fork(0)
+public class CodecBenchmark {
+
+    private final MessageCodec codec = new JacksonMessageCodec();
+    private final MessageCodec rawCodec = new JacksonMessageCodec(rawContent());
+
+    private Message message;
+    private User user;
+    private String userJson;
+    private String contentJson;
+
+    @Setup
+    public void setup() {
+        LocalDateTime now = LocalDateTime.now();
+        contentJson = "{\"text\":\"今天下午三点在 3 号会议室评审发送链路的改动，记得带上压测数据\"}";
+        message = Message.builder()
+                .messageId(123456789L)
+                .conversationId(1001L)
+                .senderId(42L)
+                .seq(98765L)
+                .msgType(1)
+                .content(contentJson)
+                .isRevoked(0)
+                .createdTime(now)
+                .build();
+        user = User.builder()
+                .userId(42L)
+                .username("zhangsan")
+                .avatarUrl("http://localhost:8081/files/avatar/42.png")
+                .createdTime(now)
+                .build();
+        userJson = JSONUtil.toJsonStr(user);
+    }
+
+    @Benchmark
+    public String hutoolEncodeMessage() {
+        return JSONUtil.toJsonStr(message);
+    }
+
+    @Benchmark
+    public String jacksonEncodeMessage() {
+        return codec.encode(message);
+    }
+
+    @Benchmark
+    public String jacksonEncodeMessageRaw() {
+        return rawCodec.encodeMessage(message);
+    }
+
+    @Benchmark
+    public String hutoolEncodeUser() {
+        return JSONUtil.toJsonStr(user);
+    }
+
+    @Benchmark
+    public String jacksonEncodeUser() {
+        return codec.encode(user);
+    }
+
+    @Benchmark
+    public User hutoolDecodeUser() {
+        return JSONUtil.toBean(userJson, User.class);
+    }
+
+    @Benchmark
+    public User jacksonDecodeUser() {
+        return codec.decode(userJson, User.class);
+    }
+
+    @Benchmark
+    public String hutoolReadText() {
+        return JSONUtil.parseObj(contentJson).getStr("text");
+    }
+
+    @Benchmark
+    public String jacksonReadText() {
+        return codec.readText(contentJson);
+    }
+
+    /**
+     * 各类消息两种下发格式的字节数
+     */
+    @Test
+    void printPayloadSizes() {
+        setup();
+        String[][] samples = {
+                {"1", contentJson},
+                {"2", "{\"url\":\"http://localhost:8081/files/2024/01/02/3f2a9c1e.png\",\"width\":1080,\"height\":1920}"},
+                {"5", "{\"title\":\"发布评审\",\"items\":[{\"text\":\"整理压测数据\",\"done\":false},{\"text\":\"更新文档\",\"done\":true}]}"}
+        };
+        for (String[] sample : samples) {
+            message.setMsgType(Integer.parseInt(sample[0]));
+            message.setContent(sample[1]);
+            int legacy = codec.encodeMessage(message).getBytes(StandardCharsets.UTF_8).length;
+            int raw = rawCodec.encodeMessage(message).getBytes(StandardCharsets.UTF_8).length;
+            System.out.printf("[msgType=%s] string content=%d bytes, raw content=%d bytes, saved=%d bytes (%.1f%%)%n",
+                    sample[0], legacy, raw, legacy - raw, (legacy - raw) * 100.0 / legacy);
+        }
+    }
+
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CodecBenchmark.class.getName())
+                .build())
+                .run();
+    }
+
+    private static WireConfig rawContent() {
+        WireConfig wireConfig = new WireConfig();
+        wireConfig.setRawContent(true);
+        return wireConfig;
+    }
+}
@@ -0,0 +1,81 @@
+package com.bytedance.benchmark;
+
+import com.bytedance.MainApplication;
+import com.bytedance.entity.User;
+import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.IConversationService;
+import com.bytedance.usecase.conversation.GetConversationListUseCase;
+import com.bytedance.utils.RedisUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 会话列表组装耗时压测
+ * 分别构造 10/100/1000 个单聊会话，统计冷缓存（用户信息不在 Redis）和热缓存下的单次耗时
+ *
+ * 需要本地 MySQL 和 Redis（application.yaml 中的配置），运行方式：
+ * mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class ConversationListBenchmark {
+
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void listBySize() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MainApplication.class)
+                .web(WebApplicationType.NONE)
+                .run()) {
+            for (int size : new int[]{10, 100, 1000}) {
+                run(size, context);
+            }
+        }
+    }
+
+    private void run(int size, ConfigurableApplicationContext context) {
+        IUserRepository userRepository = context.getBean(IUserRepository.class);
+        IConversationService conversationService = context.getBean(IConversationService.class);
+        GetConversationListUseCase useCase = context.getBean(GetConversationListUseCase.class);
+        RedisUtils redisUtils = context.getBean(RedisUtils.class);
+
+        // 构造数据：一个用户与 size 个不同用户的单聊
+        String prefix = "bench-" + size + "-" + System.currentTimeMillis();
+        Long ownerId = createUser(userRepository, prefix + "-owner");
+        Set<String> peerCacheKeys = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            Long peerId = createUser(userRepository, prefix + "-peer-" + i);
+            long conversationId = conversationService.createConversation(prefix + "-" + i, 1, ownerId);
+            conversationService.addMembers(conversationId, Collections.singletonList(peerId), ownerId);
+            peerCacheKeys.add("user:info:" + peerId);
+        }
+
+        // 冷缓存：对方用户信息全部回源数据库
+        redisUtils.delete(peerCacheKeys);
+        long start = System.nanoTime();
+        int count = useCase.execute(ownerId).size();
+        long coldMicros = (System.nanoTime() - start) / 1000;
+
+        // 热缓存
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            useCase.execute(ownerId);
+        }
+        long warmMicros = (System.nanoTime() - start) / 1000 / ITERATIONS;
+
+        System.out.printf("[conversations=%d] listed=%d, cold=%d us, warm avg=%d us%n",
+                size, count, coldMicros, warmMicros);
+    }
+
+    private Long createUser(IUserRepository userRepository, String username) {
+        User user = User.builder().username(username).password("benchmark").build();
+        userRepository.save(user);
+        return user.getUserId();
+    }
+}
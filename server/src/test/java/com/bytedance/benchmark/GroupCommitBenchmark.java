@@ -0,0 +1,85 @@
+package com.bytedance.benchmark;
+
+import com.bytedance.MainApplication;
+import com.bytedance.service.IConversationService;
+import com.bytedance.service.IMessageService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 消息批量提交吞吐压测
+ * 1/8/64 个并发发送者（各自的会话），对比逐条提交与批量提交的 msgs/sec
+ *
+ * 需要本地 MySQL 和 Redis（application.yaml 中的配置），运行方式：
+ * mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class GroupCommitBenchmark {
+
+    private static final Long SENDER_ID = 1001L;
+    private static final int SENDS_PER_SENDER = 200;
+
+    @Test
+    void compareCommitModes() throws Exception {
+        for (boolean groupCommit : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MainApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties("im.group-commit.enabled=" + groupCommit)
+                    .run()) {
+                for (int senders : new int[]{1, 8, 64}) {
+                    run(groupCommit ? "group-commit" : "per-message", senders, context);
+                }
+            }
+        }
+    }
+
+    private void run(String mode, int senders, ConfigurableApplicationContext context) throws Exception {
+        IConversationService conversationService = context.getBean(IConversationService.class);
+        IMessageService messageService = context.getBean(IMessageService.class);
+
+        // 每个发送者一个会话，避免热点会话行锁干扰提交开销的对比
+        long[] conversationIds = new long[senders];
+        for (int i = 0; i < senders; i++) {
+            conversationIds[i] = conversationService.createConversation(
+                    "压测-" + mode + "-" + senders + "-" + i + "-" + System.currentTimeMillis(), 2, SENDER_ID);
+            messageService.sendMessage(conversationIds[i], SENDER_ID, 1, "{\"text\":\"warmup\"}");
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(senders);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int s = 0; s < senders; s++) {
+            long conversationId = conversationIds[s];
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < SENDS_PER_SENDER; i++) {
+                    try {
+                        messageService.sendMessage(conversationId, SENDER_ID, 1, "{\"text\":\"benchmark\"}");
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        int total = senders * SENDS_PER_SENDER;
+        double msgsPerSecond = (total - failed.get()) * 1_000_000_000.0 / elapsedNanos;
+        System.out.printf("[%s] senders=%d, sends=%d, failed=%d, elapsed=%d ms, msgs/sec=%.1f%n",
+                mode, senders, total, failed.get(), elapsedNanos / 1_000_000, msgsPerSecond);
+    }
+}
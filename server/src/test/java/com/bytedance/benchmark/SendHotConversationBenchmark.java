@@ -0,0 +1,91 @@
+package com.bytedance.benchmark;
+
+import com.bytedance.MainApplication;
+import com.bytedance.service.IConversationService;
+import com.bytedance.usecase.message.SendMessageUseCase;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点会话发送吞吐压测
+ * 多个线程向同一个会话并发发送，对比不同序列号分配方式的 sends/sec
+ *
+ * 需要本地 MySQL 和 Redis（application.yaml 中的配置），运行方式：
+ * mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class SendHotConversationBenchmark {
+
+    private static final Long SENDER_ID = 1001L;
+    private static final int THREADS = 32;
+    private static final int SENDS_PER_THREAD = 200;
+
+    @Test
+    void compareAllocators() throws Exception {
+        for (String allocator : new String[]{"db", "redis", "segment"}) {
+            List<String> properties = new ArrayList<>();
+            properties.add("im.seq.allocator=" + allocator);
+            if ("segment".equals(allocator)) {
+                // 号段分配要求开启车道；单实例压测，本实例即所有会话的归属实例，不会发生转发
+                properties.add("im.lanes.enabled=true");
+                properties.add("im.lanes.internal-token=benchmark");
+                properties.add("im.lanes.advertise-address=http://127.0.0.1:8081");
+            }
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MainApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .properties(properties.toArray(new String[0]))
+                    .run()) {
+                run(allocator, context);
+            }
+        }
+    }
+
+    private void run(String allocator, ConfigurableApplicationContext context) throws Exception {
+        IConversationService conversationService = context.getBean(IConversationService.class);
+        SendMessageUseCase sendMessageUseCase = context.getBean(SendMessageUseCase.class);
+
+        long conversationId = conversationService.createConversation(
+                "压测-" + allocator + "-" + System.currentTimeMillis(), 2, SENDER_ID);
+
+        // 预热
+        for (int i = 0; i < 50; i++) {
+            sendMessageUseCase.execute(conversationId, SENDER_ID, 1, "{\"text\":\"warmup\"}");
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < SENDS_PER_THREAD; i++) {
+                    try {
+                        sendMessageUseCase.execute(conversationId, SENDER_ID, 1, "{\"text\":\"benchmark\"}");
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+
+        int total = THREADS * SENDS_PER_THREAD;
+        double sendsPerSecond = (total - failed.get()) * 1_000_000_000.0 / elapsedNanos;
+        System.out.printf("[%s] threads=%d, sends=%d, failed=%d, elapsed=%d ms, sends/sec=%.1f%n",
+                allocator, THREADS, total, failed.get(), elapsedNanos / 1_000_000, sendsPerSecond);
+    }
+}
@@ -0,0 +1,157 @@
+package com.bytedance.benchmark;
+
+import com.bytedance.config.WireConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.service.BinaryMessageCodec;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import com.bytedance.service.impl.MsgpackMessageCodec;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下发协议微基准（JMH）
+ * 对比 JSON（content 为字符串 / 原样内嵌）与 MessagePack 的单条推送帧和同步接口（100 条）编解码耗时及字节数
+ *
+ * 不依赖 MySQL 和 Redis，运行方式：
+ * mvn test -Pbenchmark -Dtest=WireProtocolBenchmark
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// 在 surefire 进程内运行（surefire 的 classpath 无法直接传给子进程），结果用于相对比较
+@Fork(0)
+public class WireProtocolBenchmark {
+
+    private static final int SYNC_SIZE = 100;
+
+    private final MessageCodec jsonCodec = new JacksonMessageCodec();
+    private final MessageCodec rawJsonCodec = new JacksonMessageCodec(rawContent());
+    private final BinaryMessageCodec msgpackCodec = new MsgpackMessageCodec();
+
+    private Message message;
+    private List<Message> page;
+    private String pushJson;
+    private byte[] pushMsgpack;
+    private byte[] pageMsgpack;
+
+    @Setup
+    public void setup() {
+        LocalDateTime now = LocalDateTime.now();
+        message = newMessage(98765L, now);
+        page = new ArrayList<>(SYNC_SIZE);
+        for (int i = 0; i < SYNC_SIZE; i++) {
+            page.add(newMessage(98765L + i, now));
+        }
+        pushJson = jsonCodec.encodeMessage(message);
+        pushMsgpack = msgpackCodec.encodePush(message);
+        pageMsgpack = msgpackCodec.encodeMessages(page);
+    }
+
+    @Benchmark
+    public String jsonEncodePush() {
+        return jsonCodec.encodeMessage(message);
+    }
+
+    @Benchmark
+    public String rawJsonEncodePush() {
+        return rawJsonCodec.encodeMessage(message);
+    }
+
+    @Benchmark
+    public byte[] msgpackEncodePush() {
+        return msgpackCodec.encodePush(message);
+    }
+
+    @Benchmark
+    public Message jsonDecodePush() {
+        return jsonCodec.decode(pushJson, Message.class);
+    }
+
+    @Benchmark
+    public Message msgpackDecodePush() {
+        return msgpackCodec.decodePush(pushMsgpack);
+    }
+
+    @Benchmark
+    public String jsonEncodeSync() {
+        return jsonCodec.encode(page);
+    }
+
+    @Benchmark
+    public byte[] msgpackEncodeSync() {
+        return msgpackCodec.encodeMessages(page);
+    }
+
+    @Benchmark
+    public List<Message> msgpackDecodeSync() {
+        return msgpackCodec.decodeMessages(pageMsgpack);
+    }
+
+    /**
+     * 各协议的字节数
+     */
+    @Test
+    void printPayloadSizes() {
+        setup();
+        System.out.printf("[push] json=%d bytes, raw json=%d bytes, msgpack=%d bytes%n",
+                utf8Length(jsonCodec.encodeMessage(message)),
+                utf8Length(rawJsonCodec.encodeMessage(message)),
+                msgpackCodec.encodePush(message).length);
+        System.out.printf("[sync x%d] json=%d bytes, msgpack=%d bytes%n", SYNC_SIZE,
+                utf8Length(jsonCodec.encode(page)),
+                msgpackCodec.encodeMessages(page).length);
+    }
+
+    @Test
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(WireProtocolBenchmark.class.getName())
+                .build())
+                .run();
+    }
+
+    private static Message newMessage(long seq, LocalDateTime now) {
+        return Message.builder()
+                .messageId(123456789L + seq)
+                .conversationId(1001L)
+                .senderId(42L)
+                .seq(seq)
+                .msgType(1)
+                .content("{\"text\":\"今天下午三点在 3 号会议室评审发送链路的改动，记得带上压测数据\"}")
+                .isRevoked(0)
+                .createdTime(now)
+                .build();
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static WireConfig rawContent() {
+        WireConfig wireConfig = new WireConfig();
+        wireConfig.setRawContent(true);
+        return wireConfig;
+    }
+}
@@ -0,0 +1,210 @@
+package com.bytedance.consumer;
+
+import com.bytedance.config.RedisConfig;
+import com.bytedance.config.WireConfig;
+import com.bytedance.config.WsSessionConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import com.bytedance.utils.RedisUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClusterPushRouter 集成测试
+ * 启动三个应用上下文（三个实例）连接同一个本地 Redis，验证跨实例推送
+ *
+ * 需要本地 Redis，运行方式：mvn test -Pintegration
+ */
+@Tag("integration")
+class ClusterPushRouterIT {
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private ConfigurableApplicationContext nodeC;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        nodeA = startNode("it-node-a");
+        nodeB = startNode("it-node-b");
+        nodeC = startNode("it-node-c");
+        // 订阅由监听容器异步完成，等各实例的频道都有订阅者后再开始
+        awaitSubscribed("it-node-a");
+        awaitSubscribed("it-node-b");
+        awaitSubscribed("it-node-c");
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.close();
+        nodeB.close();
+        nodeC.close();
+    }
+
+    @Test
+    void testPublish_OneEnvelopePerTargetInstance() throws Exception {
+        RecordingHandler handlerA = nodeA.getBean(RecordingHandler.class);
+        RecordingHandler handlerB = nodeB.getBean(RecordingHandler.class);
+        handlerB.expect(1);
+
+        // A 实例把三个接收者合并成一个信封发给 B 实例
+        boolean received = nodeA.getBean(ClusterPushRouter.class)
+                .publish("it-node-b", Arrays.asList(1L, 2L, 3L), "{\"text\":\"hello\"}");
+
+        assertTrue(received);
+        assertTrue(handlerB.await(5));
+
+        // B 只收到一次投递，携带完整的接收者列表
+        assertEquals(1, handlerB.deliveries.size());
+        assertEquals(Arrays.asList(1L, 2L, 3L), handlerB.deliveries.get(0).userIds);
+        assertEquals("{\"text\":\"hello\"}", handlerB.deliveries.get(0).payload);
+
+        // A 不会收到发给 B 的信封
+        assertTrue(handlerA.deliveries.isEmpty());
+    }
+
+    @Test
+    void testPublish_UnknownInstanceReportsNoReceiver() {
+        boolean received = nodeA.getBean(ClusterPushRouter.class)
+                .publish("it-node-offline", Arrays.asList(1L), "{\"text\":\"hello\"}");
+
+        // 目标实例不存在，调用方应按离线处理
+        assertFalse(received);
+    }
+
+    @Test
+    void testPushToUsers_GroupsReceiversByInstance() throws Exception {
+        RedisUtils redisUtils = nodeA.getBean(RedisUtils.class);
+        // 1、2 在 B；3 在 C；4 在 B 和 C 各有一台设备；5 的在线状态指向已下线的实例
+        Map<Long, List<String>> presence = Map.of(
+                1L, List.of("it-node-b"),
+                2L, List.of("it-node-b"),
+                3L, List.of("it-node-c"),
+                4L, List.of("it-node-b", "it-node-c"),
+                5L, List.of("it-node-gone"));
+        presence.forEach((userId, instances) -> {
+            redisUtils.delete(WebSocketServer.REDIS_KEY_ONLINE + userId);
+            instances.forEach(instance -> redisUtils.hSet(WebSocketServer.REDIS_KEY_ONLINE + userId, instance, "1"));
+        });
+
+        // WebSocketServer 以 A 实例的身份推送（本实例上没有连接）
+        WebSocketServer server = new WebSocketServer();
+        server.setRedisUtils(redisUtils);
+        server.setClusterPushRouter(nodeA.getBean(ClusterPushRouter.class));
+        server.setWsSessionConfig(new WsSessionConfig());
+        server.setMessageCodec(nodeA.getBean(MessageCodec.class));
+        server.init();
+
+        RecordingHandler handlerA = nodeA.getBean(RecordingHandler.class);
+        RecordingHandler handlerB = nodeB.getBean(RecordingHandler.class);
+        RecordingHandler handlerC = nodeC.getBean(RecordingHandler.class);
+        handlerB.expect(1);
+        handlerC.expect(1);
+        Message message = Message.builder().messageId(10L).conversationId(100L).senderId(9L).seq(1L)
+                .msgType(1).content("{\"text\":\"hello\"}").build();
+        try {
+            WebSocketServer.pushToUsers(Arrays.asList(1L, 2L, 3L, 4L, 5L), message);
+
+            assertTrue(handlerB.await(5));
+            assertTrue(handlerC.await(5));
+            // 每个目标实例只收到一个信封，携带该实例上的全部接收者
+            assertEquals(1, handlerB.deliveries.size());
+            assertEquals(Arrays.asList(1L, 2L, 4L), sorted(handlerB.deliveries.get(0).userIds));
+            assertEquals(1, handlerC.deliveries.size());
+            assertEquals(Arrays.asList(3L, 4L), sorted(handlerC.deliveries.get(0).userIds));
+            assertEquals(10L, nodeB.getBean(MessageCodec.class)
+                    .decode(handlerB.deliveries.get(0).payload, Message.class).getMessageId());
+            assertTrue(handlerA.deliveries.isEmpty());
+            // 已下线实例的在线状态被清理
+            assertTrue(redisUtils.hGetAll(WebSocketServer.REDIS_KEY_ONLINE + 5L).isEmpty());
+        } finally {
+            server.destroy();
+            presence.keySet().forEach(userId -> redisUtils.delete(WebSocketServer.REDIS_KEY_ONLINE + userId));
+        }
+    }
+
+    /**
+     * 用空的接收者列表探测，直到目标实例的频道有订阅者（空信封会被接收方丢弃）
+     */
+    private void awaitSubscribed(String instanceId) throws InterruptedException {
+        ClusterPushRouter router = nodeA.getBean(ClusterPushRouter.class);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!router.publish(instanceId, Collections.emptyList(), null)) {
+            assertTrue(System.currentTimeMillis() < deadline, "订阅未完成: " + instanceId);
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<Long> sorted(List<Long> userIds) {
+        return userIds.stream().sorted().collect(Collectors.toList());
+    }
+
+    private ConfigurableApplicationContext startNode(String instanceId) {
+        return new SpringApplicationBuilder(NodeConfig.class)
+                .web(WebApplicationType.NONE)
+                .properties("im.instance-id=" + instanceId)
+                .run();
+    }
+
+    @Configuration
+    @Import({RedisAutoConfiguration.class, RedisConfig.class, RedisUtils.class, WireConfig.class,
+            JacksonMessageCodec.class, ClusterPushRouter.class})
+    static class NodeConfig {
+        @Bean
+        public RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+    }
+
+    /**
+     * 记录收到的跨实例推送，代替 WebSocketServer 的本地投递
+     */
+    static class RecordingHandler implements RemotePushHandler {
+        private final List<Delivery> deliveries = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch latch = new CountDownLatch(0);
+
+        @Override
+        public void onRemotePush(List<Long> userIds, String payload, String excludeDeviceId) {
+            deliveries.add(new Delivery(userIds, payload));
+            latch.countDown();
+        }
+
+        void expect(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        boolean await(long seconds) throws InterruptedException {
+            return latch.await(seconds, TimeUnit.SECONDS);
+        }
+    }
+
+    static class Delivery {
+        private final List<Long> userIds;
+        private final String payload;
+
+        Delivery(List<Long> userIds, String payload) {
+            this.userIds = userIds;
+            this.payload = payload;
+        }
+    }
+}
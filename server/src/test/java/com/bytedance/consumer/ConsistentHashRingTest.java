@@ -0,0 +1,69 @@
+package com.bytedance.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConsistentHashRing 单元测试
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void testLocate_EmptyRingReturnsNull() {
+        assertNull(ConsistentHashRing.of(Collections.emptyList(), 160).locate(1L));
+    }
+
+    @Test
+    void testLocate_StableAcrossRebuilds() {
+        List<String> nodes = Arrays.asList("a", "b", "c");
+        ConsistentHashRing first = ConsistentHashRing.of(nodes, 160);
+        // 节点顺序不同，结果也一致（各实例看到的列表顺序可能不同）
+        ConsistentHashRing second = ConsistentHashRing.of(Arrays.asList("c", "a", "b"), 160);
+
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(first.locate(key), second.locate(key));
+        }
+    }
+
+    @Test
+    void testLocate_RoughlyBalanced() {
+        ConsistentHashRing ring = ConsistentHashRing.of(Arrays.asList("a", "b", "c", "d"), 160);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 0; key < KEYS; key++) {
+            counts.merge(ring.locate(key), 1, Integer::sum);
+        }
+
+        // 4 个节点，每个应在 25% 左右
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > KEYS * 0.18 && count < KEYS * 0.32, "分布不均: " + counts);
+        }
+    }
+
+    @Test
+    void testLocate_AddingNodeMovesOnlyItsShare() {
+        ConsistentHashRing before = ConsistentHashRing.of(Arrays.asList("a", "b", "c"), 160);
+        ConsistentHashRing after = ConsistentHashRing.of(Arrays.asList("a", "b", "c", "d"), 160);
+
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            String owner = after.locate(key);
+            if (!owner.equals(before.locate(key))) {
+                // 只会移动到新节点，不会在老节点之间互相迁移
+                assertEquals("d", owner);
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS * 0.15 && moved < KEYS * 0.35, "迁移比例异常: " + moved);
+    }
+}
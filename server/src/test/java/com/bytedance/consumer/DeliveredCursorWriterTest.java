@@ -0,0 +1,80 @@
+package com.bytedance.consumer;
+
+import com.bytedance.entity.ConversationMember;
+import com.bytedance.repository.IConversationMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DeliveredCursorWriter 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DeliveredCursorWriterTest {
+
+    @Mock
+    private IConversationMemberRepository conversationMemberRepository;
+
+    private DeliveredCursorWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new DeliveredCursorWriter(conversationMemberRepository, 2);
+    }
+
+    @Test
+    void testFlush_KeepsMaxSeqPerConversationAndBatches() {
+        writer.record(1L, 100L, 5L);
+        writer.record(1L, 100L, 7L);
+        writer.record(1L, 100L, 6L);
+        writer.record(1L, 200L, 3L);
+        writer.record(2L, 100L, 7L);
+
+        List<List<ConversationMember>> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(invocation.getArgument(0)))
+                .when(conversationMemberRepository).advanceDeliveredSeqs(anyList());
+
+        writer.flush();
+
+        List<ConversationMember> written = new ArrayList<>();
+        for (List<ConversationMember> batch : batches) {
+            assertTrue(batch.size() <= 2);
+            written.addAll(batch);
+        }
+        assertEquals(3, written.size());
+        ConversationMember cursor = written.stream()
+                .filter(c -> c.getUserId() == 1L && c.getConversationId() == 100L)
+                .findFirst().orElseThrow();
+        assertEquals(7L, cursor.getLastDeliveredSeq());
+
+        // 已写回的不再重复写
+        writer.flush();
+        verify(conversationMemberRepository, times(batches.size())).advanceDeliveredSeqs(anyList());
+    }
+
+    @Test
+    void testFlush_FailedBatchRetriedNextCycle() {
+        writer.record(1L, 100L, 5L);
+        List<Long> written = new ArrayList<>();
+        doThrow(new RuntimeException("db down")).doAnswer(invocation -> {
+            List<ConversationMember> batch = invocation.getArgument(0);
+            written.add(batch.get(0).getLastDeliveredSeq());
+            return null;
+        }).when(conversationMemberRepository).advanceDeliveredSeqs(anyList());
+
+        writer.flush();
+        writer.flush();
+
+        verify(conversationMemberRepository, times(2)).advanceDeliveredSeqs(anyList());
+        assertEquals(List.of(5L), written);
+    }
+}
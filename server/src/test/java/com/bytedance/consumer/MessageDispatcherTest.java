@@ -0,0 +1,139 @@
+package com.bytedance.consumer;
+
+import com.bytedance.config.DispatchConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IInboxRepository;
+import com.bytedance.service.MembershipCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * MessageDispatcher 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class MessageDispatcherTest {
+
+    @Mock
+    private MembershipCache membershipCache;
+
+    @Mock
+    private IInboxRepository inboxRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DispatchConfig config = new DispatchConfig();
+
+    private MessageDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        config.setThreads(1);
+        config.setQueueCapacity(1);
+        dispatcher = new MessageDispatcher(membershipCache, inboxRepository, config, meterRegistry);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDispatch_WaitsForCommit() {
+        when(membershipCache.getMemberIds(100L)).thenReturn(new long[0]);
+        TransactionSynchronizationManager.initSynchronization();
+
+        dispatcher.dispatch(message(1L), null);
+
+        // 提交前不推送
+        verifyNoInteractions(membershipCache);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        // 推送和收件箱更新都在分片线程上执行
+        verify(inboxRepository, timeout(1000)).touch(anyList(), eq(100L), any());
+        verify(membershipCache, times(2)).getMemberIds(100L);
+    }
+
+    @Test
+    void testDispatch_InboxTouchedOffCommittingThread() {
+        when(membershipCache.getMemberIds(100L)).thenReturn(new long[]{1L, 2L});
+        String caller = Thread.currentThread().getName();
+        List<String> touchThreads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> touchThreads.add(Thread.currentThread().getName()))
+                .when(inboxRepository).touch(anyList(), anyLong(), any());
+
+        dispatcher.dispatch(message(1L), null);
+
+        verify(inboxRepository, timeout(1000)).touch(eq(List.of(1L, 2L)), eq(100L), any());
+        assertNotEquals(caller, touchThreads.get(0));
+        assertTrue(touchThreads.get(0).startsWith("im-dispatch-"));
+    }
+
+    @Test
+    void testDispatch_RollbackDoesNotPush() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dispatcher.dispatch(message(1L), null);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        assertEquals(0, dispatcher.getQueueDepth());
+        verifyNoInteractions(membershipCache, inboxRepository);
+    }
+
+    @Test
+    void testDispatch_FullQueueDropsAndCounts() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(membershipCache.getMemberIds(100L)).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().startsWith("im-dispatch-")) {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new long[0];
+        });
+
+        // 第一条占住推送线程，第二条占满队列，第三条被丢弃
+        dispatcher.dispatch(message(1L), null);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        dispatcher.dispatch(message(2L), null);
+        dispatcher.dispatch(message(3L), null);
+
+        assertEquals(1.0, meterRegistry.get("im.dispatch.rejected").counter().count());
+        assertEquals(1, dispatcher.getQueueDepth());
+        // 收件箱随推送在分片线程上更新，调用线程上不更新
+        verify(inboxRepository, never()).touch(anyList(), eq(100L), any());
+
+        // 被丢弃的消息既不推送也不更新收件箱
+        release.countDown();
+        verify(inboxRepository, timeout(1000).times(2)).touch(anyList(), eq(100L), any());
+        verify(membershipCache, times(4)).getMemberIds(100L);
+    }
+
+    private static Message message(long seq) {
+        return Message.builder().conversationId(100L).senderId(1L).seq(seq)
+                .createdTime(LocalDateTime.now()).build();
+    }
+}
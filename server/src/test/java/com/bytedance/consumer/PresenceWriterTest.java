@@ -0,0 +1,120 @@
+package com.bytedance.consumer;
+
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.websocket.Session;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PresenceWriter 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PresenceWriterTest {
+
+    private static final String INSTANCE = "node-a";
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    private final OutboundMetrics metrics = new OutboundMetrics(new SimpleMeterRegistry());
+
+    private SessionRegistry sessions;
+
+    private PresenceWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        sessions = new SessionRegistry();
+        writer = new PresenceWriter(sessions, redisUtils, INSTANCE, 300, 2);
+    }
+
+    @Test
+    void testFlush_BatchesHeartbeatsAndSkipsDisconnected() {
+        for (long userId = 1; userId <= 5; userId++) {
+            sessions.put(userId, outbound(userId, "phone"), 5);
+            writer.heartbeat(userId);
+        }
+        // 已断开的用户不续期
+        writer.heartbeat(6L);
+
+        writer.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, String>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(redisUtils, atLeast(3)).multiHSetExpire(batches.capture(), eq(INSTANCE), eq(300L));
+        Set<String> keys = new HashSet<>();
+        for (Map<String, String> batch : batches.getAllValues()) {
+            assertTrue(batch.size() <= 2);
+            keys.addAll(batch.keySet());
+        }
+        assertEquals(Set.of("ws:presence:1", "ws:presence:2", "ws:presence:3", "ws:presence:4", "ws:presence:5"), keys);
+        verify(redisUtils, never()).hDelete(anyString(), any());
+    }
+
+    @Test
+    void testFlush_FailedBatchRetriedNextCycle() {
+        sessions.put(1L, outbound(1L, "phone"), 5);
+        writer.heartbeat(1L);
+        doThrow(new RuntimeException("redis down")).doNothing()
+                .when(redisUtils).multiHSetExpire(anyMap(), eq(INSTANCE), anyLong());
+
+        writer.flush();
+        writer.flush();
+
+        verify(redisUtils, times(2)).multiHSetExpire(eq(Map.of("ws:presence:1", "1")), eq(INSTANCE), eq(300L));
+    }
+
+    @Test
+    void testFlush_CloseDuringPipelineIsNotResurrected() {
+        SessionOutbound phone = outbound(1L, "phone");
+        sessions.put(1L, phone, 5);
+        writer.heartbeat(1L);
+        // 批量续期读到 1 台设备后、HSET 到达 Redis 之前连接断开，onClose 的 HDEL 先执行
+        doAnswer(invocation -> {
+            sessions.remove(1L, phone);
+            writer.refresh(1L);
+            return null;
+        }).when(redisUtils).multiHSetExpire(anyMap(), eq(INSTANCE), anyLong());
+
+        writer.flush();
+
+        // 续期之后按当前设备数重写，最后一次写入是删除
+        verify(redisUtils, times(2)).hDelete("ws:presence:1", INSTANCE);
+        verify(redisUtils, never()).hSet(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testRefresh_RewritesWhenDevicesChangeDuringWrite() {
+        SessionOutbound phone = outbound(1L, "phone");
+        sessions.put(1L, phone, 5);
+        // 写入 1 台设备期间又连上一台
+        doAnswer(invocation -> {
+            sessions.put(1L, outbound(1L, "pc"), 5);
+            return null;
+        }).doNothing().when(redisUtils).hSet(eq("ws:presence:1"), eq(INSTANCE), anyString());
+
+        assertEquals(2, writer.refresh(1L));
+
+        verify(redisUtils).hSet("ws:presence:1", INSTANCE, "1");
+        verify(redisUtils).hSet("ws:presence:1", INSTANCE, "2");
+    }
+
+    private SessionOutbound outbound(Long userId, String deviceId) {
+        Session session = mock(Session.class);
+        return new SessionOutbound(userId, deviceId, session, WireProtocol.JSON, 100, 10000,
+                (id, payload) -> { }, metrics, null);
+    }
+}
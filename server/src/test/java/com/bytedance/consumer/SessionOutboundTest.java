@@ -0,0 +1,259 @@
+package com.bytedance.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SessionOutbound 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class SessionOutboundTest {
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private RemoteEndpoint.Async asyncRemote;
+
+    private final OutboundMetrics metrics = new OutboundMetrics(new SimpleMeterRegistry());
+
+    // 超过高水位交给 overflowHandler 的推送
+    private final List<Object> overflowed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(session.isOpen()).thenReturn(true);
+        lenient().when(session.getAsyncRemote()).thenReturn(asyncRemote);
+    }
+
+    @Test
+    void testOffer_SendsOneFrameAtATime() {
+        SessionOutbound outbound = newOutbound(10, 10000);
+
+        assertTrue(outbound.offer("a"));
+        assertTrue(outbound.offer("b"));
+        assertTrue(outbound.offer("c"));
+
+        // 第一帧未完成前，后续帧只入队
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(asyncRemote).sendText(eq("a"), handler.capture());
+        verify(asyncRemote, never()).sendText(eq("b"), any(SendHandler.class));
+        assertEquals(2, outbound.getDepth());
+
+        // 第一帧完成后由回调线程继续发送下一帧
+        handler.getValue().onResult(new SendResult());
+        verify(asyncRemote).sendText(eq("b"), any(SendHandler.class));
+        assertEquals(1, outbound.getDepth());
+    }
+
+    @Test
+    void testOffer_InlineCompletionDrainsQueue() {
+        // 发送同步完成：回调在 sendText 内直接触发
+        doAnswer(invocation -> {
+            ((SendHandler) invocation.getArgument(1)).onResult(new SendResult());
+            return null;
+        }).when(asyncRemote).sendText(anyString(), any(SendHandler.class));
+        SessionOutbound outbound = newOutbound(10, 10000);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(outbound.offer("m" + i));
+        }
+
+        verify(asyncRemote, times(100)).sendText(anyString(), any(SendHandler.class));
+        assertEquals(0, outbound.getDepth());
+        assertEquals(100L, outbound.getStats().get("sent"));
+    }
+
+    @Test
+    void testOffer_BinaryAndTextFramesShareQueue() {
+        SessionOutbound outbound = newOutbound(10, 10000);
+
+        byte[] frame = {1, 2, 3};
+        outbound.offer(frame);
+        outbound.offer("pong");
+
+        // 二进制帧走 sendBinary，与文本帧按入队顺序发送
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(asyncRemote).sendBinary(eq(ByteBuffer.wrap(frame)), handler.capture());
+        verify(asyncRemote, never()).sendText(anyString(), any(SendHandler.class));
+
+        handler.getValue().onResult(new SendResult());
+        verify(asyncRemote).sendText(eq("pong"), any(SendHandler.class));
+    }
+
+    @Test
+    void testOfferPush_CoalescesBacklogWhileSending() {
+        SessionOutbound outbound = newCoalescingOutbound(3, 0, null);
+
+        // 不等待窗口：首条推送直接发送，发送期间积压的推送合并为一帧
+        outbound.offerPush("a");
+        outbound.offerPush("b");
+        outbound.offerPush("c");
+        outbound.offer("pong");
+        outbound.offerPush("d");
+
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(asyncRemote).sendText(eq("a"), handler.capture());
+        handler.getValue().onResult(new SendResult());
+        verify(asyncRemote).sendText(eq("[b,c]"), handler.capture());
+        handler.getValue().onResult(new SendResult());
+        // 控制帧不参与合并，顺序保持不变
+        verify(asyncRemote).sendText(eq("pong"), handler.capture());
+        handler.getValue().onResult(new SendResult());
+        verify(asyncRemote).sendText(eq("d"), handler.capture());
+        handler.getValue().onResult(new SendResult());
+
+        assertEquals(4L, outbound.getStats().get("sent"));
+        assertEquals(4L, outbound.getStats().get("sentMessages"));
+    }
+
+    @Test
+    void testOfferPush_WindowFlushesOnTimerOrWhenFull() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            SessionOutbound outbound = newCoalescingOutbound(3, 50, scheduler);
+
+            // 窗口内到达的推送等窗口结束后一起发送
+            outbound.offerPush("a");
+            outbound.offerPush("b");
+            verify(asyncRemote, never()).sendText(anyString(), any(SendHandler.class));
+            ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+            verify(asyncRemote, timeout(1000)).sendText(eq("[a,b]"), handler.capture());
+            handler.getValue().onResult(new SendResult());
+
+            // 凑满一帧时不等窗口结束
+            SessionOutbound full = newCoalescingOutbound(3, 60_000, scheduler);
+            full.offerPush("x");
+            full.offerPush("y");
+            full.offerPush("z");
+            verify(asyncRemote).sendText(eq("[x,y,z]"), any(SendHandler.class));
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOffer_OverflowGoesOffline() throws Exception {
+        SessionOutbound outbound = newOutbound(2, 10000);
+
+        // 第一帧在途，后两帧填满队列
+        outbound.offer("a");
+        outbound.offer("b");
+        outbound.offer("c");
+
+        // 超过高水位，交给 overflowHandler 并视为已处理
+        assertTrue(outbound.offer("d"));
+        assertEquals(List.of("d"), overflowed);
+        assertEquals(2, outbound.getDepth());
+        verify(session, never()).close(any(CloseReason.class));
+    }
+
+    @Test
+    void testOffer_SlowConsumerDisconnected() throws Exception {
+        SessionOutbound outbound = newOutbound(1, 0);
+
+        outbound.offer("a");
+        outbound.offer("b");
+        // 第一次达到高水位开始计时，第二次超时断开
+        outbound.offer("c");
+        outbound.offer("d");
+
+        verify(session, timeout(1000)).close(argThat(reason ->
+                reason.getCloseCode() == CloseReason.CloseCodes.TRY_AGAIN_LATER));
+        assertEquals(List.of("c", "d"), overflowed);
+
+        // 已断开的连接不再接收推送，由调用方处理
+        assertFalse(outbound.offer("e"));
+    }
+
+    @Test
+    void testOffer_SendFailureClosesSession() throws Exception {
+        SessionOutbound outbound = newOutbound(10, 10000);
+        outbound.offer("a");
+        outbound.offer("b");
+
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(asyncRemote).sendText(eq("a"), handler.capture());
+        handler.getValue().onResult(new SendResult(new RuntimeException("broken pipe")));
+
+        verify(session, timeout(1000)).close(any(CloseReason.class));
+        verify(asyncRemote, never()).sendText(eq("b"), any(SendHandler.class));
+        assertFalse(outbound.offer("c"));
+    }
+
+    @Test
+    void testOfferPush_OnSentOnlyAfterSuccessfulWrite() {
+        SessionOutbound outbound = newOutbound(10, 10000);
+        List<String> sent = new ArrayList<>();
+
+        outbound.offerPush("a", () -> sent.add("a"));
+        outbound.offerPush("b", () -> sent.add("b"));
+
+        // 入队不算送达，写出成功后才回调
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(asyncRemote).sendText(eq("a"), handler.capture());
+        assertTrue(sent.isEmpty());
+
+        handler.getValue().onResult(new SendResult());
+        assertEquals(List.of("a"), sent);
+
+        // 写出失败不回调
+        verify(asyncRemote).sendText(eq("b"), handler.capture());
+        handler.getValue().onResult(new SendResult(new RuntimeException("broken pipe")));
+        assertEquals(List.of("a"), sent);
+    }
+
+    @Test
+    void testOfferPush_NoCallbacksAfterDroppedPush() {
+        SessionOutbound outbound = newOutbound(1, 10000);
+        List<String> sent = new ArrayList<>();
+
+        // a 在途，b 排队，c 超过高水位被丢弃
+        outbound.offerPush("a", () -> sent.add("a"));
+        outbound.offerPush("b", () -> sent.add("b"));
+        outbound.offerPush("c", () -> sent.add("c"));
+        assertEquals(List.of("c"), overflowed);
+
+        ArgumentCaptor<SendHandler> handler = ArgumentCaptor.forClass(SendHandler.class);
+        verify(asyncRemote).sendText(eq("a"), handler.capture());
+        handler.getValue().onResult(new SendResult());
+        verify(asyncRemote).sendText(eq("b"), handler.capture());
+        handler.getValue().onResult(new SendResult());
+
+        // 丢弃之后写出的推送也不推进送达，避免越过 c
+        assertTrue(sent.isEmpty());
+    }
+
+    private SessionOutbound newCoalescingOutbound(int maxMessages, long windowMs, ScheduledExecutorService scheduler) {
+        SessionOutbound.Coalescing coalescing = new SessionOutbound.Coalescing(maxMessages, windowMs, scheduler,
+                frames -> "[" + frames.stream().map(String::valueOf).collect(Collectors.joining(",")) + "]");
+        return new SessionOutbound(1L, "d1", session, WireProtocol.JSON, 100, 10000,
+                (userId, payload) -> overflowed.add(payload), metrics, coalescing);
+    }
+
+    private SessionOutbound newOutbound(int highWaterMark, long slowConsumerTimeoutMs) {
+        return new SessionOutbound(1L, session, highWaterMark, slowConsumerTimeoutMs,
+                (userId, payload) -> overflowed.add(payload), metrics);
+    }
+}
@@ -0,0 +1,91 @@
+package com.bytedance.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.websocket.Session;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SessionRegistry 单元测试
+ */
+class SessionRegistryTest {
+
+    private final OutboundMetrics metrics = new OutboundMetrics(new SimpleMeterRegistry());
+
+    @Test
+    void testPut_MultipleDevicesPerUser() {
+        SessionRegistry registry = new SessionRegistry();
+        SessionOutbound phone = outbound(1L, "phone");
+        SessionOutbound pc = outbound(1L, "pc");
+
+        assertNull(registry.put(1L, phone, 5));
+        assertNull(registry.put(1L, pc, 5));
+
+        assertArrayEquals(new SessionOutbound[]{phone, pc}, registry.get(1L));
+        assertSame(pc, registry.find(1L, pc.getSession()));
+        assertEquals(1, registry.userCount());
+        assertEquals(2, registry.sessionCount());
+    }
+
+    @Test
+    void testPut_SameDeviceReplacedAndOldestEvicted() {
+        SessionRegistry registry = new SessionRegistry();
+        SessionOutbound phone = outbound(1L, "phone");
+        SessionOutbound pc = outbound(1L, "pc");
+        registry.put(1L, phone, 2);
+        registry.put(1L, pc, 2);
+
+        // 同一设备重连替换旧连接
+        SessionOutbound phoneAgain = outbound(1L, "phone");
+        assertSame(phone, registry.put(1L, phoneAgain, 2));
+        assertArrayEquals(new SessionOutbound[]{phoneAgain, pc}, registry.get(1L));
+
+        // 超过设备上限挤掉最早的连接
+        SessionOutbound pad = outbound(1L, "pad");
+        assertSame(phoneAgain, registry.put(1L, pad, 2));
+        assertArrayEquals(new SessionOutbound[]{pc, pad}, registry.get(1L));
+        assertEquals(2, registry.sessionCount());
+    }
+
+    @Test
+    void testRemove_OnlyMatchingConnection() {
+        SessionRegistry registry = new SessionRegistry();
+        SessionOutbound phone = outbound(1L, "phone");
+        SessionOutbound replaced = outbound(1L, "phone");
+        registry.put(1L, replaced, 5);
+        registry.put(1L, phone, 5);
+
+        // 已被替换的连接关闭时不影响新连接
+        assertFalse(registry.remove(1L, replaced));
+        assertTrue(registry.remove(1L, phone));
+        assertEquals(0, registry.get(1L).length);
+        assertEquals(0, registry.userCount());
+    }
+
+    @Test
+    void testManyUsers_ResizeAndRemove() {
+        SessionRegistry registry = new SessionRegistry();
+        SessionOutbound[] outbounds = new SessionOutbound[2_000];
+        for (int i = 0; i < outbounds.length; i++) {
+            outbounds[i] = outbound((long) i, "d");
+            registry.put(i, outbounds[i], 5);
+        }
+        // 删除一半后其余用户仍可查到（删除时回移，不留空洞）
+        for (int i = 0; i < outbounds.length; i += 2) {
+            assertTrue(registry.remove(i, outbounds[i]));
+        }
+        for (int i = 1; i < outbounds.length; i += 2) {
+            assertSame(outbounds[i], registry.get(i)[0]);
+        }
+        assertEquals(1_000, registry.userCount());
+    }
+
+    private SessionOutbound outbound(Long userId, String deviceId) {
+        Session session = mock(Session.class);
+        return new SessionOutbound(userId, deviceId, session, WireProtocol.JSON, 100, 10000,
+                (id, payload) -> { }, metrics, null);
+    }
+}
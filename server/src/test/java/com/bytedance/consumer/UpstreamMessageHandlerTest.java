@@ -0,0 +1,172 @@
+package com.bytedance.consumer;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.bytedance.config.WsSessionConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.service.IMessageService;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UpstreamMessageHandler 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class UpstreamMessageHandlerTest {
+
+    @Mock
+    private IMessageService messageService;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private SessionOutbound outbound;
+
+    private UpstreamMessageHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new UpstreamMessageHandler(messageService, new JacksonMessageCodec(), redisUtils,
+                new WsSessionConfig(), new SimpleMeterRegistry());
+        handler.init();
+        lenient().when(outbound.offer(anyString())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.destroy();
+    }
+
+    @Test
+    void testSubmit_SendsAndAcksWithSeq() {
+        when(messageService.sendMessage(100L, 1L, 1, "{\"text\":\"你好\"}", null))
+                .thenReturn(Message.builder().messageId(9L).conversationId(100L).seq(5L).build());
+
+        handler.submit(1L, outbound,
+                "{\"type\":\"send\",\"clientMsgId\":\"c1\",\"conversationId\":100,\"text\":\"你好\"}", true);
+
+        ArgumentCaptor<String> ack = ArgumentCaptor.forClass(String.class);
+        verify(outbound, timeout(1000)).offer(ack.capture());
+        JSONObject frame = JSONUtil.parseObj(ack.getValue());
+        assertEquals("ack", frame.getStr("type"));
+        assertEquals("c1", frame.getStr("clientMsgId"));
+        assertEquals(5L, frame.getLong("seq"));
+        assertEquals(9L, frame.getLong("messageId"));
+        verify(redisUtils).set(eq("ws:client-msg:1:c1"), eq(ack.getValue()), anyLong());
+    }
+
+    @Test
+    void testSubmit_DuplicateClientMsgIdReturnsPreviousAck() {
+        String previous = "{\"type\":\"ack\",\"clientMsgId\":\"c1\",\"seq\":5}";
+        when(redisUtils.<String>execute(any(), eq("ws:client-msg:1:c1"), anyString(), anyString())).thenReturn(previous);
+
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"c1\",\"conversationId\":100,\"text\":\"x\"}", true);
+
+        verify(outbound, timeout(1000)).offer(previous);
+        verifyNoInteractions(messageService);
+    }
+
+    @Test
+    void testSubmit_DuplicateWhileFirstStillSendingIsNotResent() {
+        // 第一次发送已占位但还没有回执（比如在另一个实例上）
+        when(redisUtils.<String>execute(any(), eq("ws:client-msg:1:c1"), eq("pending"), anyString())).thenReturn("pending");
+
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"c1\",\"conversationId\":100,\"text\":\"x\"}", true);
+
+        ArgumentCaptor<String> ack = ArgumentCaptor.forClass(String.class);
+        verify(outbound, timeout(1000)).offer(ack.capture());
+        JSONObject frame = JSONUtil.parseObj(ack.getValue());
+        assertEquals("c1", frame.getStr("clientMsgId"));
+        assertNotNull(frame.getStr("error"));
+        verifyNoInteractions(messageService);
+        verify(redisUtils, never()).delete(anyString());
+    }
+
+    @Test
+    void testSubmit_UnauthenticatedSessionCannotSend() {
+        handler.submit(1L, outbound,
+                "{\"type\":\"send\",\"clientMsgId\":\"c1\",\"conversationId\":100,\"text\":\"x\"}", false);
+
+        ArgumentCaptor<String> ack = ArgumentCaptor.forClass(String.class);
+        verify(outbound, timeout(1000)).offer(ack.capture());
+        JSONObject frame = JSONUtil.parseObj(ack.getValue());
+        assertEquals("c1", frame.getStr("clientMsgId"));
+        assertNotNull(frame.getStr("error"));
+        verifyNoInteractions(messageService, redisUtils);
+    }
+
+    @Test
+    void testSubmit_NullFrameIgnored() {
+        handler.submit(1L, outbound, "null", true);
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"c3\",\"conversationId\":100}", true);
+
+        // 第二帧正常处理（内容为空返回错误回执），说明第一帧没有让处理线程出错
+        verify(outbound, timeout(1000)).offer(contains("c3"));
+        verifyNoInteractions(messageService);
+    }
+
+    @Test
+    void testSubmit_BusyAckCarriesClientMsgId() throws InterruptedException {
+        handler.destroy();
+        WsSessionConfig config = new WsSessionConfig();
+        config.setUpstreamThreads(1);
+        config.setUpstreamQueueCapacity(1);
+        handler = new UpstreamMessageHandler(messageService, new JacksonMessageCodec(), redisUtils,
+                config, new SimpleMeterRegistry());
+        handler.init();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(messageService.sendMessage(anyLong(), anyLong(), anyInt(), anyString(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Message.builder().messageId(1L).conversationId(100L).seq(1L).build();
+        });
+
+        // 第一帧占住处理线程，第二帧占满队列，第三帧被拒绝
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"a\",\"conversationId\":100,\"text\":\"x\"}", true);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"b\",\"conversationId\":100,\"text\":\"x\"}", true);
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"c\",\"conversationId\":100,\"text\":\"x\"}", true);
+
+        ArgumentCaptor<String> ack = ArgumentCaptor.forClass(String.class);
+        verify(outbound).offer(ack.capture());
+        JSONObject frame = JSONUtil.parseObj(ack.getValue());
+        assertEquals("c", frame.getStr("clientMsgId"));
+        assertEquals("服务繁忙，请稍后重试", frame.getStr("error"));
+        release.countDown();
+    }
+
+    @Test
+    void testSubmit_FailureAcksWithError() {
+        when(messageService.sendMessage(anyLong(), anyLong(), anyInt(), anyString(), any()))
+                .thenThrow(new RuntimeException("用户不是该会话成员，无法发送消息"));
+
+        handler.submit(1L, outbound, "{\"type\":\"send\",\"clientMsgId\":\"c2\",\"conversationId\":100,\"text\":\"x\"}", true);
+
+        ArgumentCaptor<String> ack = ArgumentCaptor.forClass(String.class);
+        verify(outbound, timeout(1000)).offer(ack.capture());
+        JSONObject frame = JSONUtil.parseObj(ack.getValue());
+        assertEquals("c2", frame.getStr("clientMsgId"));
+        assertNotNull(frame.getStr("error"));
+        assertNull(frame.get("seq"));
+        verify(redisUtils, never()).set(anyString(), anyString(), anyLong());
+        // 发送失败释放占位，允许客户端重发
+        verify(redisUtils).delete("ws:client-msg:1:c2");
+    }
+}
@@ -0,0 +1,56 @@
+package com.bytedance.repository.impl;
+
+import com.bytedance.entity.User;
+import com.bytedance.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserRepositoryImpl 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class UserRepositoryImplTest {
+
+    @Mock
+    private UserMapper userMapper;
+
+    private UserRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new UserRepositoryImpl(userMapper);
+    }
+
+    @Test
+    void testSave_InsertAssignsDirectoryVersion() {
+        when(userMapper.selectDirectoryVersion()).thenReturn(7L);
+        User user = User.builder().username("alice").build();
+
+        repository.save(user);
+
+        assertEquals(7L, user.getVersion());
+        InOrder inOrder = inOrder(userMapper);
+        inOrder.verify(userMapper).incrementDirectoryVersion();
+        inOrder.verify(userMapper).insert(user);
+    }
+
+    @Test
+    void testSave_UpdateAlsoBumpsVersion() {
+        when(userMapper.selectDirectoryVersion()).thenReturn(8L);
+        User user = User.builder().userId(1L).username("alice").avatarUrl("new.png").version(3L).build();
+
+        repository.save(user);
+
+        // 修改资料同样要进入增量同步
+        assertEquals(8L, user.getVersion());
+        verify(userMapper).incrementDirectoryVersion();
+        verify(userMapper).updateById(user);
+    }
+}
@@ -0,0 +1,89 @@
+package com.bytedance.service;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.bytedance.config.WireConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.entity.User;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JacksonMessageCodec 单元测试（与原 Hutool 输出格式兼容）
+ */
+class JacksonMessageCodecTest {
+
+    private final MessageCodec codec = new JacksonMessageCodec();
+
+    @Test
+    void testEncode_SameFieldsAsHutool() {
+        Message message = Message.builder()
+                .messageId(1L)
+                .conversationId(100L)
+                .senderId(1L)
+                .seq(7L)
+                .msgType(1)
+                .content("{\"text\":\"你好\"}")
+                .createdTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .build();
+
+        // 字段、时间戳和 null 省略规则都与 Hutool 一致，客户端解析不受影响
+        JSONObject expected = JSONUtil.parseObj(JSONUtil.toJsonStr(message));
+        JSONObject actual = JSONUtil.parseObj(codec.encode(message));
+        assertEquals(expected, actual);
+        assertFalse(actual.containsKey("quoteId"));
+    }
+
+    @Test
+    void testDecode_ReadsHutoolCachedUser() {
+        User user = User.builder()
+                .userId(2L)
+                .username("张三")
+                .avatarUrl("http://localhost/a.png")
+                .createdTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .build();
+
+        // 旧版本写入 Redis 的用户缓存仍能读出
+        User decoded = codec.decode(JSONUtil.toJsonStr(user), User.class);
+        assertEquals(user, decoded);
+
+        assertEquals(user, codec.decode(codec.encode(user), User.class));
+    }
+
+    @Test
+    void testEncodeMessage_RawContentEmbedsJson() {
+        Message message = Message.builder()
+                .messageId(1L)
+                .msgType(1)
+                .content("{\"text\":\"你好\"}")
+                .mentions("[2,3]")
+                .build();
+
+        // 默认兼容旧客户端：content 是字符串
+        assertEquals("{\"text\":\"你好\"}", JSONUtil.parseObj(codec.encodeMessage(message)).getStr("content"));
+
+        WireConfig wireConfig = new WireConfig();
+        wireConfig.setRawContent(true);
+        String raw = new JacksonMessageCodec(wireConfig).encodeMessage(message);
+        assertEquals("{\"messageId\":1,\"msgType\":1,\"content\":{\"text\":\"你好\"},\"mentions\":[2,3]}", raw);
+    }
+
+    @Test
+    void testCheckJson() {
+        codec.checkJson("{\"text\":\"hi\",\"a\":[1,{}]}");
+        assertThrows(RuntimeException.class, () -> codec.checkJson("{\"text\":"));
+        assertThrows(RuntimeException.class, () -> codec.checkJson("{} {}"));
+        assertThrows(RuntimeException.class, () -> codec.checkJson(""));
+    }
+
+    @Test
+    void testReadText() {
+        assertEquals("hi", codec.readText("{\"mentions\":[1,2],\"extra\":{\"a\":1},\"text\":\"hi\"}"));
+        assertNull(codec.readText("{\"url\":\"http://localhost/a.png\"}"));
+        assertThrows(RuntimeException.class, () -> codec.readText("not json"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.bytedance.service;
+
+import com.bytedance.config.HotMessageCacheConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.impl.LocalHotMessageCache;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LocalHotMessageCache 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LocalHotMessageCacheTest {
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private IMessageRepository messageRepository;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LocalHotMessageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(4, 64L * 1024 * 1024);
+    }
+
+    @Test
+    void testFindAfter_ServesWindowAndMissesBelowIt() {
+        for (long seq = 1; seq <= 6; seq++) {
+            cache.append(message(100L, seq));
+        }
+
+        // 容量 4：缓存 3..6，afterSeq >= 2 命中
+        assertEquals(List.of(4L, 5L), seqs(cache.findAfter(100L, 3L, 2)));
+        assertEquals(List.of(3L, 4L, 5L, 6L), seqs(cache.findAfter(100L, 2L, 100)));
+        assertTrue(cache.findAfter(100L, 6L, 100).isEmpty());
+        assertNull(cache.findAfter(100L, 1L, 100));
+        assertNull(cache.findAfter(200L, 0L, 100));
+
+        assertEquals(3.0, meterRegistry.get("im.hot-messages.requests").tag("result", "hit").counter().count());
+        assertEquals(2.0, meterRegistry.get("im.hot-messages.requests").tag("result", "miss").counter().count());
+        verify(redisUtils).publish(anyString(), eq("100:6"));
+    }
+
+    @Test
+    void testAppend_GapRestartsWindow() {
+        cache.append(message(100L, 1));
+        cache.append(message(100L, 2));
+        // seq 3 由其他实例写入，本实例没有
+        cache.append(message(100L, 4));
+
+        assertNull(cache.findAfter(100L, 2L, 100));
+        assertEquals(List.of(4L), seqs(cache.findAfter(100L, 3L, 100)));
+    }
+
+    @Test
+    void testOnMessage_EvictsWhenMissingRemoteWrite() {
+        cache.append(message(100L, 1));
+        cache.append(message(100L, 2));
+
+        // 本实例自己的通知不影响缓存
+        cache.onMessage(notification("100:2"), null);
+        assertNotNull(cache.findAfter(100L, 1L, 100));
+
+        // 其他实例写入了 seq 3
+        cache.onMessage(notification("100:3"), null);
+        assertNull(cache.findAfter(100L, 1L, 100));
+    }
+
+    @Test
+    void testFindAfter_RevalidatesAgainstCommittedSeq() {
+        cache = newCache(4, 64L * 1024 * 1024, 0);
+        cache.append(message(100L, 1));
+        cache.append(message(100L, 2));
+        cache.append(message(200L, 1));
+
+        // 会话 100 已提交到 2，缓存完整
+        when(messageRepository.findMaxSeq(100L)).thenReturn(2L);
+        assertEquals(List.of(2L), seqs(cache.findAfter(100L, 1L, 100)));
+
+        // 其他实例写入了会话 200 的 seq 2，通知丢失
+        when(messageRepository.findMaxSeq(200L)).thenReturn(2L);
+        assertNull(cache.findAfter(200L, 0L, 100));
+        assertEquals(1.0, meterRegistry.get("im.hot-messages.evictions").counter().count());
+    }
+
+    @Test
+    void testFindAfter_SkipsRevalidationWithinInterval() {
+        cache.append(message(100L, 1));
+
+        assertNotNull(cache.findAfter(100L, 0L, 100));
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testAppend_EvictsLeastRecentlyUsedOverBudget() {
+        // 每段只够放一个会话
+        cache = newCache(4, 32 * 400);
+        // 32 段：会话 1 与 33 落在同一段
+        cache.append(message(1L, 1));
+        cache.append(message(33L, 1));
+
+        assertNull(cache.findAfter(1L, 0L, 100));
+        assertNotNull(cache.findAfter(33L, 0L, 100));
+        assertEquals(1.0, meterRegistry.get("im.hot-messages.evictions").counter().count());
+    }
+
+    private LocalHotMessageCache newCache(int capacity, long maxBytes) {
+        return newCache(capacity, maxBytes, 60_000);
+    }
+
+    private LocalHotMessageCache newCache(int capacity, long maxBytes, long revalidateMs) {
+        HotMessageCacheConfig config = new HotMessageCacheConfig();
+        config.setCapacity(capacity);
+        config.setMaxBytes(maxBytes);
+        config.setRevalidateMs(revalidateMs);
+        meterRegistry.clear();
+        LocalHotMessageCache instance = new LocalHotMessageCache(config, redisUtils, messageRepository,
+                listenerContainer, meterRegistry);
+        instance.init();
+        return instance;
+    }
+
+    private static DefaultMessage notification(String body) {
+        return new DefaultMessage("im:hot-messages:append".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Message message(Long conversationId, long seq) {
+        return Message.builder().conversationId(conversationId).seq(seq).content("{\"text\":\"m\"}").build();
+    }
+
+    private static List<Long> seqs(List<Message> messages) {
+        return messages.stream().map(Message::getSeq).collect(Collectors.toList());
+    }
+}
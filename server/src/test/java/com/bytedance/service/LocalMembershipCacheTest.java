@@ -0,0 +1,106 @@
+package com.bytedance.service;
+
+import com.bytedance.config.MembershipCacheConfig;
+import com.bytedance.repository.IConversationMemberRepository;
+import com.bytedance.service.impl.LocalMembershipCache;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LocalMembershipCache 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LocalMembershipCacheTest {
+
+    @Mock
+    private IConversationMemberRepository conversationMemberRepository;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LocalMembershipCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(64L * 1024 * 1024, meterRegistry);
+        lenient().when(conversationMemberRepository.findUserIdsByConversationId(100L))
+                .thenReturn(List.of(3L, 1L, 2L));
+    }
+
+    @Test
+    void testIsMember_LoadsOnceThenHits() {
+        assertTrue(cache.isMember(100L, 2L));
+        assertFalse(cache.isMember(100L, 4L));
+        assertArrayEquals(new long[]{1L, 2L, 3L}, cache.getMemberIds(100L));
+
+        verify(conversationMemberRepository, times(1)).findUserIdsByConversationId(100L);
+        assertEquals(2.0, meterRegistry.get("im.membership.cache.requests").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("im.membership.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testInvalidate_ReloadsAndNotifiesOtherInstances() {
+        cache.isMember(100L, 1L);
+
+        cache.invalidate(100L);
+        cache.isMember(100L, 1L);
+
+        verify(redisUtils).publish(anyString(), eq("100"));
+        verify(conversationMemberRepository, times(2)).findUserIdsByConversationId(100L);
+    }
+
+    @Test
+    void testOnMessage_EvictsLocalEntry() {
+        cache.isMember(100L, 1L);
+
+        cache.onMessage(new DefaultMessage("im:membership:invalidate".getBytes(StandardCharsets.UTF_8),
+                "100".getBytes(StandardCharsets.UTF_8)), null);
+        cache.isMember(100L, 1L);
+
+        verify(conversationMemberRepository, times(2)).findUserIdsByConversationId(100L);
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedOverMemoryCeiling() {
+        // 每段上限约 2 个 3 人会话
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LocalMembershipCache small = newCache(16 * 250, registry);
+        // 落在同一段的会话：16 的倍数
+        for (long conversationId = 16; conversationId <= 64; conversationId += 16) {
+            when(conversationMemberRepository.findUserIdsByConversationId(conversationId))
+                    .thenReturn(List.of(1L, 2L, 3L));
+            small.getMemberIds(conversationId);
+        }
+
+        assertEquals(2.0, registry.get("im.membership.cache.evictions").counter().count());
+        assertEquals(2.0, registry.get("im.membership.cache.size").gauge().value());
+    }
+
+    private LocalMembershipCache newCache(long maxBytes, SimpleMeterRegistry registry) {
+        MembershipCacheConfig config = new MembershipCacheConfig();
+        config.setMaxBytes(maxBytes);
+        LocalMembershipCache instance = new LocalMembershipCache(conversationMemberRepository, redisUtils,
+                listenerContainer, config, registry);
+        instance.init();
+        return instance;
+    }
+}
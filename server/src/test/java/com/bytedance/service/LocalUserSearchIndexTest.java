@@ -0,0 +1,103 @@
+package com.bytedance.service;
+
+import com.bytedance.config.UserSearchConfig;
+import com.bytedance.entity.User;
+import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.impl.LocalUserSearchIndex;
+import com.bytedance.vo.UserVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LocalUserSearchIndex 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class LocalUserSearchIndexTest {
+
+    @Mock
+    private IUserRepository userRepository;
+
+    private LocalUserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(userRepository.currentDirectoryVersion()).thenReturn(4L);
+        lenient().when(userRepository.findDirectory()).thenReturn(List.of(
+                user(1L, "张三", 1L),
+                user(2L, "张三丰", 2L),
+                user(3L, "Alice", 3L),
+                user(4L, "李小张", 4L)));
+
+        UserSearchConfig config = new UserSearchConfig();
+        config.setRefreshMs(60_000);
+        index = new LocalUserSearchIndex(userRepository, config, new SimpleMeterRegistry());
+        index.init();
+        // 首次搜索会等待初次加载完成，之后目录版本不变，后台刷新不再改动索引
+        index.search("warmup", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.destroy();
+    }
+
+    @Test
+    void testSearch_NamePrefixBeforeSubstring() {
+        // 完全匹配最先，其次前缀，最后子串
+        assertEquals(List.of(1L, 2L, 4L), ids(index.search("张", null)));
+        assertEquals(List.of(1L, 2L), ids(index.search("张三", null)));
+        assertEquals(List.of(3L), ids(index.search(" ALI ", null)));
+        assertEquals(List.of(4L), ids(index.search("小张", null)));
+    }
+
+    @Test
+    void testSearch_PinyinFullAndInitials() {
+        assertEquals(List.of(1L, 2L), ids(index.search("zhangsan", null)));
+        assertEquals(List.of(1L, 2L), ids(index.search("zs", null)));
+        assertEquals(List.of(4L), ids(index.search("lxz", null)));
+    }
+
+    @Test
+    void testSearch_LimitAndEmptyQuery() {
+        assertEquals(1, index.search("张", 1).size());
+        assertTrue(index.search("  ", null).isEmpty());
+        assertTrue(index.search("bob", null).isEmpty());
+    }
+
+    @Test
+    void testUpsert_ReplacesRenamedUser() {
+        index.upsert(user(3L, "Bob", 5L));
+
+        assertTrue(index.search("alice", null).isEmpty());
+        assertEquals(List.of(3L), ids(index.search("bo", null)));
+
+        // 旧版本不覆盖新版本
+        index.upsert(user(3L, "Alice", 3L));
+        assertTrue(index.search("alice", null).isEmpty());
+
+        // 同版本的重复写入（本地写入后增量拉取到同一条）不再重建
+        index.upsert(user(3L, "Carol", 5L));
+        assertTrue(index.search("carol", null).isEmpty());
+        assertEquals(List.of(3L), ids(index.search("bo", null)));
+    }
+
+    private static List<Long> ids(List<UserVO> users) {
+        return users.stream().map(UserVO::getUserId).collect(Collectors.toList());
+    }
+
+    private static User user(Long userId, String username, long version) {
+        return User.builder().userId(userId).username(username).version(version).build();
+    }
+}
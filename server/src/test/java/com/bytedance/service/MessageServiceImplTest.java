@@ -2,7 +2,11 @@ package com.bytedance.service;
 
 import com.bytedance.entity.Message;
 import com.bytedance.service.impl.MessageServiceImpl;
+import com.bytedance.usecase.message.ConversationLanes;
+import com.bytedance.usecase.message.GetMessageHistoryUseCase;
+import com.bytedance.usecase.message.GroupCommitMessageWriter;
 import com.bytedance.usecase.message.SendMessageUseCase;
+import com.bytedance.usecase.message.SyncAllMessagesUseCase;
 import com.bytedance.usecase.message.SyncMessagesUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,6 +35,18 @@ class MessageServiceImplTest {
     @Mock
     private SyncMessagesUseCase syncMessagesUseCase;
 
+    @Mock
+    private SyncAllMessagesUseCase syncAllMessagesUseCase;
+
+    @Mock
+    private GetMessageHistoryUseCase getMessageHistoryUseCase;
+
+    @Mock
+    private GroupCommitMessageWriter groupCommitMessageWriter;
+
+    @Mock
+    private ConversationLanes conversationLanes;
+
     @InjectMocks
     private MessageServiceImpl messageService;
 
@@ -66,7 +82,7 @@ class MessageServiceImplTest {
     @Test
     void testSendMessage_Success() {
         // 模拟发送消息用例返回成功结果
-        when(sendMessageUseCase.execute(100L, 1L, 1, "{\"text\":\"Hello\"}"))
+        when(sendMessageUseCase.execute(100L, 1L, 1, "{\"text\":\"Hello\"}", null))
                 .thenReturn(testMessage);
 
         // 执行发送消息
@@ -81,13 +97,13 @@ class MessageServiceImplTest {
 
         // 验证调用了发送消息用例
         verify(sendMessageUseCase, times(1))
-                .execute(100L, 1L, 1, "{\"text\":\"Hello\"}");
+                .execute(100L, 1L, 1, "{\"text\":\"Hello\"}", null);
     }
 
     @Test
     void testSendTextMsg_Success() {
         // 模拟发送消息用例返回成功结果
-        when(sendMessageUseCase.execute(eq(100L), eq(1L), eq(1), anyString()))
+        when(sendMessageUseCase.execute(eq(100L), eq(1L), eq(1), anyString(), isNull()))
                 .thenReturn(testMessage);
 
         // 执行发送文本消息
@@ -101,13 +117,13 @@ class MessageServiceImplTest {
         verify(sendMessageUseCase, times(1))
                 .execute(eq(100L), eq(1L), eq(1), argThat(content -> 
                     content.contains("\"text\"") && content.contains("Hello")
-                ));
+                ), isNull());
     }
 
     @Test
     void testSendMessage_NotMember() {
         // 模拟发送消息用例抛出非成员异常
-        when(sendMessageUseCase.execute(100L, 1L, 1, "{\"text\":\"Hello\"}"))
+        when(sendMessageUseCase.execute(100L, 1L, 1, "{\"text\":\"Hello\"}", null))
                 .thenThrow(new RuntimeException("您不是该会话成员，无法发送消息"));
 
         // 验证异常被抛出
@@ -116,13 +132,13 @@ class MessageServiceImplTest {
         });
 
         verify(sendMessageUseCase, times(1))
-                .execute(100L, 1L, 1, "{\"text\":\"Hello\"}");
+                .execute(100L, 1L, 1, "{\"text\":\"Hello\"}", null);
     }
 
     @Test
     void testSendMessage_ConversationNotFound() {
         // 模拟发送消息用例抛出会话不存在异常
-        when(sendMessageUseCase.execute(999L, 1L, 1, "{\"text\":\"Hello\"}"))
+        when(sendMessageUseCase.execute(999L, 1L, 1, "{\"text\":\"Hello\"}", null))
                 .thenThrow(new RuntimeException("会话不存在"));
 
         // 验证异常被抛出
@@ -131,7 +147,7 @@ class MessageServiceImplTest {
         });
 
         verify(sendMessageUseCase, times(1))
-                .execute(999L, 1L, 1, "{\"text\":\"Hello\"}");
+                .execute(999L, 1L, 1, "{\"text\":\"Hello\"}", null);
     }
 
     @Test
@@ -0,0 +1,76 @@
+package com.bytedance.service;
+
+import com.bytedance.entity.Message;
+import com.bytedance.service.impl.MsgpackMessageCodec;
+import org.junit.jupiter.api.Test;
+import org.msgpack.core.MessageBufferPacker;
+import org.msgpack.core.MessagePack;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MsgpackMessageCodec 单元测试
+ */
+class MsgpackMessageCodecTest {
+
+    private final BinaryMessageCodec codec = new MsgpackMessageCodec();
+
+    @Test
+    void testPush_RoundTrip() {
+        Message message = Message.builder()
+                .messageId(1L)
+                .conversationId(100L)
+                .senderId(2L)
+                .seq(7L)
+                .msgType(1)
+                .content("{\"text\":\"你好\"}")
+                .createdTime(LocalDateTime.of(2024, 1, 2, 3, 4, 5))
+                .build();
+
+        // 空字段编码为 nil，解码后仍为 null
+        assertEquals(message, codec.decodePush(codec.encodePush(message)));
+    }
+
+    @Test
+    void testMessages_RoundTrip() {
+        List<Message> messages = Arrays.asList(
+                Message.builder().messageId(1L).seq(1L).msgType(1).content("{\"text\":\"a\"}").build(),
+                Message.builder().messageId(2L).seq(2L).msgType(2).content("{\"url\":\"x.png\"}").isRevoked(1).build());
+
+        assertEquals(messages, codec.decodeMessages(codec.encodeMessages(messages)));
+        assertTrue(codec.decodeMessages(codec.encodeMessages(List.of())).isEmpty());
+    }
+
+    @Test
+    void testBatch_MergesPushFrames() {
+        Message first = Message.builder().messageId(1L).seq(1L).msgType(1).content("{\"text\":\"a\"}").build();
+        Message second = Message.builder().messageId(2L).seq(2L).msgType(1).content("{\"text\":\"b\"}").build();
+
+        // 合帧直接拼接单条推送帧中已编码的消息
+        byte[] batch = codec.encodeBatch(List.of(codec.encodePush(first), codec.encodePush(second)));
+
+        assertEquals(List.of(first, second), codec.decodeFrame(batch));
+        assertEquals(List.of(first), codec.decodeFrame(codec.encodePush(first)));
+        assertThrows(RuntimeException.class, () -> codec.encodeBatch(List.of(batch)));
+    }
+
+    @Test
+    void testDecode_SkipsAppendedFields() throws Exception {
+        // 新版本在消息数组末尾追加字段，旧解码器应忽略
+        try (MessageBufferPacker packer = MessagePack.newDefaultBufferPacker()) {
+            packer.packArrayHeader(1);
+            packer.packArrayHeader(11);
+            packer.packLong(1L).packLong(100L).packLong(2L).packLong(7L).packInt(1).packString("{}");
+            packer.packNil().packNil().packNil().packNil();
+            packer.packString("future");
+
+            Message decoded = codec.decodeMessages(packer.toByteArray()).get(0);
+            assertEquals(7L, decoded.getSeq());
+            assertEquals("{}", decoded.getContent());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.bytedance.service;
+
+import com.bytedance.config.PresenceConfig;
+import com.bytedance.service.impl.RedisPresenceService;
+import com.bytedance.utils.RedisUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisPresenceService 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisPresenceServiceTest {
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private MembershipCache membershipCache;
+
+    private final PresenceConfig config = new PresenceConfig();
+
+    private RedisPresenceService presenceService;
+
+    @BeforeEach
+    void setUp() {
+        presenceService = new RedisPresenceService(redisUtils, membershipCache, config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testGetDeviceCounts_OneRoundTripThenCached() {
+        when(redisUtils.multiHValues(List.of("ws:presence:1", "ws:presence:2")))
+                .thenReturn(Arrays.asList(Arrays.asList("1", "2"), Collections.emptyList()));
+
+        // 多个实例上的设备数相加，不在线为 0
+        Map<Long, Integer> counts = presenceService.getDeviceCounts(List.of(1L, 2L));
+        assertEquals(Map.of(1L, 3, 2L, 0), counts);
+
+        // 缓存有效期内不再查询 Redis
+        assertEquals(Map.of(2L, 0, 1L, 3), presenceService.getDeviceCounts(List.of(2L, 1L)));
+        verify(redisUtils, times(1)).multiHValues(anyList());
+    }
+
+    @Test
+    void testGetDeviceCounts_RejectsOversizedBatch() {
+        config.setMaxBatchSize(2);
+
+        assertThrows(RuntimeException.class, () -> presenceService.getDeviceCounts(List.of(1L, 2L, 3L)));
+        verifyNoInteractions(redisUtils);
+    }
+
+    @Test
+    void testCountOnlineMembers() {
+        when(membershipCache.getMemberIds(100L)).thenReturn(new long[]{1L, 2L, 3L});
+        when(redisUtils.multiHValues(anyList())).thenReturn(Arrays.asList(
+                List.of("1"), Collections.emptyList(), List.of("2")));
+
+        assertEquals(2, presenceService.countOnlineMembers(100L));
+    }
+}
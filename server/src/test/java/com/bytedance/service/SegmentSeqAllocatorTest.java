@@ -0,0 +1,159 @@
+package com.bytedance.service;
+
+import com.bytedance.config.LaneConfig;
+import com.bytedance.config.SeqConfig;
+import com.bytedance.consumer.ClusterMembership;
+import com.bytedance.service.impl.RedisSeqCounter;
+import com.bytedance.service.impl.SegmentSeqAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SegmentSeqAllocator 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class SegmentSeqAllocatorTest {
+
+    @Mock
+    private RedisSeqCounter seqCounter;
+
+    @Mock
+    private ClusterMembership clusterMembership;
+
+    private SegmentSeqAllocator allocator;
+
+    // 模拟 Redis 计数器
+    private final AtomicLong counter = new AtomicLong(0);
+
+    @BeforeEach
+    void setUp() {
+        SeqConfig seqConfig = new SeqConfig();
+        seqConfig.setSegmentStep(10);
+        LaneConfig laneConfig = new LaneConfig();
+        laneConfig.setEnabled(true);
+        allocator = new SegmentSeqAllocator(seqCounter, seqConfig, laneConfig, clusterMembership);
+        lenient().when(seqCounter.incrementBy(eq(100L), anyLong()))
+                .thenAnswer(invocation -> counter.addAndGet(invocation.getArgument(1)));
+    }
+
+    @Test
+    void testNext_LeasesOneSegmentPerStep() {
+        // 连续分配 25 个号
+        for (long expected = 1; expected <= 25; expected++) {
+            assertEquals(expected, allocator.next(100L));
+        }
+
+        // 步长为 10，只应租用 3 次号段
+        verify(seqCounter, times(3)).incrementBy(100L, 10L);
+    }
+
+    @Test
+    void testNext_ContinuesAfterExistingCounter() {
+        // 模拟计数器已经被其他实例推进到 50
+        counter.set(50);
+
+        assertEquals(51L, allocator.next(100L));
+        assertEquals(52L, allocator.next(100L));
+    }
+
+    @Test
+    void testReset_DiscardsLocalSegment() {
+        assertEquals(1L, allocator.next(100L));
+
+        // 重置后丢弃剩余号段并清理计数器
+        allocator.reset(100L);
+        verify(seqCounter, times(1)).reset(100L);
+
+        // 重新租用，从计数器当前水位继续，不会重复
+        assertEquals(11L, allocator.next(100L));
+    }
+
+    @Test
+    void testRingChange_DropsSegmentsThatMovedAway() {
+        Runnable onRingChanged = initAndCaptureRingListener();
+        assertEquals(1L, allocator.next(100L));
+
+        // 会话迁到其他实例，期间对方租用了更大的号段
+        when(clusterMembership.ownerOf(100L)).thenReturn("node-b");
+        onRingChanged.run();
+        counter.set(30);
+
+        // 迁回本实例后重新租用，不再使用旧号段里的 2..10
+        assertEquals(31L, allocator.next(100L));
+    }
+
+    @Test
+    void testRingChange_RemainingSegmentValidatedAgainstPersistedSeq() {
+        Runnable onRingChanged = initAndCaptureRingListener();
+        when(clusterMembership.ownerOf(100L)).thenReturn("node-a");
+        when(clusterMembership.isLocal("node-a")).thenReturn(true);
+        assertEquals(1L, allocator.next(100L));
+
+        // 本实例视图滞后期间其他实例已写到 20：剩余号段作废
+        when(seqCounter.loadPersistedSeq(100L)).thenReturn(20L);
+        counter.set(20);
+        onRingChanged.run();
+        assertEquals(21L, allocator.next(100L));
+
+        // 未落后的号段继续使用，每次环变化只校验一次
+        onRingChanged.run();
+        assertEquals(22L, allocator.next(100L));
+        assertEquals(23L, allocator.next(100L));
+        verify(seqCounter, times(2)).loadPersistedSeq(100L);
+    }
+
+    @Test
+    void testNext_ConcurrentUniqueAndMonotonicPerThread() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        Set<Long> allSeqs = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long last = 0;
+                for (int i = 0; i < perThread; i++) {
+                    long seq = allocator.next(100L);
+                    if (seq <= last || !allSeqs.add(seq)) {
+                        return false;
+                    }
+                    last = seq;
+                }
+                return true;
+            }));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        executor.shutdown();
+
+        // 所有号唯一，且恰好是 1..8000
+        assertEquals(threads * perThread, allSeqs.size());
+        assertEquals(threads * perThread, allSeqs.stream().mapToLong(Long::longValue).max().orElse(0));
+    }
+
+    private Runnable initAndCaptureRingListener() {
+        allocator.init();
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(clusterMembership).addRingChangeListener(listener.capture());
+        return listener.getValue();
+    }
+}
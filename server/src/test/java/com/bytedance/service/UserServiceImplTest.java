@@ -3,6 +3,7 @@ package com.bytedance.service;
 import com.bytedance.dto.RegisterRequest;
 import com.bytedance.entity.User;
 import com.bytedance.service.impl.UserServiceImpl;
+import com.bytedance.usecase.user.GetUserDirectoryUseCase;
 import com.bytedance.usecase.user.LoginUserUseCase;
 import com.bytedance.usecase.user.RegisterUserUseCase;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,6 +29,12 @@ class UserServiceImplTest {
     @Mock
     private LoginUserUseCase loginUserUseCase;
 
+    @Mock
+    private GetUserDirectoryUseCase getUserDirectoryUseCase;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -0,0 +1,135 @@
+package com.bytedance.usecase.conversation;
+
+import com.bytedance.dto.ScrollResult;
+import com.bytedance.entity.Conversation;
+import com.bytedance.entity.ConversationMember;
+import com.bytedance.repository.IConversationMemberRepository;
+import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IInboxRepository;
+import com.bytedance.repository.IUserRepository;
+import com.bytedance.service.MessageCodec;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import com.bytedance.utils.RedisUtils;
+import com.bytedance.vo.ConversationVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GetConversationListUseCase 单元测试（收件箱分页）
+ */
+@ExtendWith(MockitoExtension.class)
+class GetConversationListUseCaseTest {
+
+    @Mock
+    private IConversationMemberRepository conversationMemberRepository;
+
+    @Mock
+    private IConversationRepository conversationRepository;
+
+    @Mock
+    private IUserRepository userRepository;
+
+    @Mock
+    private RedisUtils redisUtils;
+
+    @Mock
+    private IInboxRepository inboxRepository;
+
+    @Spy
+    private MessageCodec messageCodec = new JacksonMessageCodec();
+
+    @InjectMocks
+    private GetConversationListUseCase useCase;
+
+    @Test
+    void testScroll_ReadsPageFromInboxInOrder() {
+        when(inboxRepository.exists(1L)).thenReturn(true);
+        LinkedHashMap<Long, Long> page = new LinkedHashMap<>();
+        page.put(30L, 3000L);
+        page.put(10L, 2000L);
+        page.put(20L, 2000L);
+        when(inboxRepository.scroll(1L, null, 0, 3)).thenReturn(page);
+        mockPage(1L, 10L, 20L, 30L);
+
+        ScrollResult result = useCase.scroll(1L, null, 0, 3);
+
+        // 按收件箱顺序返回，游标为最小分数及其在本页出现的次数
+        List<Long> ids = new ArrayList<>();
+        result.getList().forEach(vo -> ids.add(((ConversationVO) vo).getConversationId()));
+        assertEquals(List.of(30L, 10L, 20L), ids);
+        assertEquals(2000L, result.getMinTime());
+        assertEquals(2, result.getOffset());
+
+        // 分页只查本页会话，不做全量扫描
+        verify(conversationMemberRepository, never()).findByUserId(anyLong());
+    }
+
+    @Test
+    void testScroll_AccumulatesOffsetWhenWholePageHasSameScore() {
+        when(inboxRepository.exists(1L)).thenReturn(true);
+        LinkedHashMap<Long, Long> page = new LinkedHashMap<>();
+        page.put(40L, 2000L);
+        page.put(50L, 2000L);
+        when(inboxRepository.scroll(1L, 2000L, 2, 2)).thenReturn(page);
+        mockPage(1L, 40L, 50L);
+
+        ScrollResult result = useCase.scroll(1L, 2000L, 2, 2);
+
+        assertEquals(2000L, result.getMinTime());
+        assertEquals(4, result.getOffset());
+    }
+
+    @Test
+    void testScroll_RebuildsInboxOnMiss() {
+        when(inboxRepository.exists(1L)).thenReturn(false);
+        ConversationMember member = ConversationMember.builder().conversationId(10L).userId(1L).build();
+        when(conversationMemberRepository.findByUserId(1L)).thenReturn(List.of(member));
+        when(conversationRepository.findByIds(anyList()))
+                .thenReturn(List.of(Conversation.builder().conversationId(10L).type(2).build()));
+        when(inboxRepository.scroll(1L, null, 0, 20)).thenReturn(new LinkedHashMap<>());
+
+        useCase.scroll(1L, null, 0, null);
+
+        verify(inboxRepository).rebuild(eq(1L), eq(List.of(member)), anyMap());
+    }
+
+    @Test
+    void testExecute_UnreadCountFromSeqCursor() {
+        when(inboxRepository.exists(1L)).thenReturn(true);
+        when(conversationMemberRepository.findByUserId(1L)).thenReturn(List.of(
+                ConversationMember.builder().conversationId(10L).userId(1L).lastAckSeq(7L).build(),
+                ConversationMember.builder().conversationId(20L).userId(1L).lastAckSeq(30L).build()));
+        when(conversationRepository.findByIds(anyList())).thenReturn(List.of(
+                Conversation.builder().conversationId(10L).type(2).currentSeq(12L).build(),
+                Conversation.builder().conversationId(20L).type(2).currentSeq(30L).build()));
+
+        List<ConversationVO> list = useCase.execute(1L);
+
+        // 未读数 = current_seq - last_ack_seq
+        assertEquals(5, list.stream().filter(vo -> vo.getConversationId() == 10L).findFirst().get().getUnreadCount());
+        assertEquals(0, list.stream().filter(vo -> vo.getConversationId() == 20L).findFirst().get().getUnreadCount());
+    }
+
+    private void mockPage(Long userId, Long... conversationIds) {
+        List<ConversationMember> members = new ArrayList<>();
+        List<Conversation> conversations = new ArrayList<>();
+        for (Long id : conversationIds) {
+            members.add(ConversationMember.builder().conversationId(id).userId(userId).build());
+            conversations.add(Conversation.builder().conversationId(id).type(2).name("群" + id).build());
+        }
+        when(conversationMemberRepository.findByUserIdAndConversationIds(eq(userId), anyList())).thenReturn(members);
+        when(conversationRepository.findByIds(anyList())).thenReturn(conversations);
+    }
+}
@@ -0,0 +1,114 @@
+package com.bytedance.usecase.message;
+
+import com.bytedance.config.LaneConfig;
+import com.bytedance.consumer.ClusterMembership;
+import com.bytedance.entity.Message;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ConversationLanes 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ConversationLanesTest {
+
+    @Mock
+    private SendMessageUseCase sendMessageUseCase;
+
+    @Mock
+    private ClusterMembership clusterMembership;
+
+    private final LaneConfig config = new LaneConfig();
+
+    private ConversationLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        config.setEnabled(true);
+        config.setLanes(1);
+        config.setTimeoutMs(100);
+        config.setForwardTimeoutMs(200);
+        config.setInternalToken("secret");
+        lanes = new ConversationLanes(config, sendMessageUseCase, clusterMembership,
+                new RestTemplateBuilder(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.destroy();
+    }
+
+    @Test
+    void testInit_RequiresTokenAndForwardTimeoutAboveLaneTimeout() {
+        config.setInternalToken("");
+        assertThrows(IllegalStateException.class, lanes::init);
+
+        config.setInternalToken("secret");
+        config.setForwardTimeoutMs(100);
+        assertThrows(IllegalStateException.class, lanes::init);
+    }
+
+    @Test
+    void testSendLocal_TimedOutQueuedTaskIsNotExecuted() throws InterruptedException {
+        lanes.init();
+        CountDownLatch release = new CountDownLatch(1);
+        when(sendMessageUseCase.execute(anyLong(), anyLong(), anyInt(), anyString(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Message.builder().conversationId(100L).seq(1L).build();
+        });
+
+        // 第一条占住车道直到超时，第二条在队列里超时
+        assertThrows(RuntimeException.class, () -> lanes.sendLocal(100L, 1L, 1, "{\"text\":\"a\"}", null));
+        assertThrows(RuntimeException.class, () -> lanes.sendLocal(100L, 1L, 1, "{\"text\":\"b\"}", null));
+        assertEquals(0, lanes.getQueueDepth());
+
+        release.countDown();
+        verify(sendMessageUseCase, after(200).times(1)).execute(anyLong(), anyLong(), anyInt(), anyString(), any());
+    }
+
+    @Test
+    void testSend_UnreachableOwnerIsRefusedNotRunLocally() {
+        lanes.init();
+        when(clusterMembership.ownerOf(100L)).thenReturn("node-b");
+        when(clusterMembership.isLocal("node-b")).thenReturn(false);
+        // 端口 1 上没有服务，建立连接即失败
+        when(clusterMembership.addressOf("node-b")).thenReturn("http://127.0.0.1:1");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> lanes.send(100L, 1L, 1, "{\"text\":\"a\"}", null));
+
+        // 本实例不另起序列号分配，交给客户端重试
+        assertTrue(e.getMessage().contains("稍后重试"));
+        verifyNoInteractions(sendMessageUseCase);
+    }
+
+    @Test
+    void testIsConnectFailure_OnlyWhenRequestNeverReachedOwner() {
+        assertTrue(ConversationLanes.isConnectFailure(
+                new ResourceAccessException("refused", new ConnectException("Connection refused"))));
+        assertTrue(ConversationLanes.isConnectFailure(
+                new ResourceAccessException("timeout", new SocketTimeoutException("Connect timed out"))));
+        // 读取超时和服务端错误时对方可能已经写入
+        assertFalse(ConversationLanes.isConnectFailure(
+                new ResourceAccessException("timeout", new SocketTimeoutException("Read timed out"))));
+        assertFalse(ConversationLanes.isConnectFailure(new HttpServerErrorException(HttpStatus.BAD_GATEWAY)));
+    }
+}
@@ -0,0 +1,123 @@
+package com.bytedance.usecase.message;
+
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.vo.HistoryPageVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GetMessageHistoryUseCase 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class GetMessageHistoryUseCaseTest {
+
+    private static final Long USER_ID = 1001L;
+    private static final Long CONVERSATION_ID = 1L;
+
+    @Mock
+    private IMessageRepository messageRepository;
+
+    @Mock
+    private MembershipCache membershipCache;
+
+    private GetMessageHistoryUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        useCase = new GetMessageHistoryUseCase(messageRepository, membershipCache);
+        lenient().when(membershipCache.isMember(CONVERSATION_ID, USER_ID)).thenReturn(true);
+    }
+
+    @Test
+    void testExecute_BeforeSeqReturnsAscendingPage() {
+        // 倒序多查一条：查到 4 条说明前面还有
+        when(messageRepository.findByConversationIdAndSeqBefore(CONVERSATION_ID, 50L, 4))
+                .thenReturn(descending(49, 4));
+
+        HistoryPageVO page = useCase.execute(USER_ID, CONVERSATION_ID, 50L, null, null, 3);
+
+        assertEquals(List.of(47L, 48L, 49L), seqs(page));
+        assertTrue(page.getHasMoreBefore());
+        assertNull(page.getHasMoreAfter());
+    }
+
+    @Test
+    void testExecute_NoCursorReturnsLatestPage() {
+        when(messageRepository.findByConversationIdAndSeqBefore(CONVERSATION_ID, Long.MAX_VALUE, 21))
+                .thenReturn(descending(5, 5));
+
+        HistoryPageVO page = useCase.execute(USER_ID, CONVERSATION_ID, null, null, null, null);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seqs(page));
+        assertFalse(page.getHasMoreBefore());
+    }
+
+    @Test
+    void testExecute_AfterSeqAndLimitCeiling() {
+        when(messageRepository.findByConversationIdAndSeqAfter(CONVERSATION_ID, 10L, 101))
+                .thenReturn(ascending(11, 30));
+
+        HistoryPageVO page = useCase.execute(USER_ID, CONVERSATION_ID, null, 10L, null, 1000);
+
+        assertEquals(30, page.getMessages().size());
+        assertFalse(page.getHasMoreAfter());
+        assertNull(page.getHasMoreBefore());
+    }
+
+    @Test
+    void testExecute_AroundSeqIncludesAnchor() {
+        // 锚点 100，前取 2 条、锚点及之后取 3 条
+        when(messageRepository.findByConversationIdAndSeqBefore(CONVERSATION_ID, 100L, 3))
+                .thenReturn(descending(99, 3));
+        when(messageRepository.findByConversationIdAndSeqAfter(CONVERSATION_ID, 99L, 4))
+                .thenReturn(ascending(100, 2));
+
+        HistoryPageVO page = useCase.execute(USER_ID, CONVERSATION_ID, null, null, 100L, 5);
+
+        assertEquals(List.of(98L, 99L, 100L, 101L), seqs(page));
+        assertTrue(page.getHasMoreBefore());
+        assertFalse(page.getHasMoreAfter());
+    }
+
+    @Test
+    void testExecute_NotMember() {
+        when(membershipCache.isMember(CONVERSATION_ID, 2L)).thenReturn(false);
+
+        assertThrows(RuntimeException.class,
+                () -> useCase.execute(2L, CONVERSATION_ID, null, null, null, null));
+        verifyNoInteractions(messageRepository);
+    }
+
+    private static List<Long> seqs(HistoryPageVO page) {
+        return page.getMessages().stream().map(Message::getSeq).collect(Collectors.toList());
+    }
+
+    private static List<Message> ascending(long fromSeq, int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(Message.builder().conversationId(CONVERSATION_ID).seq(fromSeq + i).build());
+        }
+        return messages;
+    }
+
+    private static List<Message> descending(long fromSeq, int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(Message.builder().conversationId(CONVERSATION_ID).seq(fromSeq - i).build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,161 @@
+package com.bytedance.usecase.message;
+
+import com.bytedance.config.GroupCommitConfig;
+import com.bytedance.consumer.MessageDispatcher;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IConversationMemberRepository;
+import com.bytedance.repository.IConversationRepository;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.HotMessageCache;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.service.SeqAllocator;
+import com.bytedance.service.impl.JacksonMessageCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GroupCommitMessageWriter 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class GroupCommitMessageWriterTest {
+
+    @Mock
+    private IMessageRepository messageRepository;
+
+    @Mock
+    private IConversationRepository conversationRepository;
+
+    @Mock
+    private IConversationMemberRepository conversationMemberRepository;
+
+    @Mock
+    private MembershipCache membershipCache;
+
+    @Mock
+    private SeqAllocator seqAllocator;
+
+    @Mock
+    private MessageDispatcher messageDispatcher;
+
+    @Mock
+    private HotMessageCache hotMessageCache;
+
+    @Mock
+    private SendMessageUseCase sendMessageUseCase;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private GroupCommitMessageWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        GroupCommitConfig config = new GroupCommitConfig();
+        config.setEnabled(true);
+        config.setWriters(1);
+        config.setMaxBatchSize(3);
+        // 等待足够久，保证测试中的三条进入同一批
+        config.setMaxWaitMicros(TimeUnit.SECONDS.toMicros(1));
+        config.setTimeoutMs(200);
+
+        writer = new GroupCommitMessageWriter(config, messageRepository, conversationRepository,
+                conversationMemberRepository, membershipCache, seqAllocator, messageDispatcher,
+                hotMessageCache, sendMessageUseCase, transactionTemplate, new JacksonMessageCodec(), new SimpleMeterRegistry());
+        writer.init();
+
+        lenient().when(membershipCache.isMember(anyLong(), anyLong())).thenReturn(true);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.destroy();
+    }
+
+    @Test
+    void testSubmit_OneInsertPerBatchWithOrderedSeqs() throws Exception {
+        // 行锁分配器在同一事务内返回相同的值
+        when(seqAllocator.next(100L)).thenReturn(5L);
+
+        CompletableFuture<Message> f1 = writer.submit(100L, 1L, 1, "{\"text\":\"a\"}", null);
+        CompletableFuture<Message> f2 = writer.submit(100L, 2L, 1, "{\"text\":\"b\"}", null);
+        CompletableFuture<Message> f3 = writer.submit(100L, 1L, 1, "{\"text\":\"c\"}", null);
+
+        assertEquals(5L, f1.get(5, TimeUnit.SECONDS).getSeq());
+        assertEquals(6L, f2.get(5, TimeUnit.SECONDS).getSeq());
+        assertEquals(7L, f3.get(5, TimeUnit.SECONDS).getSeq());
+
+        // 一条多行 INSERT，会话摘要只更新一次（最后一条）
+        verify(messageRepository, times(1)).saveBatch(anyList());
+        verify(conversationRepository, times(1)).updateLastMessage(eq(100L), eq(7L), eq("c"), any());
+        // 每个发送者只推进一次已读游标
+        verify(conversationMemberRepository).advanceAckSeq(100L, 1L, 7L);
+        verify(conversationMemberRepository).advanceAckSeq(100L, 2L, 6L);
+        verify(messageDispatcher, times(3)).dispatch(any(Message.class), any());
+    }
+
+    @Test
+    void testSubmit_FallsBackToSingleSendsWhenBatchFails() throws Exception {
+        when(seqAllocator.next(100L)).thenReturn(5L);
+        doThrow(new RuntimeException("deadlock")).when(messageRepository).saveBatch(anyList());
+        Message single = Message.builder().conversationId(100L).seq(9L).build();
+        when(sendMessageUseCase.execute(eq(100L), anyLong(), eq(1), anyString(), isNull())).thenReturn(single);
+
+        CompletableFuture<Message> future = writer.submit(100L, 1L, 1, "{\"text\":\"a\"}", null);
+
+        assertSame(single, future.get(5, TimeUnit.SECONDS));
+        verify(seqAllocator).reset(100L);
+    }
+
+    @Test
+    void testSubmit_AllocatesInConversationOrder() throws Exception {
+        when(seqAllocator.next(anyLong())).thenReturn(1L);
+
+        CompletableFuture<Message> f1 = writer.submit(200L, 1L, 1, "{\"text\":\"a\"}", null);
+        CompletableFuture<Message> f2 = writer.submit(100L, 1L, 1, "{\"text\":\"b\"}", null);
+        CompletableFuture<Message> f3 = writer.submit(200L, 1L, 1, "{\"text\":\"c\"}", null);
+
+        // 按会话ID顺序加锁，同一会话内仍按到达顺序
+        assertEquals(1L, f1.get(5, TimeUnit.SECONDS).getSeq());
+        assertEquals(1L, f2.get(5, TimeUnit.SECONDS).getSeq());
+        assertEquals(2L, f3.get(5, TimeUnit.SECONDS).getSeq());
+        InOrder inOrder = inOrder(seqAllocator);
+        inOrder.verify(seqAllocator).next(100L);
+        inOrder.verify(seqAllocator, times(2)).next(200L);
+    }
+
+    @Test
+    void testWrite_TimedOutBeforeFlushIsNotWritten() {
+        // 凑批最多等待 1 秒，调用方 200 毫秒就超时放弃
+        assertThrows(RuntimeException.class, () -> writer.write(100L, 1L, 1, "{\"text\":\"a\"}", null));
+
+        verify(messageRepository, after(1500).never()).saveBatch(anyList());
+        verifyNoInteractions(seqAllocator, messageDispatcher);
+    }
+
+    @Test
+    void testSubmit_RejectsNonMember() {
+        when(membershipCache.isMember(100L, 3L)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> writer.submit(100L, 3L, 1, "{\"text\":\"a\"}", null));
+        verifyNoInteractions(messageRepository);
+    }
+}
@@ -0,0 +1,144 @@
+package com.bytedance.usecase.message;
+
+import com.bytedance.config.SeqConfig;
+import com.bytedance.config.SyncConfig;
+import com.bytedance.entity.Message;
+import com.bytedance.repository.IMessageRepository;
+import com.bytedance.service.MembershipCache;
+import com.bytedance.vo.SyncAllVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SyncAllMessagesUseCase 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class SyncAllMessagesUseCaseTest {
+
+    private static final Long USER_ID = 1001L;
+
+    @Mock
+    private IMessageRepository messageRepository;
+
+    @Mock
+    private MembershipCache membershipCache;
+
+    private final SyncConfig config = new SyncConfig();
+
+    private SyncAllMessagesUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        config.setParallelism(2);
+        config.setPerConversationLimit(3);
+        useCase = new SyncAllMessagesUseCase(messageRepository, membershipCache, config, new SeqConfig());
+        useCase.init();
+        lenient().when(membershipCache.isMember(anyLong(), eq(USER_ID))).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        useCase.destroy();
+    }
+
+    @Test
+    void testExecute_ReturnsDeltasAndContinuationForMore() {
+        // 会话 1 有 5 条新消息，超过单会话上限 3；会话 2 有 1 条；会话 3 没有新消息
+        when(messageRepository.findByConversationIdAndSeqAfter(1L, 10L, 4)).thenReturn(messages(1L, 11, 4));
+        when(messageRepository.findByConversationIdAndSeqAfter(2L, 0L, 4)).thenReturn(messages(2L, 1, 1));
+        when(messageRepository.findByConversationIdAndSeqAfter(3L, 7L, 4)).thenReturn(new ArrayList<>());
+
+        SyncAllVO result = useCase.execute(USER_ID, cursors(1L, 10L, 2L, 0L, 3L, 7L), null);
+
+        assertEquals(2, result.getConversations().size());
+        SyncAllVO.ConversationDelta first = result.getConversations().get(0);
+        assertEquals(3, first.getMessages().size());
+        assertTrue(first.getHasMore());
+        assertEquals(13L, first.getNextSeq());
+        assertFalse(result.getConversations().get(1).getHasMore());
+
+        // 续传令牌只包含还有更多消息的会话
+        assertEquals(Map.of(1L, 13L), SyncAllMessagesUseCase.decodeContinuation(result.getContinuation()));
+    }
+
+    @Test
+    void testExecute_ByteBudgetDefersRemainingConversations() {
+        config.setParallelism(1);
+        config.setMaxBytes(1);
+        when(messageRepository.findByConversationIdAndSeqAfter(1L, 0L, 4)).thenReturn(messages(1L, 1, 2));
+
+        SyncAllVO result = useCase.execute(USER_ID, cursors(1L, 0L, 2L, 5L), null);
+
+        // 预算内至少返回一条，其余（包括没读的会话）放入续传令牌
+        assertEquals(1, result.getConversations().get(0).getMessages().size());
+        assertEquals(Map.of(1L, 1L, 2L, 5L), SyncAllMessagesUseCase.decodeContinuation(result.getContinuation()));
+        verify(messageRepository, never()).findByConversationIdAndSeqAfter(eq(2L), anyLong(), anyInt());
+    }
+
+    @Test
+    void testExecute_SkipsConversationsUserIsNotIn() {
+        when(membershipCache.isMember(2L, USER_ID)).thenReturn(false);
+        when(messageRepository.findByConversationIdAndSeqAfter(1L, 0L, 4)).thenReturn(new ArrayList<>());
+
+        SyncAllVO result = useCase.execute(USER_ID, cursors(1L, 0L, 2L, 0L), null);
+
+        assertTrue(result.getConversations().isEmpty());
+        assertNull(result.getContinuation());
+        verify(messageRepository, never()).findByConversationIdAndSeqAfter(eq(2L), anyLong(), anyInt());
+    }
+
+    @Test
+    void testExecute_StopsBeforeRecentSeqGap() {
+        // seq 3 还未提交（4 刚写入），只返回 1、2；seq 6 之前的空洞已超过宽限时间，视为永久空洞
+        List<Message> recent = messages(1L, 1, 2);
+        recent.add(Message.builder().conversationId(1L).seq(4L).createdTime(LocalDateTime.now()).build());
+        List<Message> old = messages(2L, 1, 1);
+        old.add(Message.builder().conversationId(2L).seq(6L).createdTime(LocalDateTime.now().minusMinutes(1)).build());
+        when(messageRepository.findByConversationIdAndSeqAfter(1L, 0L, 4)).thenReturn(recent);
+        when(messageRepository.findByConversationIdAndSeqAfter(2L, 0L, 4)).thenReturn(old);
+
+        SyncAllVO result = useCase.execute(USER_ID, cursors(1L, 0L, 2L, 0L), null);
+
+        assertEquals(2L, result.getConversations().get(0).getNextSeq());
+        assertFalse(result.getConversations().get(0).getHasMore());
+        assertEquals(6L, result.getConversations().get(1).getNextSeq());
+    }
+
+    @Test
+    void testContinuation_RoundTripAndInvalid() {
+        Map<Long, Long> cursors = cursors(5L, 100L, 6L, 0L);
+        assertEquals(cursors, SyncAllMessagesUseCase.decodeContinuation(SyncAllMessagesUseCase.encodeContinuation(cursors)));
+        assertThrows(RuntimeException.class, () -> SyncAllMessagesUseCase.decodeContinuation("!!"));
+    }
+
+    private static Map<Long, Long> cursors(long... pairs) {
+        Map<Long, Long> cursors = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            cursors.put(pairs[i], pairs[i + 1]);
+        }
+        return cursors;
+    }
+
+    private static List<Message> messages(Long conversationId, long fromSeq, int count) {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(Message.builder().conversationId(conversationId).seq(fromSeq + i)
+                    .content("{\"text\":\"m\"}").build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,96 @@
+package com.bytedance.usecase.user;
+
+import com.bytedance.entity.User;
+import com.bytedance.repository.IUserRepository;
+import com.bytedance.vo.UserDirectoryVO;
+import com.bytedance.vo.UserVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * GetUserDirectoryUseCase 单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class GetUserDirectoryUseCaseTest {
+
+    @Mock
+    private IUserRepository userRepository;
+
+    private GetUserDirectoryUseCase useCase;
+
+    @BeforeEach
+    void setUp() {
+        useCase = new GetUserDirectoryUseCase(userRepository);
+    }
+
+    @Test
+    void testExecute_SnapshotCachedUntilVersionChanges() {
+        when(userRepository.currentDirectoryVersion()).thenReturn(3L, 3L, 4L);
+        when(userRepository.findDirectory()).thenReturn(List.of(user(1L, 1L), user(2L, 3L)),
+                List.of(user(1L, 1L), user(2L, 3L), user(3L, 4L)));
+
+        UserDirectoryVO first = useCase.execute(null);
+        UserDirectoryVO second = useCase.execute(null);
+        UserDirectoryVO third = useCase.execute(null);
+
+        assertTrue(first.getFull());
+        assertEquals(3L, first.getVersion());
+        assertSame(first, second);
+        assertEquals(4L, third.getVersion());
+        assertEquals(3, third.getUsers().size());
+        verify(userRepository, times(2)).findDirectory();
+    }
+
+    @Test
+    void testExecute_DeltaSinceVersion() {
+        when(userRepository.currentDirectoryVersion()).thenReturn(5L);
+        when(userRepository.findDirectoryAfter(eq(3L), anyInt())).thenReturn(List.of(user(7L, 4L), user(2L, 5L)));
+
+        UserDirectoryVO delta = useCase.execute(3L);
+
+        assertFalse(delta.getFull());
+        assertEquals(5L, delta.getVersion());
+        assertEquals(List.of(7L, 2L), delta.getUsers().stream().map(UserVO::getUserId).collect(Collectors.toList()));
+        verify(userRepository, never()).findDirectory();
+    }
+
+    @Test
+    void testExecute_UpToDateReturnsEmptyDelta() {
+        when(userRepository.currentDirectoryVersion()).thenReturn(5L);
+
+        UserDirectoryVO delta = useCase.execute(5L);
+
+        assertFalse(delta.getFull());
+        assertTrue(delta.getUsers().isEmpty());
+        verify(userRepository, never()).findDirectoryAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void testExecute_TooManyChangesOrInvalidSinceFallsBackToSnapshot() {
+        when(userRepository.currentDirectoryVersion()).thenReturn(2000L);
+        List<User> changed = new ArrayList<>();
+        for (long i = 1; i <= 1001; i++) {
+            changed.add(user(i, i));
+        }
+        when(userRepository.findDirectoryAfter(eq(1L), anyInt())).thenReturn(changed);
+        when(userRepository.findDirectory()).thenReturn(List.of(user(1L, 1L)));
+
+        assertTrue(useCase.execute(1L).getFull());
+        assertTrue(useCase.execute(9999L).getFull());
+    }
+
+    private static User user(Long userId, long version) {
+        return User.builder().userId(userId).username("u" + userId).version(version).build();
+    }
+}